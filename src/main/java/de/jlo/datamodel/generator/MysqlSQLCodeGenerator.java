@@ -27,6 +27,26 @@ public class MysqlSQLCodeGenerator extends SQLCodeGenerator {
 	}
 	
 	public SQLStatement buildInsertSQLStatement(SQLTable table, boolean fullName, boolean onConflictIgnore, boolean onConflictUpdate) {
+		return buildInsertSQLStatement(table, fullName, onConflictIgnore, onConflictUpdate, 1);
+	}
+	
+	@Override
+	public int getMaxBindParameters() {
+		// the max number of placeholders in a prepared statement
+		return 65535;
+	}
+
+	/**
+	 * builds an insert statement with multiple rows: values (?,?),(?,?),...
+	 * The parameters are ordered row by row, the parameters of the on duplicate key clause follows at the end.
+	 * @param table
+	 * @param fullName
+	 * @param onConflictIgnore
+	 * @param onConflictUpdate
+	 * @param countRows number of rows in the values clause
+	 * @return statement
+	 */
+	public SQLStatement buildInsertSQLStatement(SQLTable table, boolean fullName, boolean onConflictIgnore, boolean onConflictUpdate, int countRows) {
     	setupEnclosureChar(table);
 		final SQLStatement sqlPs = new SQLStatement();
 		sqlPs.setPrepared(true);
@@ -60,28 +80,34 @@ public class MysqlSQLCodeGenerator extends SQLCodeGenerator {
 				hasNonePrimaryKeyFields = true;
 			}
 		}
-		sb.append(")\n values("); 
+		sb.append(")\n values"); 
 		int paramIndex = 0;
 		SQLPSParam psParam = null;
-		firstLoop = true;
-		for (int i = 0; i < table.getFieldCount(); i++) {
-			field = table.getFieldAt(i);
-			if (field.getUsageType() == SQLField.USAGE_UPD_ONLY) {
-				continue;
+		for (int r = 0; r < countRows; r++) {
+			if (r > 0) {
+				sb.append(",\n");
 			}
-			if (firstLoop) {
-				firstLoop = false;
-			} else {
-				sb.append(',');
+			sb.append("(");
+			firstLoop = true;
+			for (int i = 0; i < table.getFieldCount(); i++) {
+				field = table.getFieldAt(i);
+				if (field.getUsageType() == SQLField.USAGE_UPD_ONLY) {
+					continue;
+				}
+				if (firstLoop) {
+					firstLoop = false;
+				} else {
+					sb.append(',');
+				}
+				sb.append("?");
+				psParam = new SQLPSParam();
+				psParam.setName(field.getName());
+				psParam.setIndex(++paramIndex);
+				psParam.setBasicType(field.getBasicType());
+				sqlPs.addParam(psParam);
 			}
-			sb.append("?");
-			psParam = new SQLPSParam();
-			psParam.setName(field.getName());
-			psParam.setIndex(++paramIndex);
-			psParam.setBasicType(field.getBasicType());
-			sqlPs.addParam(psParam);
+			sb.append(")"); 
 		}
-		sb.append(")"); 
 		if (onConflictUpdate && hasNonePrimaryKeyFields) {
 			// build assignment for the none-key fields
 			firstLoop = true;
@@ -120,4 +146,59 @@ public class MysqlSQLCodeGenerator extends SQLCodeGenerator {
 		return sqlPs;
 	}
 
+	/**
+	 * builds the statement for LOAD DATA LOCAL INFILE with the default format: 
+	 * tab separated fields, new line as line end, backslash as escape char and \N as null.
+	 * The parameters describes the columns in the order of the fields in the data stream.
+	 * @param table
+	 * @param fullName
+	 * @param onConflictIgnore use IGNORE for duplicate keys
+	 * @param onConflictReplace use REPLACE for duplicate keys
+	 * @return statement with one parameter per column
+	 */
+	public SQLStatement buildLoadDataStatement(SQLTable table, boolean fullName, boolean onConflictIgnore, boolean onConflictReplace) {
+    	setupEnclosureChar(table);
+		final SQLStatement sqlPs = new SQLStatement();
+		final StringBuilder sb = new StringBuilder();
+		// the file name is not used because the data comes from the input stream set at the statement
+		sb.append("load data local infile 'stream'");
+		if (onConflictReplace) {
+			sb.append(" replace");
+		} else if (onConflictIgnore) {
+			sb.append(" ignore");
+		}
+		sb.append("\n into table ");
+		if (fullName) {
+			sb.append(getEncapsulatedName(table.getAbsoluteName(), true));
+		} else {
+			sb.append(getEncapsulatedName(table.getName(), true));
+		}
+		sb.append("\n character set utf8mb4");
+		sb.append("\n (");
+		int paramIndex = 0;
+		SQLPSParam psParam = null;
+		SQLField field = null;
+		boolean firstLoop = true;
+		for (int i = 0; i < table.getFieldCount(); i++) {
+			field = table.getFieldAt(i);
+			if (field.getUsageType() == SQLField.USAGE_UPD_ONLY) {
+				continue;
+			}
+			if (firstLoop) {
+				firstLoop = false;
+			} else {
+				sb.append(',');
+			}
+			sb.append(getEncapsulatedName(field.getName(), false));
+			psParam = new SQLPSParam();
+			psParam.setName(field.getName());
+			psParam.setIndex(++paramIndex);
+			psParam.setBasicType(field.getBasicType());
+			sqlPs.addParam(psParam);
+		}
+		sb.append(")");
+		sqlPs.setSQL(sb.toString());
+		return sqlPs;
+	}
+
 }
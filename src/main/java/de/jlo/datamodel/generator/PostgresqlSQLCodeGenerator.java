@@ -28,6 +28,26 @@ public class PostgresqlSQLCodeGenerator extends SQLCodeGenerator {
 	private Logger logger = LogManager.getLogger(PostgresqlSQLCodeGenerator.class);
 	
 	public SQLStatement buildInsertSQLStatement(SQLTable table, boolean fullName, boolean onConflictIgnore, boolean onConflictUpdate) {
+		return buildInsertSQLStatement(table, fullName, onConflictIgnore, onConflictUpdate, 1);
+	}
+	
+	@Override
+	public int getMaxBindParameters() {
+		// the protocol transfers the number of parameters as signed int16
+		return 32767;
+	}
+
+	/**
+	 * builds an insert statement with multiple rows: values (?,?),(?,?),...
+	 * The parameters are ordered row by row, the parameters of the on conflict clause follows at the end.
+	 * @param table
+	 * @param fullName
+	 * @param onConflictIgnore
+	 * @param onConflictUpdate
+	 * @param countRows number of rows in the values clause
+	 * @return statement
+	 */
+	public SQLStatement buildInsertSQLStatement(SQLTable table, boolean fullName, boolean onConflictIgnore, boolean onConflictUpdate, int countRows) {
     	setupEnclosureChar(table);
 		final SQLStatement sqlPs = new SQLStatement();
 		sqlPs.setPrepared(true);
@@ -40,8 +60,6 @@ public class PostgresqlSQLCodeGenerator extends SQLCodeGenerator {
 		}
 		sb.append(" ("); 
 		SQLField field = null;
-		boolean hasPrimaryKey = false;
-		boolean hasFieldsNotPartOfPK = false;
 		boolean firstLoop = true;
 		for (int i = 0; i < table.getFieldCount(); i++) {
 			field = table.getFieldAt(i);
@@ -54,16 +72,68 @@ public class PostgresqlSQLCodeGenerator extends SQLCodeGenerator {
 				sb.append(',');
 			}
 			sb.append(getEncapsulatedName(field.getName(), false));
-			if (field.isPrimaryKey()) {
-				hasPrimaryKey = true;
-			} else {
-				hasFieldsNotPartOfPK = true;
+		}
+		sb.append(")\n values "); 
+		int paramIndex = 0;
+		SQLPSParam psParam = null;
+		for (int r = 0; r < countRows; r++) {
+			if (r > 0) {
+				sb.append(",\n");
+			}
+			sb.append("(");
+			firstLoop = true;
+			for (int i = 0; i < table.getFieldCount(); i++) {
+				field = table.getFieldAt(i);
+				if (field.getUsageType() == SQLField.USAGE_UPD_ONLY) {
+					continue;
+				}
+				if (firstLoop) {
+					firstLoop = false;
+				} else {
+					sb.append(',');
+				}
+				sb.append("?"); 
+				psParam = new SQLPSParam();
+				psParam.setName(field.getName());
+				psParam.setIndex(++paramIndex);
+				psParam.setBasicType(field.getBasicType());
+				sqlPs.addParam(psParam);
 			}
+			sb.append(")");
 		}
-		sb.append(")\n values ("); 
+		appendOnConflictClause(sb, sqlPs, table, onConflictIgnore, onConflictUpdate);
+		sqlPs.setSQL(sb.toString());
+		return sqlPs;
+	}
+
+	/**
+	 * builds an insert statement which takes the values of all rows as one array per column:
+	 * insert into t (a,b) select * from unnest(?::int8[],?::text[])
+	 * The array element types are taken from the type names of the fields. 
+	 * The parameters of the on conflict clause follows after the array parameters.
+	 * @param table
+	 * @param fullName
+	 * @param onConflictIgnore
+	 * @param onConflictUpdate
+	 * @return statement with one array parameter per column
+	 */
+	public SQLStatement buildUnnestInsertSQLStatement(SQLTable table, boolean fullName, boolean onConflictIgnore, boolean onConflictUpdate) {
+    	setupEnclosureChar(table);
+		final SQLStatement sqlPs = new SQLStatement();
+		sqlPs.setPrepared(true);
+		final StringBuilder sb = new StringBuilder();
+		sb.append("insert into ");
+		if (fullName) {
+			sb.append(getEncapsulatedName(table.getAbsoluteName(), true));
+		} else {
+			sb.append(getEncapsulatedName(table.getName(), true));
+		}
+		sb.append(" ("); 
+		final StringBuilder sbArrays = new StringBuilder();
 		int paramIndex = 0;
 		SQLPSParam psParam = null;
-		firstLoop = true;
+		SQLField field = null;
+		boolean firstLoop = true;
 		for (int i = 0; i < table.getFieldCount(); i++) {
 			field = table.getFieldAt(i);
 			if (field.getUsageType() == SQLField.USAGE_UPD_ONLY) {
@@ -73,15 +143,65 @@ public class PostgresqlSQLCodeGenerator extends SQLCodeGenerator {
 				firstLoop = false;
 			} else {
 				sb.append(',');
+				sbArrays.append(',');
 			}
-			sb.append("?"); 
+			sb.append(getEncapsulatedName(field.getName(), false));
+			sbArrays.append("?::");
+			sbArrays.append(getArrayElementType(field));
+			sbArrays.append("[]");
 			psParam = new SQLPSParam();
 			psParam.setName(field.getName());
 			psParam.setIndex(++paramIndex);
 			psParam.setBasicType(field.getBasicType());
 			sqlPs.addParam(psParam);
 		}
+		sb.append(")\n select * from unnest(");
+		sb.append(sbArrays);
 		sb.append(")");
+		appendOnConflictClause(sb, sqlPs, table, onConflictIgnore, onConflictUpdate);
+		sqlPs.setSQL(sb.toString());
+		return sqlPs;
+	}
+
+	/**
+	 * @param field
+	 * @return the type name usable as element type of an array
+	 */
+	public String getArrayElementType(SQLField field) {
+		final String typeName = field.getTypeName().toLowerCase();
+		if ("serial".equals(typeName)) {
+			return "int4";
+		} else if ("bigserial".equals(typeName)) {
+			return "int8";
+		} else if ("smallserial".equals(typeName)) {
+			return "int2";
+		} else {
+			return typeName;
+		}
+	}
+
+	/**
+	 * appends the on conflict clause for the primary key.
+	 * Parameters for fixed values are added after the existing parameters.
+	 */
+	private void appendOnConflictClause(StringBuilder sb, SQLStatement sqlPs, SQLTable table, boolean onConflictIgnore, boolean onConflictUpdate) {
+		boolean hasPrimaryKey = false;
+		boolean hasFieldsNotPartOfPK = false;
+		SQLField field = null;
+		for (int i = 0; i < table.getFieldCount(); i++) {
+			field = table.getFieldAt(i);
+			if (field.getUsageType() == SQLField.USAGE_UPD_ONLY) {
+				continue;
+			}
+			if (field.isPrimaryKey()) {
+				hasPrimaryKey = true;
+			} else {
+				hasFieldsNotPartOfPK = true;
+			}
+		}
+		int paramIndex = sqlPs.getCountParameters();
+		SQLPSParam psParam = null;
+		boolean firstLoop = true;
 		if (onConflictIgnore || onConflictUpdate) {
 			if (hasPrimaryKey) {
 				sb.append("\n on conflict (");
@@ -138,6 +258,63 @@ public class PostgresqlSQLCodeGenerator extends SQLCodeGenerator {
 				logger.warn("Table: " + table.getAbsoluteName() + " does not have a primary key. On conflict clause cannot be done.");
 			}
 		}
+	}
+
+	/**
+	 * builds the statement for COPY FROM STDIN in text format.
+	 * The parameters describes the columns in the order of the copy rows.
+	 * @param table
+	 * @param fullName
+	 * @return statement with one parameter per column
+	 */
+	public SQLStatement buildCopyInStatement(SQLTable table, boolean fullName) {
+		return buildCopyInStatement(table, fullName, false);
+	}
+
+	/**
+	 * builds the statement for COPY FROM STDIN.
+	 * The parameters describes the columns in the order of the copy rows.
+	 * @param table
+	 * @param fullName
+	 * @param binary true for the binary format, otherwise the text format will be used
+	 * @return statement with one parameter per column
+	 */
+	public SQLStatement buildCopyInStatement(SQLTable table, boolean fullName, boolean binary) {
+    	setupEnclosureChar(table);
+		final SQLStatement sqlPs = new SQLStatement();
+		final StringBuilder sb = new StringBuilder();
+		sb.append("copy ");
+		if (fullName) {
+			sb.append(getEncapsulatedName(table.getAbsoluteName(), true));
+		} else {
+			sb.append(getEncapsulatedName(table.getName(), true));
+		}
+		sb.append(" ("); 
+		int paramIndex = 0;
+		SQLPSParam psParam = null;
+		SQLField field = null;
+		boolean firstLoop = true;
+		for (int i = 0; i < table.getFieldCount(); i++) {
+			field = table.getFieldAt(i);
+			if (field.getUsageType() == SQLField.USAGE_UPD_ONLY) {
+				continue;
+			}
+			if (firstLoop) {
+				firstLoop = false;
+			} else {
+				sb.append(',');
+			}
+			sb.append(getEncapsulatedName(field.getName(), false));
+			psParam = new SQLPSParam();
+			psParam.setName(field.getName());
+			psParam.setIndex(++paramIndex);
+			psParam.setBasicType(field.getBasicType());
+			sqlPs.addParam(psParam);
+		}
+		sb.append(")\n from stdin");
+		if (binary) {
+			sb.append(" with (format binary)");
+		}
 		sqlPs.setSQL(sb.toString());
 		return sqlPs;
 	}
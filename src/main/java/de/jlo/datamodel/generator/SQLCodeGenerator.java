@@ -650,6 +650,19 @@ public class SQLCodeGenerator {
 	}
 
 	public SQLStatement buildInsertSQLStatement(SQLTable table, boolean fullName) throws Exception {
+		return buildInsertSQLStatement(table, fullName, 1);
+	}
+
+	/**
+	 * builds an insert statement with multiple rows: values (?,?),(?,?),...
+	 * The parameters are ordered row by row.
+	 * @param table
+	 * @param fullName
+	 * @param countRows number of rows in the values clause
+	 * @return statement
+	 * @throws Exception
+	 */
+	public SQLStatement buildInsertSQLStatement(SQLTable table, boolean fullName, int countRows) throws Exception {
     	setupEnclosureChar(table);
 		if (table.getFieldCount() == 0) {
 			throw new Exception("No fields for insert statement for table: " + table.getAbsoluteName());
@@ -673,25 +686,39 @@ public class SQLCodeGenerator {
 			}
 			sb.append(getEncapsulatedName(field.getName(), false));
 		}
-		sb.append(")\n values("); 
+		sb.append(")\n values"); 
 		SQLPSParam psParam = null;
-		for (int i = 0; i < table.getFieldCount(); i++) {
-			field = table.getFieldAt(i);
-			if (i > 0) {
-				sb.append(',');
+		for (int r = 0; r < countRows; r++) {
+			if (r > 0) {
+				sb.append(",\n");
 			}
-			sb.append("?"); 
-			psParam = new SQLPSParam();
-			psParam.setName(field.getName());
-			psParam.setIndex(++paramIndex);
-			psParam.setBasicType(field.getBasicType());
-			sqlPs.addParam(psParam);
+			sb.append("(");
+			for (int i = 0; i < table.getFieldCount(); i++) {
+				field = table.getFieldAt(i);
+				if (i > 0) {
+					sb.append(',');
+				}
+				sb.append("?"); 
+				psParam = new SQLPSParam();
+				psParam.setName(field.getName());
+				psParam.setIndex(++paramIndex);
+				psParam.setBasicType(field.getBasicType());
+				sqlPs.addParam(psParam);
+			}
+			sb.append(")"); 
 		}
-		sb.append(")"); 
 		sqlPs.setSQL(sb.toString());
 		return sqlPs;
 	}
 	
+	/**
+	 * @return the max number of parameters the database accepts in one statement
+	 */
+	public int getMaxBindParameters() {
+		// SQL Server accepts 2100 parameters, most other databases more
+		return 2000;
+	}
+
 	public String buildCountAllStatement(SQLTable table, boolean fullName) {
     	setupEnclosureChar(table);
 		final StringBuilder sb = new StringBuilder();
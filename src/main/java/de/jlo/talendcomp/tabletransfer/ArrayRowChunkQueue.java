@@ -0,0 +1,49 @@
+/**
+ * Copyright 2024 Jan Lolling jan.lolling@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.jlo.talendcomp.tabletransfer;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Row chunk queue based on an ArrayBlockingQueue.
+ * Every writer gets its own queue or the writers share one queue.
+ */
+public class ArrayRowChunkQueue implements RowChunkQueue {
+	
+	private final BlockingQueue<Object[][]> queue;
+	
+	public ArrayRowChunkQueue(int capacity) {
+		queue = new ArrayBlockingQueue<>(capacity);
+	}
+
+	@Override
+	public void put(Object[][] chunk) throws InterruptedException {
+		queue.put(chunk);
+	}
+
+	@Override
+	public Object[][] poll(long timeout, TimeUnit unit) throws InterruptedException {
+		return queue.poll(timeout, unit);
+	}
+
+	@Override
+	public int size() {
+		return queue.size();
+	}
+
+}
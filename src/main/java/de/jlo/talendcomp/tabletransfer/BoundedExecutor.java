@@ -0,0 +1,131 @@
+/**
+ * Copyright 2024 Jan Lolling jan.lolling@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.jlo.talendcomp.tabletransfer;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs the tasks with not more than the given number of threads at the same time.
+ * The threads are taken from another executor, this way a worker pool of a transfer
+ * uses the threads of the engine, the thread factory or new threads like the readers and writers.
+ */
+public class BoundedExecutor implements Executor {
+
+	private final Executor threadExecutor;
+	private final int maxThreads;
+	private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+	private final Set<Thread> workers = new HashSet<>();
+	private int countWorkers = 0;
+	private boolean shutdown = false;
+
+	/**
+	 * @param threadExecutor starts every worker in its own thread
+	 * @param maxThreads max number of tasks running at the same time
+	 */
+	public BoundedExecutor(Executor threadExecutor, int maxThreads) {
+		if (maxThreads < 1) {
+			throw new IllegalArgumentException("maxThreads must be greater 0");
+		}
+		this.threadExecutor = threadExecutor;
+		this.maxThreads = maxThreads;
+	}
+
+	@Override
+	public void execute(Runnable task) {
+		synchronized (tasks) {
+			if (shutdown) {
+				throw new RejectedExecutionException("Executor is already shut down");
+			}
+			tasks.add(task);
+			if (countWorkers == maxThreads) {
+				// a running worker takes the task
+				return;
+			}
+			countWorkers++;
+		}
+		try {
+			threadExecutor.execute(worker);
+		} catch (RuntimeException e) {
+			synchronized (tasks) {
+				countWorkers--;
+				tasks.remove(task);
+			}
+			throw e;
+		}
+	}
+
+	private final Runnable worker = new Runnable() {
+
+		@Override
+		public void run() {
+			final Thread thread = Thread.currentThread();
+			boolean counted = true;
+			synchronized (tasks) {
+				workers.add(thread);
+			}
+			try {
+				while (true) {
+					final Runnable task;
+					synchronized (tasks) {
+						task = shutdown ? null : tasks.poll();
+						if (task == null) {
+							// under the lock, otherwise a task added now would not get a worker
+							countWorkers--;
+							counted = false;
+							workers.remove(thread);
+							return;
+						}
+					}
+					task.run();
+				}
+			} finally {
+				if (counted) {
+					synchronized (tasks) {
+						countWorkers--;
+						workers.remove(thread);
+					}
+				}
+				// a pooled thread must not keep the interrupt of shutdownNow
+				Thread.interrupted();
+			}
+		}
+
+	};
+
+	/**
+	 * cancels the waiting tasks and interrupts the running tasks
+	 */
+	public void shutdownNow() {
+		synchronized (tasks) {
+			shutdown = true;
+			for (Runnable task : tasks) {
+				if (task instanceof Future) {
+					((Future<?>) task).cancel(false);
+				}
+			}
+			tasks.clear();
+			for (Thread thread : workers) {
+				thread.interrupt();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,214 @@
+/**
+ * Copyright 2024 Jan Lolling jan.lolling@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.jlo.talendcomp.tabletransfer;
+
+import java.util.Arrays;
+
+/**
+ * Columnar batch of rows.
+ * Integer, long and double columns are kept in primitive arrays with a null bitmap,
+ * all other columns as objects. This way numeric values are not boxed between reader and writer.
+ * The batch travels as chunk with one row containing only the batch through the queues.
+ */
+public class ColumnBatch {
+	
+	public static final int TYPE_OBJECT = 0;
+	public static final int TYPE_LONG = 1;
+	public static final int TYPE_INT = 2;
+	public static final int TYPE_DOUBLE = 3;
+	
+	private final int[] columnTypes;
+	private final int capacity;
+	private final long[][] longValues;
+	private final int[][] intValues;
+	private final double[][] doubleValues;
+	private final Object[][] objectValues;
+	private final long[][] nulls;
+	private final Object[][] chunk;
+	private int countRows = 0;
+	
+	/**
+	 * creates the batch
+	 * @param columnTypes the type of every column (TYPE_*)
+	 * @param capacity max count rows
+	 */
+	public ColumnBatch(int[] columnTypes, int capacity) {
+		if (columnTypes == null) {
+			throw new IllegalArgumentException("columnTypes cannot be null");
+		}
+		if (capacity < 1) {
+			throw new IllegalArgumentException("capacity must be greater than 0");
+		}
+		this.columnTypes = columnTypes;
+		this.capacity = capacity;
+		final int countColumns = columnTypes.length;
+		longValues = new long[countColumns][];
+		intValues = new int[countColumns][];
+		doubleValues = new double[countColumns][];
+		objectValues = new Object[countColumns][];
+		nulls = new long[countColumns][(capacity + 63) >>> 6];
+		for (int c = 0; c < countColumns; c++) {
+			switch (columnTypes[c]) {
+			case TYPE_LONG:
+				longValues[c] = new long[capacity];
+				break;
+			case TYPE_INT:
+				intValues[c] = new int[capacity];
+				break;
+			case TYPE_DOUBLE:
+				doubleValues[c] = new double[capacity];
+				break;
+			default:
+				objectValues[c] = new Object[capacity];
+			}
+		}
+		chunk = new Object[][] {new Object[] {this}};
+	}
+	
+	/**
+	 * @param chunk a chunk from the queue
+	 * @return the batch if the chunk carries a batch otherwise null
+	 */
+	public static ColumnBatch fromChunk(Object[][] chunk) {
+		if (chunk.length == 1 && chunk[0] != null && chunk[0].length == 1 && chunk[0][0] instanceof ColumnBatch) {
+			return (ColumnBatch) chunk[0][0];
+		}
+		return null;
+	}
+	
+	/**
+	 * @return the chunk carrying this batch through the queues
+	 */
+	public Object[][] getChunk() {
+		return chunk;
+	}
+	
+	/**
+	 * removes all rows to reuse the batch
+	 */
+	public void clear() {
+		for (long[] n : nulls) {
+			Arrays.fill(n, 0l);
+		}
+		countRows = 0;
+	}
+	
+	/**
+	 * adds a new row. All columns of the row must be set afterwards.
+	 * @return the index of the new row
+	 */
+	public int addRow() {
+		if (countRows == capacity) {
+			throw new IllegalStateException("Batch is full");
+		}
+		return countRows++;
+	}
+	
+	public boolean isFull() {
+		return countRows == capacity;
+	}
+	
+	public int getCountRows() {
+		return countRows;
+	}
+	
+	public int getCountColumns() {
+		return columnTypes.length;
+	}
+	
+	public int getColumnType(int column) {
+		return columnTypes[column];
+	}
+	
+	public void setNull(int column, int row) {
+		nulls[column][row >>> 6] |= 1l << row;
+		if (objectValues[column] != null) {
+			objectValues[column][row] = null;
+		}
+	}
+	
+	public boolean isNull(int column, int row) {
+		return (nulls[column][row >>> 6] & (1l << row)) != 0;
+	}
+	
+	public void setLong(int column, int row, long value) {
+		longValues[column][row] = value;
+	}
+	
+	public long getLong(int column, int row) {
+		return longValues[column][row];
+	}
+	
+	public void setInt(int column, int row, int value) {
+		intValues[column][row] = value;
+	}
+	
+	public int getInt(int column, int row) {
+		return intValues[column][row];
+	}
+	
+	public void setDouble(int column, int row, double value) {
+		doubleValues[column][row] = value;
+	}
+	
+	public double getDouble(int column, int row) {
+		return doubleValues[column][row];
+	}
+	
+	public void setObject(int column, int row, Object value) {
+		objectValues[column][row] = value;
+	}
+	
+	public Object getObject(int column, int row) {
+		return objectValues[column][row];
+	}
+	
+	/**
+	 * returns the value boxed if it is a primitive column
+	 * @param column
+	 * @param row
+	 * @return the value or null
+	 */
+	public Object getValue(int column, int row) {
+		if (isNull(column, row)) {
+			return null;
+		}
+		switch (columnTypes[column]) {
+		case TYPE_LONG:
+			return longValues[column][row];
+		case TYPE_INT:
+			return intValues[column][row];
+		case TYPE_DOUBLE:
+			return doubleValues[column][row];
+		default:
+			return objectValues[column][row];
+		}
+	}
+	
+	/**
+	 * creates a row with boxed values for the writers without columnar support
+	 * @param row
+	 * @return the new row
+	 */
+	public Object[] getRow(int row) {
+		final Object[] values = new Object[columnTypes.length];
+		for (int c = 0; c < values.length; c++) {
+			values[c] = getValue(c, row);
+		}
+		return values;
+	}
+
+}
@@ -0,0 +1,473 @@
+/**
+ * Copyright 2024 Jan Lolling jan.lolling@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.jlo.talendcomp.tabletransfer;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+
+/**
+ * Copies the value of one source column directly into one parameter of the target statement.
+ * The copier is chosen once per column with a typed get/set pair so that the value
+ * does not need a row array and primitive values are not boxed.
+ * The value is read and bound in two steps, so that read errors can be handled apart from write errors.
+ * A copier keeps the value of the current row and is used by one thread only.
+ */
+public abstract class ColumnCopier {
+
+	/**
+	 * reads the value of the current row
+	 * @param rs the result set positioned at the current row
+	 * @param columnIndex the JDBC column index (starts with 1)
+	 * @throws SQLException if the value cannot be read
+	 */
+	public abstract void read(ResultSet rs, int columnIndex) throws SQLException;
+
+	/**
+	 * sets the value read before as parameter
+	 * @param ps the target statement
+	 * @param paramIndex the JDBC parameter index (starts with 1)
+	 * @param sqlType the SQL type used to set null values
+	 * @throws SQLException if the value cannot be set
+	 */
+	public abstract void bind(PreparedStatement ps, int paramIndex, int sqlType) throws SQLException;
+
+	/**
+	 * creates the copier for a column
+	 * @param javaType the java type configured for the database type or null to use the JDBC type
+	 * @param jdbcType the JDBC type of the source column
+	 * @param signed true if the numbers of the source column are signed
+	 * @param trim true if string values should be trimmed
+	 * @param stripNoneUTF8 true if none UTF-8 characters should be removed from string values
+	 * @param zeroDateToNull true if zero dates should be set as null
+	 * @return the copier
+	 */
+	public static ColumnCopier create(String javaType, int jdbcType, boolean signed, boolean trim, boolean stripNoneUTF8, boolean zeroDateToNull) {
+		ColumnCopier copier = null;
+		if (javaType != null) {
+			copier = createForJavaType(javaType, trim, stripNoneUTF8, zeroDateToNull);
+		} else {
+			copier = createForJdbcType(jdbcType, signed, trim, stripNoneUTF8, zeroDateToNull);
+		}
+		if (zeroDateToNull) {
+			copier = new ZeroDateToNullCopier(copier);
+		}
+		return copier;
+	}
+
+	private static ColumnCopier createForJavaType(String javaType, boolean trim, boolean stripNoneUTF8, boolean zeroDateToNull) {
+		if ("time".equalsIgnoreCase(javaType)) {
+			return new TimeCopier();
+		} else if ("timestamp".equalsIgnoreCase(javaType)) {
+			return new TimestampCopier(zeroDateToNull);
+		} else if ("date".equalsIgnoreCase(javaType)) {
+			// the row based transfer also sets dates as timestamp
+			return new TimestampCopier(zeroDateToNull);
+		} else if ("string".equalsIgnoreCase(javaType)) {
+			return new StringCopier(trim, stripNoneUTF8);
+		} else if ("boolean".equalsIgnoreCase(javaType)) {
+			return new BooleanCopier();
+		} else if ("integer".equalsIgnoreCase(javaType) || "short".equalsIgnoreCase(javaType) || "byte".equalsIgnoreCase(javaType)) {
+			return new IntegerCopier();
+		} else if ("long".equalsIgnoreCase(javaType) || "biginteger".equalsIgnoreCase(javaType)) {
+			return new LongCopier();
+		} else if ("bigdecimal".equalsIgnoreCase(javaType)) {
+			return new BigDecimalCopier();
+		} else if ("double".equalsIgnoreCase(javaType)) {
+			return new DoubleCopier();
+		} else if ("float".equalsIgnoreCase(javaType)) {
+			return new FloatCopier();
+		} else {
+			return new ObjectCopier(trim);
+		}
+	}
+
+	private static ColumnCopier createForJdbcType(int jdbcType, boolean signed, boolean trim, boolean stripNoneUTF8, boolean zeroDateToNull) {
+		switch (jdbcType) {
+		case Types.BIGINT:
+			// unsigned values can exceed the range of long
+			return signed ? new LongCopier() : new ObjectCopier(trim);
+		case Types.INTEGER:
+			return signed ? new IntegerCopier() : new LongCopier();
+		case Types.SMALLINT:
+		case Types.TINYINT:
+			return new IntegerCopier();
+		case Types.DOUBLE:
+			return new DoubleCopier();
+		case Types.REAL:
+			return new FloatCopier();
+		case Types.DECIMAL:
+		case Types.NUMERIC:
+			return new BigDecimalCopier();
+		case Types.CHAR:
+		case Types.VARCHAR:
+		case Types.LONGVARCHAR:
+		case Types.NCHAR:
+		case Types.NVARCHAR:
+		case Types.LONGNVARCHAR:
+			return new StringCopier(trim, stripNoneUTF8);
+		case Types.BINARY:
+		case Types.VARBINARY:
+		case Types.LONGVARBINARY:
+			return new BytesCopier();
+		case Types.BIT:
+		case Types.BOOLEAN:
+			return new BooleanCopier();
+		case Types.DATE:
+			return new DateCopier();
+		case Types.TIME:
+			return new TimeCopier();
+		case Types.TIMESTAMP:
+			return new TimestampCopier(zeroDateToNull);
+		default:
+			// also FLOAT, it is a decimal type for some databases (e.g. Oracle) and getObject keeps the precision
+			return new ObjectCopier(trim);
+		}
+	}
+
+	static final class LongCopier extends ColumnCopier {
+
+		private long value;
+		private boolean isNull;
+
+		@Override
+		public void read(ResultSet rs, int columnIndex) throws SQLException {
+			value = rs.getLong(columnIndex);
+			isNull = rs.wasNull();
+		}
+
+		@Override
+		public void bind(PreparedStatement ps, int paramIndex, int sqlType) throws SQLException {
+			if (isNull) {
+				ps.setNull(paramIndex, sqlType);
+			} else {
+				ps.setLong(paramIndex, value);
+			}
+		}
+
+	}
+
+	static final class IntegerCopier extends ColumnCopier {
+
+		private int value;
+		private boolean isNull;
+
+		@Override
+		public void read(ResultSet rs, int columnIndex) throws SQLException {
+			value = rs.getInt(columnIndex);
+			isNull = rs.wasNull();
+		}
+
+		@Override
+		public void bind(PreparedStatement ps, int paramIndex, int sqlType) throws SQLException {
+			if (isNull) {
+				ps.setNull(paramIndex, sqlType);
+			} else {
+				ps.setInt(paramIndex, value);
+			}
+		}
+
+	}
+
+	static final class DoubleCopier extends ColumnCopier {
+
+		private double value;
+		private boolean isNull;
+
+		@Override
+		public void read(ResultSet rs, int columnIndex) throws SQLException {
+			value = rs.getDouble(columnIndex);
+			isNull = rs.wasNull();
+		}
+
+		@Override
+		public void bind(PreparedStatement ps, int paramIndex, int sqlType) throws SQLException {
+			if (isNull) {
+				ps.setNull(paramIndex, sqlType);
+			} else {
+				ps.setDouble(paramIndex, value);
+			}
+		}
+
+	}
+
+	static final class FloatCopier extends ColumnCopier {
+
+		private float value;
+		private boolean isNull;
+
+		@Override
+		public void read(ResultSet rs, int columnIndex) throws SQLException {
+			value = rs.getFloat(columnIndex);
+			isNull = rs.wasNull();
+		}
+
+		@Override
+		public void bind(PreparedStatement ps, int paramIndex, int sqlType) throws SQLException {
+			if (isNull) {
+				ps.setNull(paramIndex, sqlType);
+			} else {
+				ps.setFloat(paramIndex, value);
+			}
+		}
+
+	}
+
+	static final class BooleanCopier extends ColumnCopier {
+
+		private boolean value;
+		private boolean isNull;
+
+		@Override
+		public void read(ResultSet rs, int columnIndex) throws SQLException {
+			value = rs.getBoolean(columnIndex);
+			isNull = rs.wasNull();
+		}
+
+		@Override
+		public void bind(PreparedStatement ps, int paramIndex, int sqlType) throws SQLException {
+			if (isNull) {
+				ps.setNull(paramIndex, sqlType);
+			} else {
+				ps.setBoolean(paramIndex, value);
+			}
+		}
+
+	}
+
+	static final class BigDecimalCopier extends ColumnCopier {
+
+		private BigDecimal value;
+
+		@Override
+		public void read(ResultSet rs, int columnIndex) throws SQLException {
+			value = rs.getBigDecimal(columnIndex);
+		}
+
+		@Override
+		public void bind(PreparedStatement ps, int paramIndex, int sqlType) throws SQLException {
+			if (value == null) {
+				ps.setNull(paramIndex, sqlType);
+			} else {
+				ps.setBigDecimal(paramIndex, value);
+			}
+		}
+
+	}
+
+	static final class StringCopier extends ColumnCopier {
+
+		private final boolean trim;
+		private final boolean stripNoneUTF8;
+
+		private String value;
+
+		StringCopier(boolean trim, boolean stripNoneUTF8) {
+			this.trim = trim;
+			this.stripNoneUTF8 = stripNoneUTF8;
+		}
+
+		@Override
+		public void read(ResultSet rs, int columnIndex) throws SQLException {
+			String s = rs.getString(columnIndex);
+			if (s != null) {
+				if (trim) {
+					s = s.trim();
+				}
+				if (stripNoneUTF8) {
+					s = DBHelper.stripNoneUTF8(s);
+				}
+			}
+			value = s;
+		}
+
+		@Override
+		public void bind(PreparedStatement ps, int paramIndex, int sqlType) throws SQLException {
+			if (value == null) {
+				ps.setNull(paramIndex, sqlType);
+			} else {
+				ps.setString(paramIndex, value);
+			}
+		}
+
+	}
+
+	static final class BytesCopier extends ColumnCopier {
+
+		private byte[] value;
+
+		@Override
+		public void read(ResultSet rs, int columnIndex) throws SQLException {
+			value = rs.getBytes(columnIndex);
+		}
+
+		@Override
+		public void bind(PreparedStatement ps, int paramIndex, int sqlType) throws SQLException {
+			if (value == null) {
+				ps.setNull(paramIndex, sqlType);
+			} else {
+				ps.setBytes(paramIndex, value);
+			}
+		}
+
+	}
+
+	static final class DateCopier extends ColumnCopier {
+
+		private Date value;
+
+		@Override
+		public void read(ResultSet rs, int columnIndex) throws SQLException {
+			value = rs.getDate(columnIndex);
+		}
+
+		@Override
+		public void bind(PreparedStatement ps, int paramIndex, int sqlType) throws SQLException {
+			if (value == null) {
+				ps.setNull(paramIndex, sqlType);
+			} else {
+				ps.setDate(paramIndex, value);
+			}
+		}
+
+	}
+
+	static final class TimeCopier extends ColumnCopier {
+
+		private Time value;
+
+		@Override
+		public void read(ResultSet rs, int columnIndex) throws SQLException {
+			value = rs.getTime(columnIndex);
+		}
+
+		@Override
+		public void bind(PreparedStatement ps, int paramIndex, int sqlType) throws SQLException {
+			if (value == null) {
+				ps.setNull(paramIndex, sqlType);
+			} else {
+				ps.setTime(paramIndex, value);
+			}
+		}
+
+	}
+
+	static final class TimestampCopier extends ColumnCopier {
+
+		private final boolean zeroDateToNull;
+		private Timestamp value;
+
+		TimestampCopier(boolean zeroDateToNull) {
+			this.zeroDateToNull = zeroDateToNull;
+		}
+
+		@Override
+		public void read(ResultSet rs, int columnIndex) throws SQLException {
+			final Timestamp v = rs.getTimestamp(columnIndex);
+			if (v != null && zeroDateToNull && v.getTime() <= ParameterSetter.ZERO_DATETIME) {
+				value = null;
+			} else {
+				value = v;
+			}
+		}
+
+		@Override
+		public void bind(PreparedStatement ps, int paramIndex, int sqlType) throws SQLException {
+			if (value == null) {
+				ps.setNull(paramIndex, sqlType);
+			} else {
+				ps.setTimestamp(paramIndex, value);
+			}
+		}
+
+	}
+
+	static final class ObjectCopier extends ColumnCopier {
+
+		private final boolean trim;
+		private Object value;
+
+		ObjectCopier(boolean trim) {
+			this.trim = trim;
+		}
+
+		@Override
+		public void read(ResultSet rs, int columnIndex) throws SQLException {
+			final Object v = rs.getObject(columnIndex);
+			if (trim && v instanceof String) {
+				value = ((String) v).trim();
+			} else {
+				value = v;
+			}
+		}
+
+		@Override
+		public void bind(PreparedStatement ps, int paramIndex, int sqlType) throws SQLException {
+			if (value == null) {
+				ps.setNull(paramIndex, sqlType);
+			} else if (trim && value instanceof String) {
+				ps.setString(paramIndex, (String) value);
+			} else {
+				ps.setObject(paramIndex, value);
+			}
+		}
+
+	}
+
+	/**
+	 * Some drivers (e.g. MySQL) throw an exception for zero dates like 0000-00-00.
+	 * This copier sets null in this case.
+	 */
+	static final class ZeroDateToNullCopier extends ColumnCopier {
+
+		private final ColumnCopier copier;
+		private boolean isNull;
+
+		ZeroDateToNullCopier(ColumnCopier copier) {
+			this.copier = copier;
+		}
+
+		@Override
+		public void read(ResultSet rs, int columnIndex) throws SQLException {
+			try {
+				copier.read(rs, columnIndex);
+				isNull = false;
+			} catch (SQLException e) {
+				if (e.getMessage() != null && e.getMessage().toLowerCase().contains("zero")) {
+					isNull = true;
+				} else {
+					throw e;
+				}
+			}
+		}
+
+		@Override
+		public void bind(PreparedStatement ps, int paramIndex, int sqlType) throws SQLException {
+			if (isNull) {
+				ps.setNull(paramIndex, sqlType);
+			} else {
+				copier.bind(ps, paramIndex, sqlType);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,287 @@
+/**
+ * Copyright 2024 Jan Lolling jan.lolling@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.jlo.talendcomp.tabletransfer;
+
+import java.math.BigInteger;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Reads one column of the source result set.
+ * The reader is chosen once per column after the result set meta data are known
+ * so that the per row work does not need any type lookup.
+ */
+public abstract class ColumnReader {
+
+	/**
+	 * reads the value of the column
+	 * @param rs the result set positioned at the current row
+	 * @param columnIndex the JDBC column index (starts with 1)
+	 * @return the value
+	 * @throws SQLException
+	 */
+	public abstract Object read(ResultSet rs, int columnIndex) throws SQLException;
+
+	/**
+	 * creates the reader for a column
+	 * @param javaType the java type configured for the database type or null to use getObject
+	 * @param trim true if string values should be trimmed
+	 * @param stripNoneUTF8 true if none UTF-8 characters should be removed from string values
+	 * @param zeroDateToNull true if zero dates should be returned as null
+	 * @return the reader
+	 */
+	public static ColumnReader create(String javaType, boolean trim, boolean stripNoneUTF8, boolean zeroDateToNull) {
+		ColumnReader reader = null;
+		if (javaType == null) {
+			reader = trim ? new TrimmedObjectReader() : new ObjectReader();
+		} else if ("time".equalsIgnoreCase(javaType)) {
+			reader = new TimeReader();
+		} else if ("timestamp".equalsIgnoreCase(javaType)) {
+			reader = new TimestampReader();
+		} else if ("date".equalsIgnoreCase(javaType)) {
+			reader = new DateReader();
+		} else if ("string".equalsIgnoreCase(javaType)) {
+			reader = new StringReader(trim, stripNoneUTF8);
+		} else if ("boolean".equalsIgnoreCase(javaType)) {
+			reader = new BooleanReader();
+		} else if ("integer".equalsIgnoreCase(javaType)) {
+			reader = new IntegerReader();
+		} else if ("long".equalsIgnoreCase(javaType)) {
+			reader = new LongReader();
+		} else if ("bigdecimal".equalsIgnoreCase(javaType)) {
+			reader = new BigDecimalReader();
+		} else if ("double".equalsIgnoreCase(javaType)) {
+			reader = new DoubleReader();
+		} else if ("short".equalsIgnoreCase(javaType)) {
+			reader = new ShortReader();
+		} else if ("biginteger".equalsIgnoreCase(javaType)) {
+			reader = new BigIntegerReader();
+		} else if ("float".equalsIgnoreCase(javaType)) {
+			reader = new FloatReader();
+		} else if ("byte".equalsIgnoreCase(javaType)) {
+			reader = new ByteReader();
+		} else {
+			reader = new ObjectReader();
+		}
+		if (zeroDateToNull) {
+			reader = new ZeroDateToNullReader(reader);
+		}
+		return reader;
+	}
+
+	static final class ObjectReader extends ColumnReader {
+
+		@Override
+		public Object read(ResultSet rs, int columnIndex) throws SQLException {
+			return rs.getObject(columnIndex);
+		}
+
+	}
+
+	static final class TrimmedObjectReader extends ColumnReader {
+
+		@Override
+		public Object read(ResultSet rs, int columnIndex) throws SQLException {
+			final Object v = rs.getObject(columnIndex);
+			return v instanceof String ? ((String) v).trim() : v;
+		}
+
+	}
+
+	static final class TimeReader extends ColumnReader {
+
+		@Override
+		public Object read(ResultSet rs, int columnIndex) throws SQLException {
+			return rs.getTime(columnIndex);
+		}
+
+	}
+
+	static final class TimestampReader extends ColumnReader {
+
+		@Override
+		public Object read(ResultSet rs, int columnIndex) throws SQLException {
+			return rs.getTimestamp(columnIndex);
+		}
+
+	}
+
+	static final class DateReader extends ColumnReader {
+
+		@Override
+		public Object read(ResultSet rs, int columnIndex) throws SQLException {
+			return rs.getDate(columnIndex);
+		}
+
+	}
+
+	static final class StringReader extends ColumnReader {
+
+		private final boolean trim;
+		private final boolean stripNoneUTF8;
+
+		StringReader(boolean trim, boolean stripNoneUTF8) {
+			this.trim = trim;
+			this.stripNoneUTF8 = stripNoneUTF8;
+		}
+
+		@Override
+		public Object read(ResultSet rs, int columnIndex) throws SQLException {
+			String s = rs.getString(columnIndex);
+			if (trim && s != null) {
+				s = s.trim();
+			}
+			if (stripNoneUTF8) {
+				s = DBHelper.stripNoneUTF8(s);
+			}
+			return s;
+		}
+
+	}
+
+	static final class BooleanReader extends ColumnReader {
+
+		@Override
+		public Object read(ResultSet rs, int columnIndex) throws SQLException {
+			return rs.getBoolean(columnIndex);
+		}
+
+	}
+
+	static final class IntegerReader extends ColumnReader {
+
+		@Override
+		public Object read(ResultSet rs, int columnIndex) throws SQLException {
+			return rs.getInt(columnIndex);
+		}
+
+	}
+
+	static final class LongReader extends ColumnReader {
+
+		@Override
+		public Object read(ResultSet rs, int columnIndex) throws SQLException {
+			return rs.getLong(columnIndex);
+		}
+
+	}
+
+	static final class BigDecimalReader extends ColumnReader {
+
+		@Override
+		public Object read(ResultSet rs, int columnIndex) throws SQLException {
+			return rs.getBigDecimal(columnIndex);
+		}
+
+	}
+
+	static final class DoubleReader extends ColumnReader {
+
+		@Override
+		public Object read(ResultSet rs, int columnIndex) throws SQLException {
+			return rs.getDouble(columnIndex);
+		}
+
+	}
+
+	static final class ShortReader extends ColumnReader {
+
+		@Override
+		public Object read(ResultSet rs, int columnIndex) throws SQLException {
+			return rs.getShort(columnIndex);
+		}
+
+	}
+
+	static final class BigIntegerReader extends ColumnReader {
+
+		@Override
+		public Object read(ResultSet rs, int columnIndex) throws SQLException {
+			return new BigInteger(rs.getString(columnIndex));
+		}
+
+	}
+
+	static final class FloatReader extends ColumnReader {
+
+		@Override
+		public Object read(ResultSet rs, int columnIndex) throws SQLException {
+			return rs.getFloat(columnIndex);
+		}
+
+	}
+
+	static final class ByteReader extends ColumnReader {
+
+		@Override
+		public Object read(ResultSet rs, int columnIndex) throws SQLException {
+			return rs.getByte(columnIndex);
+		}
+
+	}
+
+	/**
+	 * Replaces the string values by the instance already in the dictionary of the column.
+	 */
+	static final class DictionaryReader extends ColumnReader {
+
+		private final ColumnReader reader;
+		private final StringDictionary dictionary;
+
+		DictionaryReader(ColumnReader reader, StringDictionary dictionary) {
+			this.reader = reader;
+			this.dictionary = dictionary;
+		}
+
+		@Override
+		public Object read(ResultSet rs, int columnIndex) throws SQLException {
+			final Object v = reader.read(rs, columnIndex);
+			if (v instanceof String) {
+				return dictionary.canonicalize((String) v);
+			}
+			return v;
+		}
+
+	}
+
+	/**
+	 * Some drivers (e.g. MySQL) throw an exception for zero dates like 0000-00-00.
+	 * This reader returns null in this case.
+	 */
+	static final class ZeroDateToNullReader extends ColumnReader {
+
+		private final ColumnReader reader;
+
+		ZeroDateToNullReader(ColumnReader reader) {
+			this.reader = reader;
+		}
+
+		@Override
+		public Object read(ResultSet rs, int columnIndex) throws SQLException {
+			try {
+				return reader.read(rs, columnIndex);
+			} catch (SQLException e) {
+				if (e.getMessage() != null && e.getMessage().toLowerCase().contains("zero")) {
+					return null;
+				} else {
+					throw e;
+				}
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,197 @@
+/**
+ * Copyright 2024 Jan Lolling jan.lolling@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.jlo.talendcomp.tabletransfer;
+
+import java.math.BigDecimal;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the estimated bytes of the chunks in the queues.
+ * A reader waits before publishing a chunk until enough bytes are released.
+ * The bytes of a chunk are released after all its consumers (table writer, file writer) have taken it.
+ * The count chunks per queue remains as secondary limit.
+ */
+public class MemoryBudget {
+	
+	public static final int CONSUMER_TABLE = 1;
+	public static final int CONSUMER_FILE = 2;
+	
+	private final long maxBytes;
+	private long bytesInFlight = 0;
+	private int removedConsumers = 0;
+	private final Map<Object[][], Entry> chunks = new IdentityHashMap<>();
+	// a lock instead of synchronized does not pin a waiting virtual thread to its carrier thread
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition released = lock.newCondition();
+	
+	private static final class Entry {
+		
+		private final long bytes;
+		private int pendingConsumers;
+		
+		private Entry(long bytes, int pendingConsumers) {
+			this.bytes = bytes;
+			this.pendingConsumers = pendingConsumers;
+		}
+		
+	}
+	
+	public MemoryBudget(long maxBytes) {
+		if (maxBytes < 1) {
+			throw new IllegalArgumentException("maxBytes must be greater than 0");
+		}
+		this.maxBytes = maxBytes;
+	}
+	
+	/**
+	 * waits until the chunk fits into the budget and registers it.
+	 * A chunk always fits if nothing else is in flight, so also huge chunks can pass.
+	 * @param chunk the chunk
+	 * @param bytes the estimated size
+	 * @param consumers the consumers as bit mask of CONSUMER_*
+	 * @throws InterruptedException
+	 */
+	public void acquire(Object[][] chunk, long bytes, int consumers) throws InterruptedException {
+		lock.lockInterruptibly();
+		try {
+			consumers = consumers & ~removedConsumers;
+			if (consumers == 0) {
+				return;
+			}
+			while (bytesInFlight > 0 && bytesInFlight + bytes > maxBytes) {
+				released.await();
+			}
+			bytesInFlight += bytes;
+			chunks.put(chunk, new Entry(bytes, consumers));
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * the consumer has taken the chunk out of its queue
+	 * @param chunk
+	 * @param consumer CONSUMER_TABLE or CONSUMER_FILE
+	 */
+	public void release(Object[][] chunk, int consumer) {
+		lock.lock();
+		try {
+			final Entry entry = chunks.get(chunk);
+			if (entry != null) {
+				entry.pendingConsumers &= ~consumer;
+				if (entry.pendingConsumers == 0) {
+					chunks.remove(chunk);
+					bytesInFlight -= entry.bytes;
+					released.signalAll();
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * the consumer does not take chunks any more (finished or died)
+	 * @param consumer CONSUMER_TABLE or CONSUMER_FILE
+	 */
+	public void removeConsumer(int consumer) {
+		lock.lock();
+		try {
+			removedConsumers |= consumer;
+			final Object[][][] keys = chunks.keySet().toArray(new Object[chunks.size()][][]);
+			for (Object[][] chunk : keys) {
+				release(chunk, consumer);
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	public long getBytesInFlight() {
+		lock.lock();
+		try {
+			return bytesInFlight;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+	
+	/**
+	 * estimates the heap size of the rows of a chunk
+	 * @param chunk a chunk of rows or a chunk carrying a column batch
+	 * @return the estimated bytes
+	 */
+	public static long estimateChunk(Object[][] chunk) {
+		final ColumnBatch batch = ColumnBatch.fromChunk(chunk);
+		long bytes = 16 + 4l * chunk.length;
+		if (batch != null) {
+			final int countRows = batch.getCountRows();
+			for (int c = 0; c < batch.getCountColumns(); c++) {
+				if (batch.getColumnType(c) == ColumnBatch.TYPE_OBJECT) {
+					for (int r = 0; r < countRows; r++) {
+						bytes += 4 + estimateValue(batch.getObject(c, r));
+					}
+				} else {
+					bytes += 8l * countRows;
+				}
+			}
+		} else {
+			for (Object[] row : chunk) {
+				bytes += estimateRow(row);
+			}
+		}
+		return bytes;
+	}
+	
+	public static long estimateRow(Object[] row) {
+		long bytes = 16 + 4l * row.length;
+		for (Object v : row) {
+			bytes += estimateValue(v);
+		}
+		return bytes;
+	}
+	
+	public static long estimateValue(Object v) {
+		if (v == null) {
+			return 0;
+		} else if (v instanceof String) {
+			return 40 + 2l * ((String) v).length();
+		} else if (v instanceof byte[]) {
+			return 16 + ((byte[]) v).length;
+		} else if (v instanceof Integer || v instanceof Short || v instanceof Byte || v instanceof Boolean || v instanceof Float) {
+			return 16;
+		} else if (v instanceof Long || v instanceof Double) {
+			return 24;
+		} else if (v instanceof BigDecimal) {
+			return 56 + ((BigDecimal) v).precision() / 2;
+		} else if (v instanceof java.util.Date) {
+			return 32;
+		} else if (v instanceof RowSlab) {
+			// count the off-heap bytes too
+			return 64 + ((RowSlab) v).getSize();
+		} else {
+			return 64;
+		}
+	}
+
+}
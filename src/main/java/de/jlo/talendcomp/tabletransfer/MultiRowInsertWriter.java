@@ -0,0 +1,149 @@
+/**
+ * Copyright 2024 Jan Lolling jan.lolling@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.jlo.talendcomp.tabletransfer;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+
+import de.jlo.datamodel.SQLStatement;
+
+/**
+ * Writes the rows with insert statements containing multiple rows: values (...),(...),...
+ * The full statements are sent as batch, the remaining rows of a batch are sent with 
+ * a statement with the matching number of rows.
+ * This way we need one round trip per statement independent of the batch rewriting capabilities of the driver.
+ */
+public class MultiRowInsertWriter extends TableWriter {
+	
+	private int rowsPerStatement;
+	private int countParamsPerRow = 0;
+	private int countParamsSingleRow = 0;
+	private PreparedStatement singleRowStatement = null;
+	private PreparedStatement multiRowStatement = null;
+	private Object[][] rows = null;
+	private int countRows = 0;
+	private int countStatementsInBatch = 0;
+
+	public MultiRowInsertWriter(TableTransfer tableTransfer, Connection connection, int batchSize, int rowsPerStatement) {
+		super(tableTransfer, connection, batchSize);
+		if (rowsPerStatement < 1) {
+			throw new IllegalArgumentException("rowsPerStatement must be greater 0");
+		}
+		this.rowsPerStatement = rowsPerStatement;
+	}
+
+	@Override
+	public void prepare() throws Exception {
+		final TableTransfer tt = getTableTransfer();
+		// the single row statement defines the parameter binding
+		singleRowStatement = tt.createTargetStatement(getConnection());
+		tt.setupParameterBinding();
+		countParamsSingleRow = tt.targetSQLStatement.getCountParameters();
+		if (rowsPerStatement > 1) {
+			SQLStatement multiRow = tt.buildInsertSQLStatement(2);
+			countParamsPerRow = multiRow.getCountParameters() - countParamsSingleRow;
+			final int countAdditionalParams = countParamsSingleRow - countParamsPerRow;
+			final int maxParams = tt.getTargetCodeGenerator().getMaxBindParameters();
+			final int maxRows = Math.max(1, (maxParams - countAdditionalParams) / countParamsPerRow);
+			if (rowsPerStatement > maxRows) {
+				tt.warn("Rows per insert statement: " + rowsPerStatement + " exceeds the max number of parameters: " + maxParams + ". Use " + maxRows + " rows per statement.", null);
+				rowsPerStatement = maxRows;
+			}
+		}
+		rows = new Object[rowsPerStatement][];
+		if (rowsPerStatement > 1) {
+			multiRowStatement = prepareStatement(rowsPerStatement);
+		} else {
+			multiRowStatement = singleRowStatement;
+		}
+	}
+	
+	private PreparedStatement prepareStatement(int countRows) throws Exception {
+		final TableTransfer tt = getTableTransfer();
+		String sql = tt.buildInsertSQLStatement(countRows).getSQL();
+		if (tt.getApplicationName() != null) {
+			sql = "/* ApplicationName=" + tt.getApplicationName() + " */\n" + sql;
+		}
+		if (tt.isDebugEnabled()) {
+			tt.debug("Insert statement with " + countRows + " rows prepared");
+		}
+		return tt.prepareTargetStatement(getConnection(), sql);
+	}
+	
+	private void setParameters(PreparedStatement ps, int countRows) throws Exception {
+		final TableTransfer tt = getTableTransfer();
+		final int lastRow = countRows - 1;
+		for (int r = 0; r < lastRow; r++) {
+			tt.prepareInsertStatement(ps, rows[r], r * countParamsPerRow, 1, countParamsPerRow);
+		}
+		// the additional parameters follows after the last row
+		tt.prepareInsertStatement(ps, rows[lastRow], lastRow * countParamsPerRow, 1, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public void addRow(Object[] row) throws Exception {
+		rows[countRows++] = row;
+		if (countRows == rowsPerStatement) {
+			setParameters(multiRowStatement, countRows);
+			multiRowStatement.addBatch();
+			countStatementsInBatch++;
+			clearRows();
+		}
+	}
+	
+	private void clearRows() {
+		for (int i = 0; i < countRows; i++) {
+			rows[i] = null;
+		}
+		countRows = 0;
+	}
+
+	@Override
+	public void executeBatch() throws Exception {
+		try {
+			if (countStatementsInBatch > 0) {
+				countStatementsInBatch = 0;
+				multiRowStatement.executeBatch();
+			}
+			if (countRows > 0) {
+				final PreparedStatement remainderStatement = countRows > 1 ? prepareStatement(countRows) : singleRowStatement;
+				try {
+					setParameters(remainderStatement, countRows);
+					remainderStatement.executeUpdate();
+				} finally {
+					if (remainderStatement != singleRowStatement) {
+						getTableTransfer().closeTargetStatement(remainderStatement);
+					}
+				}
+			}
+		} finally {
+			// a failed batch must not take its remaining rows into the next batch
+			clearRows();
+		}
+	}
+
+	@Override
+	public void close() {
+		final TableTransfer tt = getTableTransfer();
+		if (multiRowStatement != null && multiRowStatement != singleRowStatement) {
+			tt.closeTargetStatement(multiRowStatement);
+		}
+		if (singleRowStatement != null) {
+			tt.closeTargetStatement(singleRowStatement);
+		}
+	}
+
+}
@@ -15,6 +15,8 @@
  */
 package de.jlo.talendcomp.tabletransfer;
 
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.sql.Statement;
 
@@ -52,4 +54,47 @@ public class MySQLHelper extends DBHelper {
 		enableStreaming(statement);
 	}
 
+	/**
+	 * sets the input stream used by the next LOAD DATA LOCAL INFILE statement instead of a file.
+	 * The Connector/J statement provides setLocalInfileInputStream for that purpose.
+	 * @param stmt the statement which executes the LOAD DATA statement
+	 * @param in the data stream
+	 * @throws Exception if the statement does not support it
+	 */
+	public void setLocalInfileInputStream(Statement stmt, InputStream in) throws Exception {
+		if (setLocalInfileInputStreamAtStatement(stmt, in) == false) {
+			throw new Exception("The statement class: " + stmt.getClass().getName() + " does not support setLocalInfileInputStream. A MySQL Connector/J driver is necessary.");
+		}
+	}
+	
+	private boolean setLocalInfileInputStreamAtStatement(Statement stmt, InputStream in) throws Exception {
+		if (stmt != null) {
+			Class<?> stmtClass = stmt.getClass();
+			try {
+				Method method = stmtClass.getMethod("setLocalInfileInputStream", InputStream.class);
+				method.invoke(stmt, in);
+				return true;
+			} catch (NoSuchMethodException nsme) {
+				// ignore intentionally
+			} catch (InvocationTargetException ite) {
+				if (ite.getCause() instanceof Exception) {
+					throw (Exception) ite.getCause();
+				}
+				throw ite;
+			}
+			// because it is a wrapper class from pools e.g.
+			try {
+				// most likely we will get the actual statement by fetching the delegate
+				Method method = stmtClass.getMethod("getDelegate", (Class<?>[]) null);
+				Object result = method.invoke(stmt, (Object[]) null);
+				if (result instanceof java.sql.Statement && result != stmt) {
+					return setLocalInfileInputStreamAtStatement((java.sql.Statement) result, in);
+				}
+			} catch (NoSuchMethodException nsme) {
+				// ignore intentionally
+			}
+		}
+		return false;
+	}
+
 }
@@ -0,0 +1,246 @@
+/**
+ * Copyright 2024 Jan Lolling jan.lolling@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.jlo.talendcomp.tabletransfer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Date;
+
+/**
+ * Writes the rows with LOAD DATA LOCAL INFILE. 
+ * The rows of a batch are collected as tab separated text in memory and 
+ * passed to the statement as input stream (setLocalInfileInputStream of Connector/J).
+ * Every batch is one LOAD DATA statement.
+ * The connection needs the property allowLoadLocalInfile=true and the server local_infile=ON.
+ */
+public class MysqlLoadDataWriter extends TableWriter {
+	
+	private final MySQLHelper helper = new MySQLHelper();
+	private final MysqlTableTransfer tableTransfer;
+	private final DataBuffer buffer = new DataBuffer(65536);
+	private final Writer writer = new OutputStreamWriter(buffer, StandardCharsets.UTF_8);
+	private String loadDataSQL = null;
+	private int[] sourceIndexes = null;
+	private boolean zeroDateToNull = false;
+	private Statement statement = null;
+	private int countRows = 0;
+	private static final int MAX_WARNINGS_IN_MESSAGE = 10;
+
+	public MysqlLoadDataWriter(MysqlTableTransfer tableTransfer, Connection connection, int batchSize) {
+		super(tableTransfer, connection, batchSize);
+		this.tableTransfer = tableTransfer;
+	}
+
+	@Override
+	public void prepare() throws Exception {
+		loadDataSQL = tableTransfer.createLoadDataStatement();
+		sourceIndexes = tableTransfer.getParamSourceIndexes();
+		zeroDateToNull = tableTransfer.isSetZeroDateToNull();
+		statement = getConnection().createStatement();
+	}
+
+	@Override
+	public void addRow(Object[] row) throws Exception {
+		for (int i = 0; i < sourceIndexes.length; i++) {
+			if (i > 0) {
+				writer.write('\t');
+			}
+			final int sourceIndex = sourceIndexes[i];
+			writeValue(sourceIndex != -1 ? row[sourceIndex] : null);
+		}
+		writer.write('\n');
+		countRows++;
+	}
+
+	private void writeValue(Object value) throws Exception {
+		if (value == null) {
+			writer.write("\\N");
+		} else if (value instanceof String) {
+			writeEscaped((String) value);
+		} else if (value instanceof Timestamp) {
+			if (zeroDateToNull && ((Timestamp) value).getTime() <= ParameterSetter.ZERO_DATETIME) {
+				writer.write("\\N");
+			} else {
+				writer.write(value.toString());
+			}
+		} else if (value instanceof Time || value instanceof java.sql.Date) {
+			writer.write(value.toString());
+		} else if (value instanceof Date) {
+			final long ms = ((Date) value).getTime();
+			if (zeroDateToNull && ms <= ParameterSetter.ZERO_DATETIME) {
+				writer.write("\\N");
+			} else {
+				writer.write(new Timestamp(ms).toString());
+			}
+		} else if (value instanceof Boolean) {
+			writer.write(((Boolean) value) ? '1' : '0');
+		} else if (value instanceof BigDecimal) {
+			writer.write(((BigDecimal) value).toPlainString());
+		} else if (value instanceof Number) {
+			writer.write(value.toString());
+		} else if (value instanceof byte[]) {
+			// raw bytes must bypass the character encoding
+			writer.flush();
+			writeEscaped((byte[]) value);
+		} else {
+			writeEscaped(value.toString());
+		}
+	}
+	
+	private void writeEscaped(String s) throws Exception {
+		for (int i = 0, n = s.length(); i < n; i++) {
+			final char c = s.charAt(i);
+			switch (c) {
+			case '\\':
+				writer.write("\\\\");
+				break;
+			case '\n':
+				writer.write("\\n");
+				break;
+			case '\r':
+				writer.write("\\r");
+				break;
+			case '\t':
+				writer.write("\\t");
+				break;
+			case '\0':
+				writer.write("\\0");
+				break;
+			default:
+				writer.write(c);
+			}
+		}
+	}
+
+	private void writeEscaped(byte[] bytes) {
+		for (byte b : bytes) {
+			switch (b) {
+			case '\\':
+				buffer.write('\\');
+				buffer.write('\\');
+				break;
+			case '\n':
+				buffer.write('\\');
+				buffer.write('n');
+				break;
+			case '\r':
+				buffer.write('\\');
+				buffer.write('r');
+				break;
+			case '\t':
+				buffer.write('\\');
+				buffer.write('t');
+				break;
+			case 0:
+				buffer.write('\\');
+				buffer.write('0');
+				break;
+			default:
+				buffer.write(b);
+			}
+		}
+	}
+
+	@Override
+	public void executeBatch() throws Exception {
+		if (countRows > 0) {
+			writer.flush();
+			helper.setLocalInfileInputStream(statement, new ByteArrayInputStream(buffer.getBuffer(), 0, buffer.size()));
+			try {
+				statement.clearWarnings();
+				statement.execute(loadDataSQL);
+				final int updateCount = statement.getUpdateCount();
+				if (tableTransfer.isDebugEnabled()) {
+					tableTransfer.debug("Load data finished with " + updateCount + " rows of " + countRows + " rows sent");
+				}
+				checkResult(updateCount);
+			} finally {
+				helper.setLocalInfileInputStream(statement, null);
+				buffer.reset();
+				countRows = 0;
+			}
+		}
+	}
+
+	/**
+	 * With LOCAL the server turns errors like duplicate keys or conversion errors into warnings.
+	 * Missing rows fail like the insert statement would, other warnings are logged.
+	 * With ignore the missing rows are expected, with replace the count contains also the deleted rows.
+	 * @param updateCount
+	 * @throws SQLException
+	 */
+	private void checkResult(int updateCount) throws SQLException {
+		final StringBuilder messages = new StringBuilder();
+		int countWarnings = 0;
+		SQLWarning w = statement.getWarnings();
+		while (w != null) {
+			if (countWarnings < MAX_WARNINGS_IN_MESSAGE) {
+				messages.append("\n").append(w.getMessage());
+			}
+			countWarnings++;
+			w = w.getNextWarning();
+		}
+		if (countWarnings > MAX_WARNINGS_IN_MESSAGE) {
+			messages.append("\n... ").append(countWarnings - MAX_WARNINGS_IN_MESSAGE).append(" more warnings");
+		}
+		if (updateCount >= 0 && updateCount < countRows && tableTransfer.isOnConflictIgnore() == false && tableTransfer.isOnConflictUpdate() == false) {
+			throw new SQLException("Load data into table: " + tableTransfer.getTargetTableAsGiven() + " loaded only " + updateCount + " of " + countRows + " rows." + messages);
+		}
+		if (countWarnings > 0) {
+			tableTransfer.warn("Load data into table: " + tableTransfer.getTargetTableAsGiven() + " finished with " + countWarnings + " warnings:" + messages, null);
+		}
+	}
+
+	@Override
+	public void close() {
+		buffer.reset();
+		countRows = 0;
+		if (statement != null) {
+			try {
+				statement.close();
+			} catch (SQLException e) {
+				// intentionally empty
+			}
+			statement = null;
+		}
+	}
+	
+	/**
+	 * gives access to the internal buffer to avoid copying it for every statement
+	 */
+	private static final class DataBuffer extends ByteArrayOutputStream {
+		
+		DataBuffer(int size) {
+			super(size);
+		}
+		
+		byte[] getBuffer() {
+			return buf;
+		}
+		
+	}
+
+}
@@ -15,9 +15,10 @@
  */
 package de.jlo.talendcomp.tabletransfer;
 
-import java.sql.PreparedStatement;
+import java.sql.Connection;
 import java.sql.SQLException;
 
+import de.jlo.datamodel.SQLStatement;
 import de.jlo.datamodel.generator.MysqlSQLCodeGenerator;
 
 public class MysqlTableTransfer extends TableTransfer {
@@ -25,6 +26,8 @@ public class MysqlTableTransfer extends TableTransfer {
 	private MysqlSQLCodeGenerator codeGenerator = null;
 	private boolean onConflictIgnore = false;
 	private boolean onConflictUpdate = false;
+	private boolean useLoadData = false;
+	private int loadDataRows = 0;
 	
 	@Override
 	public MysqlSQLCodeGenerator getTargetCodeGenerator() throws SQLException {
@@ -36,23 +39,57 @@ public class MysqlTableTransfer extends TableTransfer {
 	}
 
 	@Override
-	protected PreparedStatement createTargetStatement() throws Exception {
-		setupTargetDataModel();
+	protected SQLStatement buildTargetSQLStatement() throws Exception {
 		if (isRunOnlyUpdates()) {
-			targetSQLStatement = getTargetCodeGenerator().buildUpdateSQLStatement(getTargetSQLTable(), true);
+			return getTargetCodeGenerator().buildUpdateSQLStatement(getTargetSQLTable(), true);
 		} else {
-			targetSQLStatement = getTargetCodeGenerator().buildInsertSQLStatement(getTargetSQLTable(), true, onConflictIgnore, onConflictUpdate);
+			return getTargetCodeGenerator().buildInsertSQLStatement(getTargetSQLTable(), true, onConflictIgnore, onConflictUpdate);
 		}
-		if (targetSQLStatement.getCountParameters() == 0) {
-			throw new Exception("Target statement has no parameters!");
+	}
+
+	@Override
+	protected TableWriter createTableWriter(Connection connection, int batchSize) throws Exception {
+		if (useLoadData) {
+			if (isRunOnlyUpdates()) {
+				warn("Load data cannot be used for updates. Use update statements instead.", null);
+			} else {
+				return new MysqlLoadDataWriter(this, connection, loadDataRows > 0 ? loadDataRows : batchSize);
+			}
 		}
-		String sql = targetSQLStatement.getSQL();
-		if (getApplicationName() != null) {
-			sql = "/* ApplicationName=" + getApplicationName() + " */\n" + sql;
+		return super.createTableWriter(connection, batchSize);
+	}
+
+	@Override
+	protected boolean isDirectCopyPossible() {
+		// the special writers do not use the prepared target statement
+		return super.isDirectCopyPossible() && useLoadData == false;
+	}
+
+	/**
+	 * builds the LOAD DATA LOCAL INFILE statement and the parameter binding for the columns.
+	 * On conflict ignore is mapped to IGNORE and on conflict update to REPLACE.
+	 * @return the load data statement
+	 * @throws Exception
+	 */
+	String createLoadDataStatement() throws Exception {
+		SQLStatement loadStatement = getBuiltTargetStatement("load-data");
+		if (loadStatement == null) {
+			setupTargetDataModel();
+			loadStatement = getTargetCodeGenerator().buildLoadDataStatement(getTargetSQLTable(), true, onConflictIgnore, onConflictUpdate);
+			if (loadStatement.getCountParameters() == 0) {
+				throw new Exception("Target load data statement has no columns!");
+			}
+			putBuiltTargetStatement("load-data", loadStatement);
+			info("MySQL Target load data statement:\n" + getTargetSQL(loadStatement));
 		}
-		info("MySQL Target statement:\n" + sql);
-		targetPreparedStatement = getTargetConnection().prepareStatement(sql);
-		return targetPreparedStatement;
+		targetSQLStatement = loadStatement;
+		setupParameterBinding();
+		return getTargetSQL(loadStatement);
+	}
+
+	@Override
+	protected SQLStatement buildInsertSQLStatement(int countRows) throws Exception {
+		return getTargetCodeGenerator().buildInsertSQLStatement(getTargetSQLTable(), true, onConflictIgnore, onConflictUpdate, countRows);
 	}
 
 	public boolean isOnConflictIgnore() {
@@ -75,4 +112,34 @@ public class MysqlTableTransfer extends TableTransfer {
 		}
 	}
 	
+	public boolean isUseLoadData() {
+		return useLoadData;
+	}
+
+	/**
+	 * use LOAD DATA LOCAL INFILE instead of insert statements.
+	 * The connection needs the property allowLoadLocalInfile=true.
+	 * @param useLoadData
+	 */
+	public void setUseLoadData(Boolean useLoadData) {
+		if (useLoadData != null) {
+			this.useLoadData = useLoadData;
+		}
+	}
+
+	public int getLoadDataRows() {
+		return loadDataRows;
+	}
+
+	/**
+	 * set the count rows sent with one LOAD DATA statement and committed
+	 * if not set the target batch size will be used
+	 * @param loadDataRows
+	 */
+	public void setLoadDataRows(Integer loadDataRows) {
+		if (loadDataRows != null) {
+			this.loadDataRows = loadDataRows;
+		}
+	}
+
 }
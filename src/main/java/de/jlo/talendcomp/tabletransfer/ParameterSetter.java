@@ -0,0 +1,222 @@
+/**
+ * Copyright 2024 Jan Lolling jan.lolling@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.jlo.talendcomp.tabletransfer;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+
+/**
+ * Sets a none null value as parameter of the target statement.
+ * The setter is chosen once per parameter by the class of the first none null value.
+ */
+public abstract class ParameterSetter {
+
+	static final long ZERO_DATETIME = -61854541200000l;
+
+	/**
+	 * sets the value
+	 * @param ps the target statement
+	 * @param paramIndex the JDBC parameter index (starts with 1)
+	 * @param value the none null value
+	 * @param sqlType the SQL type used to set null values (e.g. for zero dates)
+	 * @throws SQLException
+	 */
+	public abstract void set(PreparedStatement ps, int paramIndex, Object value, int sqlType) throws SQLException;
+
+	/**
+	 * creates the setter for the class of the given value
+	 * @param value the first none null value for the parameter
+	 * @param zeroDateToNull true if zero dates should be set as null
+	 * @return the setter
+	 */
+	public static ParameterSetter create(Object value, boolean zeroDateToNull) {
+		final String className = value.getClass().getSimpleName();
+		if ("BigDecimal".equals(className)) {
+			return new BigDecimalSetter();
+		} else if ("BigInteger".equals(className)) {
+			return new BigIntegerSetter();
+		} else if ("Double".equals(className)) {
+			return new DoubleSetter();
+		} else if ("Float".equals(className)) {
+			return new FloatSetter();
+		} else if ("Long".equals(className)) {
+			return new LongSetter();
+		} else if ("Integer".equals(className)) {
+			return new IntegerSetter();
+		} else if ("Short".equals(className)) {
+			return new ShortSetter();
+		} else if ("String".equals(className)) {
+			return new StringSetter();
+		} else if ("Time".equals(className)) {
+			// we need to check Time before Date because Time extends Date!
+			return new TimeSetter();
+		} else if ("Timestamp".equals(className)) {
+			return new TimestampSetter(zeroDateToNull);
+		} else if ("Date".equals(className)) {
+			return new DateSetter(zeroDateToNull);
+		} else if ("Boolean".equals(className)) {
+			return new BooleanSetter();
+		} else {
+			return new ObjectSetter();
+		}
+	}
+
+	static final class BigDecimalSetter extends ParameterSetter {
+
+		@Override
+		public void set(PreparedStatement ps, int paramIndex, Object value, int sqlType) throws SQLException {
+			ps.setBigDecimal(paramIndex, (BigDecimal) value);
+		}
+
+	}
+
+	static final class BigIntegerSetter extends ParameterSetter {
+
+		@Override
+		public void set(PreparedStatement ps, int paramIndex, Object value, int sqlType) throws SQLException {
+			ps.setLong(paramIndex, ((BigInteger) value).longValue());
+		}
+
+	}
+
+	static final class DoubleSetter extends ParameterSetter {
+
+		@Override
+		public void set(PreparedStatement ps, int paramIndex, Object value, int sqlType) throws SQLException {
+			ps.setDouble(paramIndex, (Double) value);
+		}
+
+	}
+
+	static final class FloatSetter extends ParameterSetter {
+
+		@Override
+		public void set(PreparedStatement ps, int paramIndex, Object value, int sqlType) throws SQLException {
+			ps.setFloat(paramIndex, (Float) value);
+		}
+
+	}
+
+	static final class LongSetter extends ParameterSetter {
+
+		@Override
+		public void set(PreparedStatement ps, int paramIndex, Object value, int sqlType) throws SQLException {
+			ps.setLong(paramIndex, (Long) value);
+		}
+
+	}
+
+	static final class IntegerSetter extends ParameterSetter {
+
+		@Override
+		public void set(PreparedStatement ps, int paramIndex, Object value, int sqlType) throws SQLException {
+			ps.setInt(paramIndex, (Integer) value);
+		}
+
+	}
+
+	static final class ShortSetter extends ParameterSetter {
+
+		@Override
+		public void set(PreparedStatement ps, int paramIndex, Object value, int sqlType) throws SQLException {
+			ps.setShort(paramIndex, (Short) value);
+		}
+
+	}
+
+	static final class StringSetter extends ParameterSetter {
+
+		@Override
+		public void set(PreparedStatement ps, int paramIndex, Object value, int sqlType) throws SQLException {
+			ps.setString(paramIndex, (String) value);
+		}
+
+	}
+
+	static final class TimeSetter extends ParameterSetter {
+
+		@Override
+		public void set(PreparedStatement ps, int paramIndex, Object value, int sqlType) throws SQLException {
+			ps.setTime(paramIndex, (Time) value);
+		}
+
+	}
+
+	static final class TimestampSetter extends ParameterSetter {
+
+		private final boolean zeroDateToNull;
+
+		TimestampSetter(boolean zeroDateToNull) {
+			this.zeroDateToNull = zeroDateToNull;
+		}
+
+		@Override
+		public void set(PreparedStatement ps, int paramIndex, Object value, int sqlType) throws SQLException {
+			if (zeroDateToNull && ((Timestamp) value).getTime() <= ZERO_DATETIME) {
+				ps.setNull(paramIndex, sqlType);
+			} else {
+				ps.setTimestamp(paramIndex, (Timestamp) value);
+			}
+		}
+
+	}
+
+	static final class DateSetter extends ParameterSetter {
+
+		private final boolean zeroDateToNull;
+
+		DateSetter(boolean zeroDateToNull) {
+			this.zeroDateToNull = zeroDateToNull;
+		}
+
+		@Override
+		public void set(PreparedStatement ps, int paramIndex, Object value, int sqlType) throws SQLException {
+			long ms = ZERO_DATETIME;
+			if (value instanceof java.util.Date) {
+				ms = ((java.util.Date) value).getTime();
+			}
+			if (zeroDateToNull && ms <= ZERO_DATETIME) {
+				ps.setNull(paramIndex, sqlType);
+			} else {
+				ps.setTimestamp(paramIndex, new Timestamp(ms));
+			}
+		}
+
+	}
+
+	static final class BooleanSetter extends ParameterSetter {
+
+		@Override
+		public void set(PreparedStatement ps, int paramIndex, Object value, int sqlType) throws SQLException {
+			ps.setBoolean(paramIndex, (Boolean) value);
+		}
+
+	}
+
+	static final class ObjectSetter extends ParameterSetter {
+
+		@Override
+		public void set(PreparedStatement ps, int paramIndex, Object value, int sqlType) throws SQLException {
+			ps.setObject(paramIndex, value);
+		}
+
+	}
+
+}
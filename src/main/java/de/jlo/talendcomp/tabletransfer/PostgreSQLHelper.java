@@ -0,0 +1,106 @@
+/**
+ * Copyright 2024 Jan Lolling jan.lolling@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.jlo.talendcomp.tabletransfer;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.Statement;
+
+/**
+ * Gives access to the COPY API of the PostgreSQL driver.
+ * The driver classes are used via reflection because the driver is not a dependency of this library.
+ */
+public class PostgreSQLHelper extends DBHelper {
+	
+	private Object copyManager = null;
+	private Method copyInMethod = null;
+	private Method writeToCopyMethod = null;
+	private Method endCopyMethod = null;
+	private Method cancelCopyMethod = null;
+	private Method isActiveMethod = null;
+
+	@Override
+	public void setupSelectStatement(Statement statement) throws Exception {
+		// nothing to do, PostgreSQL uses the fetch size if auto commit is off
+	}
+	
+	/**
+	 * retrieves the CopyManager from the connection
+	 * @param conn connection of the PostgreSQL driver or a wrapper (pools) of it
+	 * @throws Exception
+	 */
+	public void setupCopyManager(Connection conn) throws Exception {
+		final Class<?> pgConnectionClass = Class.forName("org.postgresql.PGConnection", true, conn.getClass().getClassLoader());
+		final Object pgConnection = conn.unwrap(pgConnectionClass);
+		copyManager = pgConnectionClass.getMethod("getCopyAPI").invoke(pgConnection);
+		copyInMethod = copyManager.getClass().getMethod("copyIn", String.class);
+		// we use the interface methods because the implementation classes are not public
+		final Class<?> copyInClass = Class.forName("org.postgresql.copy.CopyIn", true, copyManager.getClass().getClassLoader());
+		writeToCopyMethod = copyInClass.getMethod("writeToCopy", byte[].class, int.class, int.class);
+		endCopyMethod = copyInClass.getMethod("endCopy");
+		cancelCopyMethod = copyInClass.getMethod("cancelCopy");
+		isActiveMethod = copyInClass.getMethod("isActive");
+	}
+	
+	/**
+	 * starts the copy operation
+	 * @param sql the copy ... from stdin statement
+	 * @return the CopyIn object
+	 * @throws Exception
+	 */
+	public Object startCopyIn(String sql) throws Exception {
+		if (copyManager == null) {
+			throw new IllegalStateException("CopyManager not initialized. Call setupCopyManager before.");
+		}
+		return invoke(copyInMethod, copyManager, sql);
+	}
+	
+	public void writeToCopy(Object copyIn, byte[] buffer, int offset, int length) throws Exception {
+		invoke(writeToCopyMethod, copyIn, buffer, offset, length);
+	}
+	
+	/**
+	 * finishes the copy operation
+	 * @param copyIn
+	 * @return number of rows updated by the server
+	 * @throws Exception
+	 */
+	public long endCopy(Object copyIn) throws Exception {
+		return (Long) invoke(endCopyMethod, copyIn);
+	}
+	
+	public void cancelCopy(Object copyIn) throws Exception {
+		if ((Boolean) invoke(isActiveMethod, copyIn)) {
+			invoke(cancelCopyMethod, copyIn);
+		}
+	}
+	
+	private static Object invoke(Method method, Object target, Object ... args) throws Exception {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException ite) {
+			// let the callers see the actual SQLException
+			final Throwable cause = ite.getCause();
+			if (cause instanceof Exception) {
+				throw (Exception) cause;
+			} else {
+				throw ite;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,180 @@
+/**
+ * Copyright 2024 Jan Lolling jan.lolling@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.jlo.talendcomp.tabletransfer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.sql.Connection;
+import java.util.Date;
+import java.util.List;
+
+import de.jlo.datamodel.SQLField;
+import de.jlo.datamodel.SQLPSParam;
+import de.jlo.datamodel.SQLTable;
+
+/**
+ * Writes the rows with COPY ... FROM STDIN in the binary format through the CopyManager of the PostgreSQL driver.
+ * The values are encoded according to the types of the target columns. 
+ * If a target column has a type without encoder, the prepared statement batch will be used instead.
+ */
+public class PostgresqlBinaryCopyWriter extends TableWriter {
+	
+	private static final int FLUSH_SIZE = 65536;
+	private static final byte[] HEADER = new byte[] {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0, 0, 0, 0, 0, 0, 0, 0, 0};
+	private final PostgreSQLHelper helper = new PostgreSQLHelper();
+	private final PostgresqlTableTransfer tableTransfer;
+	private final CopyBuffer buffer = new CopyBuffer(FLUSH_SIZE + 4096);
+	private final DataOutputStream out = new DataOutputStream(buffer);
+	private String copySQL = null;
+	private int[] sourceIndexes = null;
+	private PostgresqlBinaryEncoder[] encoders = null;
+	private boolean[] dateColumns = null;
+	private Object copyIn = null;
+	private boolean zeroDateToNull = false;
+	private TableWriter fallbackWriter = null;
+
+	public PostgresqlBinaryCopyWriter(PostgresqlTableTransfer tableTransfer, Connection connection, int batchSize) {
+		super(tableTransfer, connection, batchSize);
+		this.tableTransfer = tableTransfer;
+	}
+
+	@Override
+	public void prepare() throws Exception {
+		copySQL = tableTransfer.createCopyStatement(true);
+		final SQLTable table = tableTransfer.getTargetSQLTable();
+		final List<SQLPSParam> params = tableTransfer.targetSQLStatement.getParams();
+		encoders = new PostgresqlBinaryEncoder[params.size()];
+		dateColumns = new boolean[params.size()];
+		for (int i = 0; i < encoders.length; i++) {
+			final SQLField field = table.getField(params.get(i).getName());
+			encoders[i] = PostgresqlBinaryEncoder.create(field.getTypeName());
+			if (encoders[i] == null) {
+				tableTransfer.warn("Column: " + field.getName() + " type: " + field.getTypeName() 
+					+ " has no binary copy encoder. Use insert statements instead of copy.", null);
+				fallbackWriter = new PreparedStatementWriter(tableTransfer, getConnection(), getBatchSize());
+				fallbackWriter.prepare();
+				return;
+			}
+			dateColumns[i] = encoders[i] instanceof PostgresqlBinaryEncoder.TimestampEncoder 
+					|| encoders[i] instanceof PostgresqlBinaryEncoder.TimestampTzEncoder
+					|| encoders[i] instanceof PostgresqlBinaryEncoder.DateEncoder;
+		}
+		sourceIndexes = tableTransfer.getParamSourceIndexes();
+		zeroDateToNull = tableTransfer.isSetZeroDateToNull();
+		helper.setupCopyManager(getConnection());
+	}
+
+	@Override
+	public void addRow(Object[] row) throws Exception {
+		if (fallbackWriter != null) {
+			fallbackWriter.addRow(row);
+			return;
+		}
+		try {
+			if (copyIn == null) {
+				copyIn = helper.startCopyIn(copySQL);
+				out.write(HEADER);
+			}
+			out.writeShort(sourceIndexes.length);
+			for (int i = 0; i < sourceIndexes.length; i++) {
+				final int sourceIndex = sourceIndexes[i];
+				final Object value = sourceIndex != -1 ? row[sourceIndex] : null;
+				if (value == null) {
+					out.writeInt(-1);
+				} else if (zeroDateToNull && dateColumns[i] && value instanceof Date 
+						&& ((Date) value).getTime() <= ParameterSetter.ZERO_DATETIME) {
+					out.writeInt(-1);
+				} else {
+					encoders[i].encode(out, value);
+				}
+			}
+			if (buffer.size() >= FLUSH_SIZE) {
+				flush();
+			}
+		} catch (Exception e) {
+			// the buffer can contain a partial row and the copy can be failed, the next rows start a new copy
+			abortCopy();
+			throw e;
+		}
+	}
+	
+	private void flush() throws Exception {
+		if (buffer.size() > 0) {
+			helper.writeToCopy(copyIn, buffer.getBuffer(), 0, buffer.size());
+			buffer.reset();
+		}
+	}
+
+	@Override
+	public void executeBatch() throws Exception {
+		if (fallbackWriter != null) {
+			fallbackWriter.executeBatch();
+			return;
+		}
+		if (copyIn != null) {
+			try {
+				// file trailer
+				out.writeShort(-1);
+				flush();
+				final long count = helper.endCopy(copyIn);
+				copyIn = null;
+				if (tableTransfer.isDebugEnabled()) {
+					tableTransfer.debug("Binary copy finished with " + count + " rows");
+				}
+			} finally {
+				// a failed copy must not take the rows of this batch into the next batch
+				abortCopy();
+			}
+		}
+	}
+	
+	private void abortCopy() {
+		buffer.reset();
+		if (copyIn != null) {
+			try {
+				helper.cancelCopy(copyIn);
+			} catch (Exception e) {
+				tableTransfer.warn("Cancel copy failed: " + e.getMessage(), e);
+			}
+			copyIn = null;
+		}
+	}
+
+	@Override
+	public void close() {
+		if (fallbackWriter != null) {
+			fallbackWriter.close();
+			return;
+		}
+		abortCopy();
+	}
+	
+	/**
+	 * gives access to the internal buffer to avoid copying it for every flush
+	 */
+	private static final class CopyBuffer extends ByteArrayOutputStream {
+		
+		CopyBuffer(int size) {
+			super(size);
+		}
+		
+		byte[] getBuffer() {
+			return buf;
+		}
+		
+	}
+
+}
@@ -0,0 +1,490 @@
+/**
+ * Copyright 2024 Jan Lolling jan.lolling@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.jlo.talendcomp.tabletransfer;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Encodes a value of one column in the PostgreSQL binary COPY format (length + binary representation).
+ * The encoder is chosen by the type name of the target column.
+ * A value which cannot be converted into the column type is reported as SQLDataException
+ * like the database does it for a prepared statement.
+ */
+public abstract class PostgresqlBinaryEncoder {
+
+	/** seconds between 1970-01-01 and 2000-01-01 (the PostgreSQL epoch) */
+	static final long PG_EPOCH_SECONDS = 946684800l;
+	/** days between 1970-01-01 and 2000-01-01 */
+	static final long PG_EPOCH_DAYS = 10957l;
+	/** SQL state: numeric value out of range */
+	static final String SQL_STATE_OUT_OF_RANGE = "22003";
+	/** SQL state: invalid character value for cast */
+	static final String SQL_STATE_INVALID_VALUE = "22018";
+	
+	/**
+	 * writes the length of the value and the value
+	 * @param out the stream
+	 * @param value the none null value
+	 * @throws IOException
+	 * @throws SQLException if the value cannot be converted into the column type
+	 */
+	public abstract void encode(DataOutputStream out, Object value) throws IOException, SQLException;
+
+	/**
+	 * creates the encoder for the column type
+	 * @param typeName type name as delivered from the database meta data (e.g. int4)
+	 * @return the encoder or null if the type is not supported
+	 */
+	public static PostgresqlBinaryEncoder create(String typeName) {
+		if (typeName == null) {
+			return null;
+		}
+		final String t = typeName.toLowerCase();
+		switch (t) {
+		case "int2":
+		case "smallint":
+		case "smallserial":
+			return new Int2Encoder();
+		case "int4":
+		case "integer":
+		case "serial":
+			return new Int4Encoder();
+		case "int8":
+		case "bigint":
+		case "bigserial":
+			return new Int8Encoder();
+		case "float4":
+			return new Float4Encoder();
+		case "float8":
+			return new Float8Encoder();
+		case "numeric":
+			return new NumericEncoder();
+		case "timestamp":
+			return new TimestampEncoder();
+		case "timestamptz":
+			return new TimestampTzEncoder();
+		case "date":
+			return new DateEncoder();
+		case "bool":
+		case "boolean":
+			return new BoolEncoder();
+		case "text":
+		case "varchar":
+		case "bpchar":
+		case "char":
+		case "name":
+		case "json":
+			return new TextEncoder();
+		case "jsonb":
+			return new JsonbEncoder();
+		case "bytea":
+			return new ByteaEncoder();
+		case "uuid":
+			return new UuidEncoder();
+		default:
+			return null;
+		}
+	}
+	
+	static Number toNumber(Object value) throws SQLDataException {
+		if (value instanceof Number) {
+			return (Number) value;
+		} else if (value instanceof Boolean) {
+			return ((Boolean) value) ? 1 : 0;
+		} else {
+			try {
+				return new BigDecimal(value.toString().trim());
+			} catch (NumberFormatException e) {
+				throw new SQLDataException("Value: " + value + " cannot be converted into a number", SQL_STATE_INVALID_VALUE, e);
+			}
+		}
+	}
+	
+	/**
+	 * converts the value into a long without losing any digits
+	 * @param value
+	 * @param min the min value of the column type
+	 * @param max the max value of the column type
+	 * @param typeName the name of the column type for the error message
+	 * @return the value
+	 * @throws SQLDataException if the value has a fraction or does not fit into the column type
+	 */
+	static long toLongExact(Object value, long min, long max, String typeName) throws SQLDataException {
+		final Number n = toNumber(value);
+		long v;
+		if (n instanceof Long || n instanceof Integer || n instanceof Short || n instanceof Byte) {
+			v = n.longValue();
+		} else {
+			final BigDecimal d;
+			if (n instanceof BigDecimal) {
+				d = (BigDecimal) n;
+			} else if (n instanceof BigInteger) {
+				d = new BigDecimal((BigInteger) n);
+			} else if (n instanceof Double || n instanceof Float) {
+				final double dv = n.doubleValue();
+				if (Double.isNaN(dv) || Double.isInfinite(dv)) {
+					throw new SQLDataException("Value: " + value + " cannot be written into a column of type " + typeName, SQL_STATE_OUT_OF_RANGE);
+				}
+				d = BigDecimal.valueOf(dv);
+			} else {
+				d = new BigDecimal(n.toString());
+			}
+			try {
+				v = d.longValueExact();
+			} catch (ArithmeticException e) {
+				throw new SQLDataException("Value: " + value + " cannot be written into a column of type " + typeName + " without losing digits", SQL_STATE_OUT_OF_RANGE, e);
+			}
+		}
+		if (v < min || v > max) {
+			throw new SQLDataException("Value: " + value + " is out of range for a column of type " + typeName, SQL_STATE_OUT_OF_RANGE);
+		}
+		return v;
+	}
+
+	static Timestamp toTimestamp(Object value) throws SQLDataException {
+		if (value instanceof Timestamp) {
+			return (Timestamp) value;
+		} else if (value instanceof Date) {
+			return new Timestamp(((Date) value).getTime());
+		} else {
+			try {
+				return Timestamp.valueOf(value.toString().trim());
+			} catch (IllegalArgumentException e) {
+				throw new SQLDataException("Value: " + value + " cannot be converted into a timestamp", SQL_STATE_INVALID_VALUE, e);
+			}
+		}
+	}
+
+	static final class Int2Encoder extends PostgresqlBinaryEncoder {
+
+		@Override
+		public void encode(DataOutputStream out, Object value) throws IOException, SQLException {
+			out.writeInt(2);
+			out.writeShort((short) toLongExact(value, Short.MIN_VALUE, Short.MAX_VALUE, "int2"));
+		}
+
+	}
+
+	static final class Int4Encoder extends PostgresqlBinaryEncoder {
+
+		@Override
+		public void encode(DataOutputStream out, Object value) throws IOException, SQLException {
+			out.writeInt(4);
+			out.writeInt((int) toLongExact(value, Integer.MIN_VALUE, Integer.MAX_VALUE, "int4"));
+		}
+
+	}
+
+	static final class Int8Encoder extends PostgresqlBinaryEncoder {
+
+		@Override
+		public void encode(DataOutputStream out, Object value) throws IOException, SQLException {
+			out.writeInt(8);
+			out.writeLong(toLongExact(value, Long.MIN_VALUE, Long.MAX_VALUE, "int8"));
+		}
+
+	}
+
+	static final class Float4Encoder extends PostgresqlBinaryEncoder {
+
+		@Override
+		public void encode(DataOutputStream out, Object value) throws IOException, SQLException {
+			final Number n = toNumber(value);
+			final float f = n.floatValue();
+			if (Float.isInfinite(f) && Double.isInfinite(n.doubleValue()) == false) {
+				throw new SQLDataException("Value: " + value + " is out of range for a column of type float4", SQL_STATE_OUT_OF_RANGE);
+			}
+			out.writeInt(4);
+			out.writeFloat(f);
+		}
+
+	}
+
+	static final class Float8Encoder extends PostgresqlBinaryEncoder {
+
+		@Override
+		public void encode(DataOutputStream out, Object value) throws IOException, SQLException {
+			out.writeInt(8);
+			out.writeDouble(toNumber(value).doubleValue());
+		}
+
+	}
+
+	/**
+	 * numeric is encoded as base 10000 digits: 
+	 * ndigits, weight, sign, dscale (all int16) followed by the digits (int16)
+	 */
+	static final class NumericEncoder extends PostgresqlBinaryEncoder {
+		
+		private static final short NUMERIC_POS = 0x0000;
+		private static final short NUMERIC_NEG = 0x4000;
+		private static final short NUMERIC_NAN = (short) 0xC000;
+
+		private static boolean isNaN(Object value) {
+			if (value instanceof Double || value instanceof Float) {
+				return Double.isNaN(((Number) value).doubleValue());
+			} else if (value instanceof String) {
+				return "NaN".equalsIgnoreCase(((String) value).trim());
+			}
+			return false;
+		}
+
+		@Override
+		public void encode(DataOutputStream out, Object value) throws IOException, SQLException {
+			final BigDecimal number;
+			if (isNaN(value)) {
+				out.writeInt(8);
+				out.writeShort(0);
+				out.writeShort(0);
+				out.writeShort(NUMERIC_NAN);
+				out.writeShort(0);
+				return;
+			} else if (value instanceof BigDecimal) {
+				number = (BigDecimal) value;
+			} else if (value instanceof Double || value instanceof Float) {
+				final double d = ((Number) value).doubleValue();
+				if (Double.isInfinite(d)) {
+					throw new SQLDataException("Value: " + value + " cannot be written into a numeric column", SQL_STATE_OUT_OF_RANGE);
+				}
+				number = BigDecimal.valueOf(d);
+			} else if (value instanceof BigInteger) {
+				number = new BigDecimal((BigInteger) value);
+			} else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+				number = BigDecimal.valueOf(((Number) value).longValue());
+			} else {
+				final Number n = toNumber(value);
+				if ((n instanceof Double || n instanceof Float) && Double.isInfinite(n.doubleValue())) {
+					throw new SQLDataException("Value: " + value + " cannot be written into a numeric column", SQL_STATE_OUT_OF_RANGE);
+				}
+				number = new BigDecimal(n.toString());
+			}
+			final short sign = number.signum() < 0 ? NUMERIC_NEG : NUMERIC_POS;
+			BigDecimal abs = number.abs();
+			if (abs.scale() < 0) {
+				abs = abs.setScale(0);
+			}
+			final int dscale = abs.scale();
+			final String unscaled = abs.unscaledValue().toString();
+			String intPart;
+			String fracPart;
+			if (unscaled.length() > dscale) {
+				intPart = unscaled.substring(0, unscaled.length() - dscale);
+				fracPart = unscaled.substring(unscaled.length() - dscale);
+			} else {
+				intPart = "";
+				fracPart = repeatZero(dscale - unscaled.length()) + unscaled;
+			}
+			// pad to full base 10000 digits
+			if (intPart.length() % 4 != 0) {
+				intPart = repeatZero(4 - intPart.length() % 4) + intPart;
+			}
+			if (fracPart.length() % 4 != 0) {
+				fracPart = fracPart + repeatZero(4 - fracPart.length() % 4);
+			}
+			final String all = intPart + fracPart;
+			final int countGroups = all.length() / 4;
+			final short[] groups = new short[countGroups];
+			for (int i = 0; i < countGroups; i++) {
+				groups[i] = Short.parseShort(all.substring(i * 4, i * 4 + 4));
+			}
+			int weight = intPart.length() / 4 - 1;
+			int first = 0;
+			while (first < countGroups && groups[first] == 0) {
+				first++;
+				weight--;
+			}
+			int last = countGroups - 1;
+			while (last >= first && groups[last] == 0) {
+				last--;
+			}
+			final int ndigits = last - first + 1;
+			out.writeInt(8 + ndigits * 2);
+			out.writeShort(ndigits);
+			out.writeShort(ndigits == 0 ? 0 : weight);
+			out.writeShort(ndigits == 0 ? NUMERIC_POS : sign);
+			out.writeShort(dscale);
+			for (int i = first; i <= last; i++) {
+				out.writeShort(groups[i]);
+			}
+		}
+		
+		private static String repeatZero(int count) {
+			final StringBuilder sb = new StringBuilder(count);
+			for (int i = 0; i < count; i++) {
+				sb.append('0');
+			}
+			return sb.toString();
+		}
+
+	}
+
+	/**
+	 * timestamp without time zone: micro seconds since 2000-01-01 of the local date time
+	 */
+	static final class TimestampEncoder extends PostgresqlBinaryEncoder {
+
+		@Override
+		public void encode(DataOutputStream out, Object value) throws IOException, SQLException {
+			final LocalDateTime ldt = toTimestamp(value).toLocalDateTime();
+			final long seconds = ldt.toEpochSecond(ZoneOffset.UTC) - PG_EPOCH_SECONDS;
+			out.writeInt(8);
+			out.writeLong(seconds * 1000000l + ldt.getNano() / 1000);
+		}
+
+	}
+
+	/**
+	 * timestamp with time zone: micro seconds since 2000-01-01 UTC
+	 */
+	static final class TimestampTzEncoder extends PostgresqlBinaryEncoder {
+
+		@Override
+		public void encode(DataOutputStream out, Object value) throws IOException, SQLException {
+			final Instant instant = toTimestamp(value).toInstant();
+			final long seconds = instant.getEpochSecond() - PG_EPOCH_SECONDS;
+			out.writeInt(8);
+			out.writeLong(seconds * 1000000l + instant.getNano() / 1000);
+		}
+
+	}
+
+	/**
+	 * date: days since 2000-01-01
+	 */
+	static final class DateEncoder extends PostgresqlBinaryEncoder {
+
+		@Override
+		public void encode(DataOutputStream out, Object value) throws IOException, SQLException {
+			final java.sql.Date date;
+			if (value instanceof java.sql.Date) {
+				date = (java.sql.Date) value;
+			} else if (value instanceof Date) {
+				date = new java.sql.Date(((Date) value).getTime());
+			} else {
+				try {
+					date = java.sql.Date.valueOf(value.toString().trim());
+				} catch (IllegalArgumentException e) {
+					throw new SQLDataException("Value: " + value + " cannot be converted into a date", SQL_STATE_INVALID_VALUE, e);
+				}
+			}
+			out.writeInt(4);
+			out.writeInt((int) (date.toLocalDate().toEpochDay() - PG_EPOCH_DAYS));
+		}
+
+	}
+
+	static final class BoolEncoder extends PostgresqlBinaryEncoder {
+
+		@Override
+		public void encode(DataOutputStream out, Object value) throws IOException {
+			final boolean b;
+			if (value instanceof Boolean) {
+				b = (Boolean) value;
+			} else if (value instanceof Number) {
+				b = ((Number) value).intValue() != 0;
+			} else {
+				final String s = value.toString().trim();
+				b = "true".equalsIgnoreCase(s) || "t".equalsIgnoreCase(s) || "1".equals(s);
+			}
+			out.writeInt(1);
+			out.writeByte(b ? 1 : 0);
+		}
+
+	}
+
+	static final class TextEncoder extends PostgresqlBinaryEncoder {
+
+		private Object lastValue = null;
+		private byte[] lastBytes = null;
+
+		@Override
+		public void encode(DataOutputStream out, Object value) throws IOException {
+			// values from the string dictionary repeat as the same instance
+			if (value != lastValue) {
+				lastBytes = value.toString().getBytes(StandardCharsets.UTF_8);
+				lastValue = value;
+			}
+			out.writeInt(lastBytes.length);
+			out.write(lastBytes);
+		}
+
+	}
+
+	/**
+	 * jsonb: version number 1 followed by the json text
+	 */
+	static final class JsonbEncoder extends PostgresqlBinaryEncoder {
+
+		@Override
+		public void encode(DataOutputStream out, Object value) throws IOException {
+			final byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length + 1);
+			out.writeByte(1);
+			out.write(bytes);
+		}
+
+	}
+
+	static final class ByteaEncoder extends PostgresqlBinaryEncoder {
+
+		@Override
+		public void encode(DataOutputStream out, Object value) throws IOException {
+			final byte[] bytes;
+			if (value instanceof byte[]) {
+				bytes = (byte[]) value;
+			} else {
+				bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+			}
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+
+	}
+
+	static final class UuidEncoder extends PostgresqlBinaryEncoder {
+
+		@Override
+		public void encode(DataOutputStream out, Object value) throws IOException, SQLException {
+			final UUID uuid;
+			if (value instanceof UUID) {
+				uuid = (UUID) value;
+			} else {
+				try {
+					uuid = UUID.fromString(value.toString().trim());
+				} catch (IllegalArgumentException e) {
+					throw new SQLDataException("Value: " + value + " cannot be converted into an uuid", SQL_STATE_INVALID_VALUE, e);
+				}
+			}
+			out.writeInt(16);
+			out.writeLong(uuid.getMostSignificantBits());
+			out.writeLong(uuid.getLeastSignificantBits());
+		}
+
+	}
+
+}
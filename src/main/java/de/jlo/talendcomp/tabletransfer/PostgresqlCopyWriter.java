@@ -0,0 +1,179 @@
+/**
+ * Copyright 2024 Jan Lolling jan.lolling@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.jlo.talendcomp.tabletransfer;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Date;
+
+/**
+ * Writes the rows with COPY ... FROM STDIN in the text format through the CopyManager of the PostgreSQL driver.
+ * Every batch is one COPY operation. 
+ */
+public class PostgresqlCopyWriter extends TableWriter {
+	
+	private static final int FLUSH_SIZE = 65536;
+	private final PostgreSQLHelper helper = new PostgreSQLHelper();
+	private final PostgresqlTableTransfer tableTransfer;
+	private final StringBuilder buffer = new StringBuilder(FLUSH_SIZE + 4096);
+	private String copySQL = null;
+	private int[] sourceIndexes = null;
+	private Object copyIn = null;
+	private boolean zeroDateToNull = false;
+
+	public PostgresqlCopyWriter(PostgresqlTableTransfer tableTransfer, Connection connection, int batchSize) {
+		super(tableTransfer, connection, batchSize);
+		this.tableTransfer = tableTransfer;
+	}
+
+	@Override
+	public void prepare() throws Exception {
+		copySQL = tableTransfer.createCopyStatement(false);
+		sourceIndexes = tableTransfer.getParamSourceIndexes();
+		zeroDateToNull = tableTransfer.isSetZeroDateToNull();
+		helper.setupCopyManager(getConnection());
+	}
+
+	@Override
+	public void addRow(Object[] row) throws Exception {
+		try {
+			if (copyIn == null) {
+				copyIn = helper.startCopyIn(copySQL);
+			}
+			for (int i = 0; i < sourceIndexes.length; i++) {
+				if (i > 0) {
+					buffer.append('\t');
+				}
+				final int sourceIndex = sourceIndexes[i];
+				appendValue(sourceIndex != -1 ? row[sourceIndex] : null);
+			}
+			buffer.append('\n');
+			if (buffer.length() >= FLUSH_SIZE) {
+				flush();
+			}
+		} catch (Exception e) {
+			// the next rows must not be written into a failed copy
+			abortCopy();
+			throw e;
+		}
+	}
+	
+	private void flush() throws Exception {
+		if (buffer.length() > 0) {
+			final byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+			helper.writeToCopy(copyIn, bytes, 0, bytes.length);
+			buffer.setLength(0);
+		}
+	}
+
+	private void appendValue(Object value) {
+		if (value == null) {
+			buffer.append("\\N");
+		} else if (value instanceof String) {
+			appendEscaped((String) value);
+		} else if (value instanceof Timestamp) {
+			if (zeroDateToNull && ((Timestamp) value).getTime() <= ParameterSetter.ZERO_DATETIME) {
+				buffer.append("\\N");
+			} else {
+				buffer.append(value.toString());
+			}
+		} else if (value instanceof Time || value instanceof java.sql.Date) {
+			buffer.append(value.toString());
+		} else if (value instanceof Date) {
+			final long ms = ((Date) value).getTime();
+			if (zeroDateToNull && ms <= ParameterSetter.ZERO_DATETIME) {
+				buffer.append("\\N");
+			} else {
+				buffer.append(new Timestamp(ms).toString());
+			}
+		} else if (value instanceof Boolean) {
+			buffer.append(((Boolean) value) ? 't' : 'f');
+		} else if (value instanceof BigDecimal) {
+			buffer.append(((BigDecimal) value).toPlainString());
+		} else if (value instanceof Number) {
+			buffer.append(value.toString());
+		} else if (value instanceof byte[]) {
+			// bytea hex format, the backslash must be escaped in the text format
+			buffer.append("\\\\x");
+			for (byte b : (byte[]) value) {
+				buffer.append(Character.forDigit((b >> 4) & 0xF, 16));
+				buffer.append(Character.forDigit(b & 0xF, 16));
+			}
+		} else {
+			appendEscaped(value.toString());
+		}
+	}
+	
+	private void appendEscaped(String s) {
+		for (int i = 0, n = s.length(); i < n; i++) {
+			final char c = s.charAt(i);
+			switch (c) {
+			case '\\':
+				buffer.append("\\\\");
+				break;
+			case '\n':
+				buffer.append("\\n");
+				break;
+			case '\r':
+				buffer.append("\\r");
+				break;
+			case '\t':
+				buffer.append("\\t");
+				break;
+			default:
+				buffer.append(c);
+			}
+		}
+	}
+
+	@Override
+	public void executeBatch() throws Exception {
+		if (copyIn != null) {
+			try {
+				flush();
+				final long count = helper.endCopy(copyIn);
+				copyIn = null;
+				if (tableTransfer.isDebugEnabled()) {
+					tableTransfer.debug("Copy finished with " + count + " rows");
+				}
+			} finally {
+				// a failed copy must not take the rows of this batch into the next batch
+				abortCopy();
+			}
+		}
+	}
+	
+	private void abortCopy() {
+		buffer.setLength(0);
+		if (copyIn != null) {
+			try {
+				helper.cancelCopy(copyIn);
+			} catch (Exception e) {
+				tableTransfer.warn("Cancel copy failed: " + e.getMessage(), e);
+			}
+			copyIn = null;
+		}
+	}
+
+	@Override
+	public void close() {
+		abortCopy();
+	}
+
+}
@@ -15,9 +15,10 @@
  */
 package de.jlo.talendcomp.tabletransfer;
 
-import java.sql.PreparedStatement;
+import java.sql.Connection;
 import java.sql.SQLException;
 
+import de.jlo.datamodel.SQLStatement;
 import de.jlo.datamodel.generator.PostgresqlSQLCodeGenerator;
 
 public class PostgresqlTableTransfer extends TableTransfer {
@@ -25,6 +26,10 @@ public class PostgresqlTableTransfer extends TableTransfer {
 	private PostgresqlSQLCodeGenerator codeGenerator = null;
 	private boolean onConflictIgnore = false;
 	private boolean onConflictUpdate = false;
+	private boolean useCopy = false;
+	private int copyCommitRows = 0;
+	private boolean copyBinary = false;
+	private boolean useUnnestInsert = false;
 	
 	@Override
 	public PostgresqlSQLCodeGenerator getTargetCodeGenerator() throws SQLException {
@@ -36,24 +41,94 @@ public class PostgresqlTableTransfer extends TableTransfer {
 	}
 
 	@Override
-	protected PreparedStatement createTargetStatement() throws Exception {
-		setupTargetDataModel();
+	protected SQLStatement buildTargetSQLStatement() throws Exception {
 		if (isRunOnlyUpdates()) {
-			targetSQLStatement = getTargetCodeGenerator().buildUpdateSQLStatement(getTargetSQLTable(), true);
+			return getTargetCodeGenerator().buildUpdateSQLStatement(getTargetSQLTable(), true);
 		} else {
-			targetSQLStatement = getTargetCodeGenerator().buildInsertSQLStatement(getTargetSQLTable(), true, onConflictIgnore, onConflictUpdate);
+			return getTargetCodeGenerator().buildInsertSQLStatement(getTargetSQLTable(), true, onConflictIgnore, onConflictUpdate);
 		}
-		info("PG Target statement:\n" + targetSQLStatement.getSQL());
-		if (targetSQLStatement.getCountParameters() == 0) {
-			throw new Exception("Target statement has no parameters!");
+	}
+
+	@Override
+	protected TableWriter createTableWriter(Connection connection, int batchSize) throws Exception {
+		if (useCopy) {
+			if (isRunOnlyUpdates() || onConflictIgnore || onConflictUpdate) {
+				warn("Copy cannot be used for updates or on conflict handling. Use insert statements instead.", null);
+			} else if (copyBinary) {
+				return new PostgresqlBinaryCopyWriter(this, connection, copyCommitRows > 0 ? copyCommitRows : batchSize);
+			} else {
+				return new PostgresqlCopyWriter(this, connection, copyCommitRows > 0 ? copyCommitRows : batchSize);
+			}
+		}
+		if (useUnnestInsert) {
+			if (isRunOnlyUpdates()) {
+				warn("Unnest insert cannot be used for updates. Use update statements instead.", null);
+			} else {
+				if (onConflictUpdate) {
+					warn("Unnest insert with on conflict update fails if the same key appears twice in one batch (cannot affect row a second time).", null);
+				}
+				return new PostgresqlUnnestInsertWriter(this, connection, batchSize);
+			}
+		}
+		if (onConflictUpdate && getInsertRowsPerStatement() > 1 && isRunOnlyUpdates() == false) {
+			warn("Multi-row insert with on conflict update fails if the same key appears twice in one statement (cannot affect row a second time).", null);
+		}
+		return super.createTableWriter(connection, batchSize);
+	}
+
+	@Override
+	protected boolean isDirectCopyPossible() {
+		// the special writers do not use the prepared target statement
+		return super.isDirectCopyPossible() && useCopy == false && useUnnestInsert == false;
+	}
+
+	/**
+	 * builds the COPY FROM STDIN statement and the parameter binding for the columns
+	 * @param binary true for the binary format
+	 * @return the copy statement
+	 * @throws Exception
+	 */
+	String createCopyStatement(boolean binary) throws Exception {
+		final String kind = binary ? "copy-binary" : "copy";
+		SQLStatement copyStatement = getBuiltTargetStatement(kind);
+		if (copyStatement == null) {
+			setupTargetDataModel();
+			copyStatement = getTargetCodeGenerator().buildCopyInStatement(getTargetSQLTable(), true, binary);
+			if (copyStatement.getCountParameters() == 0) {
+				throw new Exception("Target copy statement has no columns!");
+			}
+			putBuiltTargetStatement(kind, copyStatement);
+			info("PG Target copy statement:\n" + getTargetSQL(copyStatement));
 		}
-		String sql = targetSQLStatement.getSQL();
-		if (getApplicationName() != null) {
-			sql = "/* ApplicationName=" + getApplicationName() + " */\n" + sql;
+		targetSQLStatement = copyStatement;
+		setupParameterBinding();
+		return getTargetSQL(copyStatement);
+	}
+
+	@Override
+	protected SQLStatement buildInsertSQLStatement(int countRows) throws Exception {
+		return getTargetCodeGenerator().buildInsertSQLStatement(getTargetSQLTable(), true, onConflictIgnore, onConflictUpdate, countRows);
+	}
+
+	/**
+	 * builds the insert statement with one array parameter per column and the parameter binding
+	 * @return the insert statement
+	 * @throws Exception
+	 */
+	String createUnnestInsertStatement() throws Exception {
+		SQLStatement insertStatement = getBuiltTargetStatement("unnest");
+		if (insertStatement == null) {
+			setupTargetDataModel();
+			insertStatement = getTargetCodeGenerator().buildUnnestInsertSQLStatement(getTargetSQLTable(), true, onConflictIgnore, onConflictUpdate);
+			if (insertStatement.getCountParameters() == 0) {
+				throw new Exception("Target unnest insert statement has no columns!");
+			}
+			putBuiltTargetStatement("unnest", insertStatement);
+			info("PG Target unnest insert statement:\n" + getTargetSQL(insertStatement));
 		}
-		info("PG Target statement:\n" + sql);
-		targetPreparedStatement = getTargetConnection().prepareStatement(sql);
-		return targetPreparedStatement;
+		targetSQLStatement = insertStatement;
+		setupParameterBinding();
+		return getTargetSQL(insertStatement);
 	}
 
 	public boolean isOnConflictIgnore() {
@@ -75,5 +150,67 @@ public class PostgresqlTableTransfer extends TableTransfer {
 			this.onConflictUpdate = onConflictUpdate;
 		}
 	}
+
+	public boolean isUseCopy() {
+		return useCopy;
+	}
+
+	/**
+	 * use COPY FROM STDIN instead of insert statements
+	 * @param useCopy
+	 */
+	public void setUseCopy(Boolean useCopy) {
+		if (useCopy != null) {
+			this.useCopy = useCopy;
+		}
+	}
+
+	public int getCopyCommitRows() {
+		return copyCommitRows;
+	}
+
+	/**
+	 * set the count rows after which the copy will be finished and committed
+	 * if not set the target batch size will be used
+	 * @param copyCommitRows
+	 */
+	public void setCopyCommitRows(Integer copyCommitRows) {
+		if (copyCommitRows != null) {
+			this.copyCommitRows = copyCommitRows;
+		}
+	}
+
+	public boolean isCopyBinary() {
+		return copyBinary;
+	}
+
+	/**
+	 * use the binary format for COPY. 
+	 * If the target table has columns without binary encoder the insert statements will be used.
+	 * @param copyBinary
+	 */
+	public void setCopyBinary(Boolean copyBinary) {
+		if (copyBinary != null) {
+			this.copyBinary = copyBinary;
+		}
+	}
 	
+	public boolean isUseUnnestInsert() {
+		return useUnnestInsert;
+	}
+
+	/**
+	 * insert every batch with one statement which takes the values as one array per column:
+	 * insert into t (...) select * from unnest(?::int8[], ?::text[], ...)
+	 * The on conflict handling can be used. Columns with array types will use the insert statements.
+	 * On conflict update rejects a batch which contains the same key twice
+	 * (cannot affect row a second time), the rows must be unique per batch.
+	 * @param useUnnestInsert
+	 */
+	public void setUseUnnestInsert(Boolean useUnnestInsert) {
+		if (useUnnestInsert != null) {
+			this.useUnnestInsert = useUnnestInsert;
+		}
+	}
+
 }
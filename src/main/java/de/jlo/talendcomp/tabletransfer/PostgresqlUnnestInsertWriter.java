@@ -0,0 +1,146 @@
+/**
+ * Copyright 2024 Jan Lolling jan.lolling@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.jlo.talendcomp.tabletransfer;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import de.jlo.datamodel.SQLField;
+import de.jlo.datamodel.SQLPSParam;
+import de.jlo.datamodel.SQLTable;
+
+/**
+ * Writes every batch with one insert statement taking the values of the rows as one array per column:
+ * insert into t (a,b) select * from unnest(?::int8[],?::text[])
+ * The statement has a fixed number of parameters independent of the batch size and 
+ * the on conflict clause can be used.
+ * If a target column has an array type the prepared statement batch will be used instead.
+ */
+public class PostgresqlUnnestInsertWriter extends TableWriter {
+	
+	private final PostgresqlTableTransfer tableTransfer;
+	private PreparedStatement statement = null;
+	private int[] sourceIndexes = null;
+	private String[] elementTypes = null;
+	private Object[][] columns = null;
+	private Object[] lastRow = null;
+	private int countRows = 0;
+	private boolean zeroDateToNull = false;
+	private TableWriter fallbackWriter = null;
+
+	public PostgresqlUnnestInsertWriter(PostgresqlTableTransfer tableTransfer, Connection connection, int batchSize) {
+		super(tableTransfer, connection, batchSize);
+		this.tableTransfer = tableTransfer;
+	}
+
+	@Override
+	public void prepare() throws Exception {
+		final String sql = tableTransfer.createUnnestInsertStatement();
+		final SQLTable table = tableTransfer.getTargetSQLTable();
+		final List<SQLPSParam> params = tableTransfer.targetSQLStatement.getParams();
+		// the array parameters are followed by the parameters of the on conflict clause
+		int countColumns = 0;
+		for (int i = 0; i < table.getFieldCount(); i++) {
+			if (table.getFieldAt(i).getUsageType() != SQLField.USAGE_UPD_ONLY) {
+				countColumns++;
+			}
+		}
+		elementTypes = new String[countColumns];
+		for (int i = 0; i < countColumns; i++) {
+			final SQLField field = table.getField(params.get(i).getName());
+			if (field.getTypeName().startsWith("_")) {
+				tableTransfer.warn("Column: " + field.getName() + " type: " + field.getTypeName() 
+					+ " is an array and cannot be used with unnest. Use insert statements instead.", null);
+				fallbackWriter = new PreparedStatementWriter(tableTransfer, getConnection(), getBatchSize());
+				fallbackWriter.prepare();
+				return;
+			}
+			elementTypes[i] = tableTransfer.getTargetCodeGenerator().getArrayElementType(field);
+		}
+		sourceIndexes = tableTransfer.getParamSourceIndexes();
+		zeroDateToNull = tableTransfer.isSetZeroDateToNull();
+		columns = new Object[countColumns][getBatchSize()];
+		statement = tableTransfer.prepareTargetStatement(getConnection(), sql);
+	}
+
+	@Override
+	public void addRow(Object[] row) throws Exception {
+		if (fallbackWriter != null) {
+			fallbackWriter.addRow(row);
+			return;
+		}
+		for (int i = 0; i < columns.length; i++) {
+			final int sourceIndex = sourceIndexes[i];
+			columns[i][countRows] = sourceIndex != -1 ? toArrayElement(row[sourceIndex]) : null;
+		}
+		lastRow = row;
+		countRows++;
+	}
+	
+	private Object toArrayElement(Object value) {
+		if (value instanceof Date && (value instanceof Timestamp || value instanceof java.sql.Date || value instanceof java.sql.Time) == false) {
+			// the driver encodes the elements as text, java.util.Date.toString() cannot be parsed
+			value = new Timestamp(((Date) value).getTime());
+		}
+		if (zeroDateToNull && value instanceof Date && ((Date) value).getTime() <= ParameterSetter.ZERO_DATETIME) {
+			return null;
+		}
+		return value;
+	}
+
+	@Override
+	public void executeBatch() throws Exception {
+		if (fallbackWriter != null) {
+			fallbackWriter.executeBatch();
+			return;
+		}
+		if (countRows > 0) {
+			try {
+				for (int i = 0; i < columns.length; i++) {
+					final Object[] elements = countRows == columns[i].length ? columns[i] : Arrays.copyOf(columns[i], countRows);
+					statement.setArray(i + 1, getConnection().createArrayOf(elementTypes[i], elements));
+				}
+				if (sourceIndexes.length > columns.length) {
+					// the parameters of the on conflict clause are taken from the last row
+					tableTransfer.prepareInsertStatement(statement, lastRow, 0, columns.length + 1, Integer.MAX_VALUE);
+				}
+				statement.executeUpdate();
+			} finally {
+				for (Object[] column : columns) {
+					Arrays.fill(column, 0, countRows, null);
+				}
+				lastRow = null;
+				countRows = 0;
+			}
+		}
+	}
+
+	@Override
+	public void close() {
+		if (fallbackWriter != null) {
+			fallbackWriter.close();
+			return;
+		}
+		if (statement != null) {
+			tableTransfer.closeTargetStatement(statement);
+		}
+	}
+
+}
@@ -0,0 +1,62 @@
+/**
+ * Copyright 2024 Jan Lolling jan.lolling@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.jlo.talendcomp.tabletransfer;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+
+/**
+ * The default writer: sends the rows as JDBC batch of the prepared insert or update statement.
+ */
+public class PreparedStatementWriter extends TableWriter {
+	
+	private PreparedStatement statement = null;
+	
+	public PreparedStatementWriter(TableTransfer tableTransfer, Connection connection, int batchSize) {
+		super(tableTransfer, connection, batchSize);
+	}
+
+	@Override
+	public void prepare() throws Exception {
+		statement = getTableTransfer().createTargetStatement(getConnection());
+		getTableTransfer().setupParameterBinding();
+	}
+
+	@Override
+	public void addRow(Object[] row) throws Exception {
+		getTableTransfer().prepareInsertStatement(statement, row);
+		statement.addBatch();
+	}
+
+	@Override
+	public void addRow(ColumnBatch batch, int rowIndex) throws Exception {
+		getTableTransfer().prepareInsertStatement(statement, batch, rowIndex);
+		statement.addBatch();
+	}
+
+	@Override
+	public void executeBatch() throws Exception {
+		statement.executeBatch();
+	}
+
+	@Override
+	public void close() {
+		if (statement != null) {
+			getTableTransfer().closeTargetStatement(statement);
+		}
+	}
+
+}
@@ -0,0 +1,181 @@
+/**
+ * Copyright 2024 Jan Lolling jan.lolling@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.jlo.talendcomp.tabletransfer;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Collects the rows of one reader and puts them as chunk into the queue.
+ * This way the queue synchronization takes place once per chunk instead of once per row.
+ * A chunk can be put into more than one queue (e.g. table and file), the consumers share the rows.
+ * Not thread safe, every reader uses its own buffers.
+ */
+public class RowChunkBuffer {
+	
+	private RowChunkQueue[] queues;
+	private final int chunkSize;
+	private Object[][] chunk;
+	private int count = 0;
+	private RowPool rowPool = null;
+	private RowPool.Recycler recycler = null;
+	private int countConsumers = 1;
+	private RowPool slabPool = null;
+	private MemoryBudget memoryBudget = null;
+	private int budgetConsumers = 0;
+	
+	public RowChunkBuffer(RowChunkQueue queue, int chunkSize) {
+		this(new RowChunkQueue[] {queue}, chunkSize);
+	}
+	
+	public RowChunkBuffer(RowChunkQueue[] queues, int chunkSize) {
+		if (queues == null || queues.length == 0) {
+			throw new IllegalArgumentException("queues cannot be null or empty");
+		}
+		for (RowChunkQueue q : queues) {
+			if (q == null) {
+				throw new IllegalArgumentException("queue cannot be null");
+			}
+		}
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("chunkSize must be greater 0");
+		}
+		this.queues = queues;
+		this.chunkSize = chunkSize;
+		this.chunk = new Object[chunkSize][];
+		this.countConsumers = queues.length;
+	}
+	
+	/**
+	 * let the chunks return into the pool after the consumers have released them
+	 * @param recycler the recycler of the reader
+	 * @param countConsumers count consumers releasing a chunk 
+	 * (more than the count queues if the queue is a ring buffer)
+	 */
+	public void setRowPool(RowPool.Recycler recycler, int countConsumers) {
+		this.recycler = recycler;
+		this.rowPool = recycler != null ? recycler.getPool() : null;
+		this.countConsumers = countConsumers;
+	}
+	
+	/**
+	 * serialize the chunks into off-heap slabs before they go into the queues
+	 * @param slabPool the pool of the slabs
+	 * @param countConsumers count consumers releasing a slab
+	 */
+	public void setSlabPool(RowPool slabPool, int countConsumers) {
+		this.slabPool = slabPool;
+		this.countConsumers = countConsumers;
+	}
+	
+	/**
+	 * let the chunks wait until they fit into the memory budget
+	 * @param memoryBudget
+	 * @param consumers the consumers of the chunks as bit mask of MemoryBudget.CONSUMER_*
+	 */
+	public void setMemoryBudget(MemoryBudget memoryBudget, int consumers) {
+		this.memoryBudget = memoryBudget;
+		this.budgetConsumers = consumers;
+	}
+	
+	/**
+	 * stops putting the chunks into the queue of the consumer, e.g. because the consumer died.
+	 * A ring buffer cursor is not one of the queues, only the count consumers will be reduced.
+	 * A queue which is neither one of the queues nor a ring buffer cursor does not change anything.
+	 * @param queue
+	 */
+	public void removeConsumer(RowChunkQueue queue) {
+		boolean removed = false;
+		for (int i = 0; i < queues.length; i++) {
+			if (queues[i] == queue) {
+				final RowChunkQueue[] newQueues = new RowChunkQueue[queues.length - 1];
+				System.arraycopy(queues, 0, newQueues, 0, i);
+				System.arraycopy(queues, i + 1, newQueues, i, queues.length - i - 1);
+				queues = newQueues;
+				removed = true;
+				break;
+			}
+		}
+		if (removed || queue instanceof RowRingBuffer.Cursor) {
+			countConsumers--;
+		}
+	}
+	
+	/**
+	 * adds the row and puts the chunk into the queue if the chunk is full
+	 * @param row
+	 * @throws InterruptedException
+	 */
+	public void add(Object[] row) throws InterruptedException {
+		chunk[count++] = row;
+		if (count == chunkSize) {
+			put(chunk);
+			chunk = recycler != null ? recycler.nextChunkArray(chunkSize) : new Object[chunkSize][];
+			count = 0;
+		}
+	}
+	
+	private void put(Object[][] c) throws InterruptedException {
+		if (slabPool != null) {
+			final Object[][] free = slabPool.pollFreeChunk();
+			final RowSlab slab = free != null ? RowSlab.fromChunk(free) : new RowSlab();
+			try {
+				slab.write(c);
+			} catch (IOException e) {
+				throw new IllegalStateException("Serialize rows into off-heap slab failed: " + e.getMessage(), e);
+			}
+			if (rowPool != null) {
+				// the rows are serialized and can be reused at once
+				rowPool.release(c);
+				recycler.flushMetrics();
+			}
+			c = slab.getChunk();
+			slabPool.published(c, countConsumers);
+		}
+		if (memoryBudget != null) {
+			memoryBudget.acquire(c, MemoryBudget.estimateChunk(c), budgetConsumers);
+		}
+		if (rowPool != null && slabPool == null) {
+			rowPool.published(c, countConsumers);
+			recycler.flushMetrics();
+		}
+		for (RowChunkQueue q : queues) {
+			q.put(c);
+		}
+	}
+	
+	/**
+	 * puts an already complete chunk into the queue, e.g. a column batch
+	 * @param completeChunk
+	 * @throws InterruptedException
+	 */
+	public void putChunk(Object[][] completeChunk) throws InterruptedException {
+		put(completeChunk);
+	}
+	
+	/**
+	 * puts the remaining rows as smaller chunk into the queue
+	 * @throws InterruptedException
+	 */
+	public void flush() throws InterruptedException {
+		if (count > 0) {
+			put(Arrays.copyOf(chunk, count));
+			chunk = new Object[chunkSize][];
+			count = 0;
+		}
+	}
+
+}
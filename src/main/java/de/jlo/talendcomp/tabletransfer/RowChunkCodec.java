@@ -0,0 +1,248 @@
+/**
+ * Copyright 2024 Jan Lolling jan.lolling@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.jlo.talendcomp.tabletransfer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.UUID;
+
+/**
+ * Writes and reads chunks of rows in a compact typed binary format.
+ * Every value starts with a type tag followed by its binary representation.
+ * Column batches are written as rows.
+ */
+public final class RowChunkCodec {
+	
+	private static final byte NULL = 0;
+	private static final byte STRING = 1;
+	private static final byte INTEGER = 2;
+	private static final byte LONG = 3;
+	private static final byte DOUBLE = 4;
+	private static final byte FLOAT = 5;
+	private static final byte SHORT = 6;
+	private static final byte BYTE = 7;
+	private static final byte BOOLEAN = 8;
+	private static final byte BIG_DECIMAL = 9;
+	private static final byte BIG_INTEGER = 10;
+	private static final byte TIMESTAMP = 11;
+	private static final byte SQL_DATE = 12;
+	private static final byte TIME = 13;
+	private static final byte DATE = 14;
+	private static final byte BYTES = 15;
+	private static final byte UUID_VALUE = 16;
+	private static final byte SERIALIZED = 99;
+	
+	private RowChunkCodec() {}
+	
+	/**
+	 * writes the count rows and the rows
+	 * @param out
+	 * @param chunk a chunk of rows or a chunk carrying a column batch
+	 * @throws IOException
+	 */
+	public static void writeChunk(DataOutput out, Object[][] chunk) throws IOException {
+		final ColumnBatch batch = ColumnBatch.fromChunk(chunk);
+		final RowSlab slab = batch == null ? RowSlab.fromChunk(chunk) : null;
+		if (slab != null) {
+			// already in this format
+			slab.writeTo(out);
+		} else if (batch != null) {
+			final int countRows = batch.getCountRows();
+			out.writeInt(countRows);
+			for (int r = 0; r < countRows; r++) {
+				writeRow(out, batch.getRow(r));
+			}
+		} else {
+			out.writeInt(chunk.length);
+			for (Object[] row : chunk) {
+				writeRow(out, row);
+			}
+		}
+	}
+	
+	/**
+	 * reads the rows of a chunk after the count rows has been read
+	 * @param in
+	 * @param countRows
+	 * @return the chunk
+	 * @throws IOException
+	 */
+	public static Object[][] readChunk(DataInput in, int countRows) throws IOException {
+		final Object[][] chunk = new Object[countRows][];
+		for (int r = 0; r < countRows; r++) {
+			chunk[r] = readRow(in);
+		}
+		return chunk;
+	}
+	
+	public static void writeRow(DataOutput out, Object[] row) throws IOException {
+		out.writeInt(row.length);
+		for (Object value : row) {
+			writeValue(out, value);
+		}
+	}
+	
+	public static Object[] readRow(DataInput in) throws IOException {
+		final Object[] row = new Object[in.readInt()];
+		for (int i = 0; i < row.length; i++) {
+			row[i] = readValue(in);
+		}
+		return row;
+	}
+	
+	public static void writeValue(DataOutput out, Object value) throws IOException {
+		if (value == null) {
+			out.writeByte(NULL);
+		} else if (value instanceof String) {
+			out.writeByte(STRING);
+			writeBytes(out, ((String) value).getBytes(StandardCharsets.UTF_8));
+		} else if (value instanceof Integer) {
+			out.writeByte(INTEGER);
+			out.writeInt((Integer) value);
+		} else if (value instanceof Long) {
+			out.writeByte(LONG);
+			out.writeLong((Long) value);
+		} else if (value instanceof Double) {
+			out.writeByte(DOUBLE);
+			out.writeDouble((Double) value);
+		} else if (value instanceof Float) {
+			out.writeByte(FLOAT);
+			out.writeFloat((Float) value);
+		} else if (value instanceof Short) {
+			out.writeByte(SHORT);
+			out.writeShort((Short) value);
+		} else if (value instanceof Byte) {
+			out.writeByte(BYTE);
+			out.writeByte((Byte) value);
+		} else if (value instanceof Boolean) {
+			out.writeByte(BOOLEAN);
+			out.writeBoolean((Boolean) value);
+		} else if (value instanceof BigDecimal) {
+			final BigDecimal bd = (BigDecimal) value;
+			out.writeByte(BIG_DECIMAL);
+			out.writeInt(bd.scale());
+			writeBytes(out, bd.unscaledValue().toByteArray());
+		} else if (value instanceof BigInteger) {
+			out.writeByte(BIG_INTEGER);
+			writeBytes(out, ((BigInteger) value).toByteArray());
+		} else if (value instanceof Timestamp) {
+			// Timestamp before Date because Timestamp extends Date
+			out.writeByte(TIMESTAMP);
+			out.writeLong(((Timestamp) value).getTime());
+			out.writeInt(((Timestamp) value).getNanos());
+		} else if (value instanceof java.sql.Date) {
+			out.writeByte(SQL_DATE);
+			out.writeLong(((java.sql.Date) value).getTime());
+		} else if (value instanceof Time) {
+			out.writeByte(TIME);
+			out.writeLong(((Time) value).getTime());
+		} else if (value instanceof java.util.Date) {
+			out.writeByte(DATE);
+			out.writeLong(((java.util.Date) value).getTime());
+		} else if (value instanceof byte[]) {
+			out.writeByte(BYTES);
+			writeBytes(out, (byte[]) value);
+		} else if (value instanceof UUID) {
+			out.writeByte(UUID_VALUE);
+			out.writeLong(((UUID) value).getMostSignificantBits());
+			out.writeLong(((UUID) value).getLeastSignificantBits());
+		} else if (value instanceof Serializable) {
+			// e.g. PGobject
+			out.writeByte(SERIALIZED);
+			final ByteArrayOutputStream bout = new ByteArrayOutputStream();
+			try (ObjectOutputStream oout = new ObjectOutputStream(bout)) {
+				oout.writeObject(value);
+			}
+			writeBytes(out, bout.toByteArray());
+		} else {
+			throw new IOException("Value of class: " + value.getClass().getName() + " cannot be serialized");
+		}
+	}
+	
+	public static Object readValue(DataInput in) throws IOException {
+		final byte tag = in.readByte();
+		switch (tag) {
+		case NULL:
+			return null;
+		case STRING:
+			return new String(readBytes(in), StandardCharsets.UTF_8);
+		case INTEGER:
+			return in.readInt();
+		case LONG:
+			return in.readLong();
+		case DOUBLE:
+			return in.readDouble();
+		case FLOAT:
+			return in.readFloat();
+		case SHORT:
+			return in.readShort();
+		case BYTE:
+			return in.readByte();
+		case BOOLEAN:
+			return in.readBoolean();
+		case BIG_DECIMAL:
+			final int scale = in.readInt();
+			return new BigDecimal(new BigInteger(readBytes(in)), scale);
+		case BIG_INTEGER:
+			return new BigInteger(readBytes(in));
+		case TIMESTAMP:
+			final Timestamp ts = new Timestamp(in.readLong());
+			ts.setNanos(in.readInt());
+			return ts;
+		case SQL_DATE:
+			return new java.sql.Date(in.readLong());
+		case TIME:
+			return new Time(in.readLong());
+		case DATE:
+			return new java.util.Date(in.readLong());
+		case BYTES:
+			return readBytes(in);
+		case UUID_VALUE:
+			return new UUID(in.readLong(), in.readLong());
+		case SERIALIZED:
+			try (ObjectInputStream oin = new ObjectInputStream(new ByteArrayInputStream(readBytes(in)))) {
+				return oin.readObject();
+			} catch (ClassNotFoundException e) {
+				throw new IOException("Deserialize value failed: " + e.getMessage(), e);
+			}
+		default:
+			throw new IOException("Unknown type tag: " + tag);
+		}
+	}
+	
+	private static void writeBytes(DataOutput out, byte[] bytes) throws IOException {
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+	
+	private static byte[] readBytes(DataInput in) throws IOException {
+		final byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return bytes;
+	}
+
+}
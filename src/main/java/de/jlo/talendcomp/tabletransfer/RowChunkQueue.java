@@ -0,0 +1,46 @@
+/**
+ * Copyright 2024 Jan Lolling jan.lolling@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.jlo.talendcomp.tabletransfer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands over chunks of rows from the readers to a writer.
+ */
+public interface RowChunkQueue {
+	
+	/**
+	 * puts the chunk into the queue and waits if there is no space
+	 * @param chunk
+	 * @throws InterruptedException
+	 */
+	void put(Object[][] chunk) throws InterruptedException;
+	
+	/**
+	 * takes the next chunk
+	 * @param timeout time to wait for a chunk
+	 * @param unit
+	 * @return the chunk or null if no chunk arrives within the timeout
+	 * @throws InterruptedException
+	 */
+	Object[][] poll(long timeout, TimeUnit unit) throws InterruptedException;
+	
+	/**
+	 * @return count chunks waiting in the queue, can be an approximation
+	 */
+	int size();
+
+}
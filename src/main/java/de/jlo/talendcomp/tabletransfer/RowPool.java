@@ -0,0 +1,215 @@
+/**
+ * Copyright 2024 Jan Lolling jan.lolling@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.jlo.talendcomp.tabletransfer;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Recycles the row arrays of the chunks.
+ * A chunk returns into the pool after all consumers (table writer and file writer) have released it.
+ * The readers take the row arrays and the chunk arrays back with their own Recycler.
+ */
+public class RowPool {
+	
+	private static final int MAX_SPARE_CHUNK_ARRAYS = 64;
+	private final ArrayBlockingQueue<Object[][]> freeChunks;
+	// only chunks with more than one consumer need a reference counter
+	private final Map<Object[][], AtomicInteger> references = new ConcurrentHashMap<>();
+	private final AtomicLong countRowsAllocated = new AtomicLong();
+	private final AtomicLong countRowsReused = new AtomicLong();
+	private final AtomicLong countChunksDiscarded = new AtomicLong();
+	
+	/**
+	 * creates the pool
+	 * @param maxChunks max count of free chunks kept in the pool
+	 */
+	public RowPool(int maxChunks) {
+		if (maxChunks < 1) {
+			throw new IllegalArgumentException("maxChunks must be greater than 0");
+		}
+		freeChunks = new ArrayBlockingQueue<>(maxChunks);
+	}
+	
+	/**
+	 * must be called before the chunk is put into the queues
+	 * @param chunk
+	 * @param countConsumers how many consumers will release the chunk
+	 */
+	public void published(Object[][] chunk, int countConsumers) {
+		if (countConsumers > 1) {
+			references.put(chunk, new AtomicInteger(countConsumers));
+		}
+	}
+	
+	/**
+	 * releases the chunk. The consumer must not use the chunk or its rows afterwards. 
+	 * @param chunk
+	 */
+	public void release(Object[][] chunk) {
+		if (releaseReference(chunk)) {
+			recycle(chunk);
+		}
+	}
+	
+	/**
+	 * releases the reference of one consumer without recycling the chunk
+	 * @param chunk
+	 * @return true if all consumers have released the chunk
+	 */
+	public boolean releaseReference(Object[][] chunk) {
+		final AtomicInteger refs = references.get(chunk);
+		if (refs != null) {
+			if (refs.decrementAndGet() > 0) {
+				return false;
+			}
+			references.remove(chunk);
+		}
+		return true;
+	}
+	
+	/**
+	 * puts a chunk released by all consumers into the pool
+	 * @param chunk
+	 */
+	public void recycle(Object[][] chunk) {
+		if (freeChunks.offer(chunk) == false) {
+			countChunksDiscarded.incrementAndGet();
+		}
+	}
+	
+	/**
+	 * takes a free chunk out of the pool
+	 * @return the chunk or null if the pool is empty
+	 */
+	public Object[][] pollFreeChunk() {
+		return freeChunks.poll();
+	}
+	
+	/**
+	 * @return count free chunks in the pool
+	 */
+	public int getCountFreeChunks() {
+		return freeChunks.size();
+	}
+	
+	/**
+	 * @return count chunks published to more than one consumer and not yet released by all of them
+	 */
+	public int getCountSharedChunksInUse() {
+		return references.size();
+	}
+	
+	public long getCountRowsAllocated() {
+		return countRowsAllocated.get();
+	}
+	
+	public long getCountRowsReused() {
+		return countRowsReused.get();
+	}
+	
+	/**
+	 * @return count released chunks not taken because the pool was full
+	 */
+	public long getCountChunksDiscarded() {
+		return countChunksDiscarded.get();
+	}
+	
+	/**
+	 * creates a recycler for one reader thread
+	 * @return the recycler
+	 */
+	public Recycler createRecycler() {
+		return new Recycler();
+	}
+	
+	/**
+	 * Hands out the row arrays of the free chunks to one reader.
+	 * Not thread safe, every reader uses its own recycler.
+	 */
+	public class Recycler {
+		
+		private Object[][] current = null;
+		private int pos = 0;
+		private final ArrayDeque<Object[][]> spareChunkArrays = new ArrayDeque<>();
+		private long allocated = 0;
+		private long reused = 0;
+		
+		private Recycler() {}
+		
+		public RowPool getPool() {
+			return RowPool.this;
+		}
+		
+		/**
+		 * returns a recycled row array or a new one
+		 * @param width count columns
+		 * @return the row, the content is undefined and must be overwritten completely
+		 */
+		public Object[] nextRow(int width) {
+			while (true) {
+				if (current == null || pos == current.length) {
+					if (current != null && spareChunkArrays.size() < MAX_SPARE_CHUNK_ARRAYS) {
+						spareChunkArrays.push(current);
+					}
+					current = freeChunks.poll();
+					pos = 0;
+					if (current == null) {
+						allocated++;
+						return new Object[width];
+					}
+				}
+				final Object[] row = current[pos];
+				current[pos++] = null;
+				if (row != null && row.length == width) {
+					reused++;
+					return row;
+				}
+			}
+		}
+		
+		/**
+		 * returns a chunk array whose rows are already taken or a new one
+		 * @param chunkSize
+		 * @return the chunk array
+		 */
+		public Object[][] nextChunkArray(int chunkSize) {
+			while (spareChunkArrays.isEmpty() == false) {
+				final Object[][] chunk = spareChunkArrays.pop();
+				if (chunk.length == chunkSize) {
+					return chunk;
+				}
+			}
+			return new Object[chunkSize][];
+		}
+		
+		/**
+		 * transfers the counters of this reader into the pool metrics
+		 */
+		public void flushMetrics() {
+			countRowsAllocated.addAndGet(allocated);
+			countRowsReused.addAndGet(reused);
+			allocated = 0;
+			reused = 0;
+		}
+		
+	}
+
+}
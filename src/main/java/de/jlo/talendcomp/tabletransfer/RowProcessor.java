@@ -0,0 +1,131 @@
+/**
+ * Copyright 2024 Jan Lolling jan.lolling@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.jlo.talendcomp.tabletransfer;
+
+import java.util.List;
+
+/**
+ * Processes the rows between the reader and the writers.
+ * The processors run in the row processor stage, possibly in parallel for different rows,
+ * therefore implementations must be thread safe.
+ */
+public abstract class RowProcessor {
+
+	/**
+	 * processes the row
+	 * @param row the row with the values of the query followed by the fixed column values
+	 * @return the row (can be the same array) or null to skip the row
+	 * @throws Exception
+	 */
+	public abstract Object[] process(Object[] row) throws Exception;
+
+	/**
+	 * Trims the string values of the query columns.
+	 */
+	static final class TrimProcessor extends RowProcessor {
+
+		private final int countColumns;
+
+		TrimProcessor(int countColumns) {
+			this.countColumns = countColumns;
+		}
+
+		@Override
+		public Object[] process(Object[] row) {
+			for (int i = 0; i < countColumns; i++) {
+				final Object v = row[i];
+				if (v instanceof String) {
+					row[i] = ((String) v).trim();
+				}
+			}
+			return row;
+		}
+
+	}
+
+	/**
+	 * Removes none UTF-8 characters from the string columns.
+	 */
+	static final class StripNoneUTF8Processor extends RowProcessor {
+
+		private final int[] columnIndexes;
+
+		StripNoneUTF8Processor(int[] columnIndexes) {
+			this.columnIndexes = columnIndexes;
+		}
+
+		@Override
+		public Object[] process(Object[] row) {
+			for (int i : columnIndexes) {
+				final Object v = row[i];
+				if (v instanceof String) {
+					row[i] = DBHelper.stripNoneUTF8((String) v);
+				}
+			}
+			return row;
+		}
+
+	}
+
+	/**
+	 * Replaces the string values by the instance from the dictionary of the column.
+	 */
+	static final class DictionaryProcessor extends RowProcessor {
+
+		private final StringDictionary[] dictionaries;
+
+		DictionaryProcessor(StringDictionary[] dictionaries) {
+			this.dictionaries = dictionaries;
+		}
+
+		@Override
+		public Object[] process(Object[] row) {
+			for (int i = 0; i < dictionaries.length; i++) {
+				final Object v = row[i];
+				if (dictionaries[i] != null && v instanceof String) {
+					row[i] = dictionaries[i].canonicalize((String) v);
+				}
+			}
+			return row;
+		}
+
+	}
+
+	/**
+	 * Sets the fixed column values after the query columns.
+	 */
+	static final class FixedValueProcessor extends RowProcessor {
+
+		private final int firstIndex;
+		private final List<ColumnValue> values;
+
+		FixedValueProcessor(int firstIndex, List<ColumnValue> values) {
+			this.firstIndex = firstIndex;
+			this.values = values;
+		}
+
+		@Override
+		public Object[] process(Object[] row) {
+			int index = firstIndex;
+			for (ColumnValue cv : values) {
+				row[index++] = cv.getValue();
+			}
+			return row;
+		}
+
+	}
+
+}
@@ -0,0 +1,191 @@
+/**
+ * Copyright 2024 Jan Lolling jan.lolling@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.jlo.talendcomp.tabletransfer;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Runs the row processors for chunks of rows in a pool of worker threads.
+ * The reader adds the rows and the stage writes the processed rows into the sink, also in the reader thread.
+ * In ordered mode the rows leave the stage in the order they were added,
+ * otherwise a chunk leaves the stage as soon as it is processed.
+ * Not thread safe: every reader needs its own stage, the pool can be shared.
+ */
+public class RowProcessorStage {
+
+	/**
+	 * Takes the processed rows.
+	 */
+	public interface RowSink {
+
+		void write(Object[] row) throws Exception;
+
+	}
+
+	private final RowProcessor[] processors;
+	private final int chunkSize;
+	private final int maxPendingChunks;
+	private final boolean ordered;
+	private final RowSink sink;
+	private final Executor executor;
+	private final ExecutorCompletionService<Object[][]> completionService;
+	private final ArrayDeque<Future<Object[][]>> pending = new ArrayDeque<>();
+	private int countPending = 0;
+	private Object[][] chunk = null;
+	private int size = 0;
+
+	/**
+	 * @param executor the worker pool
+	 * @param processors the processors in the order of execution
+	 * @param chunkSize count rows processed in one task
+	 * @param maxPendingChunks count chunks submitted but not written into the sink before the reader waits
+	 * @param ordered true to keep the order of the rows
+	 * @param sink takes the processed rows
+	 */
+	public RowProcessorStage(Executor executor, RowProcessor[] processors, int chunkSize, int maxPendingChunks, boolean ordered, RowSink sink) {
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("chunkSize must be greater 0");
+		}
+		if (maxPendingChunks < 1) {
+			throw new IllegalArgumentException("maxPendingChunks must be greater 0");
+		}
+		this.executor = executor;
+		this.processors = processors;
+		this.chunkSize = chunkSize;
+		this.maxPendingChunks = maxPendingChunks;
+		this.ordered = ordered;
+		this.sink = sink;
+		this.completionService = ordered ? null : new ExecutorCompletionService<Object[][]>(executor);
+	}
+
+	/**
+	 * adds a row read from the source
+	 * @param row
+	 * @throws Exception if a processor has been failed
+	 */
+	public void add(Object[] row) throws Exception {
+		if (chunk == null) {
+			chunk = new Object[chunkSize][];
+		}
+		chunk[size++] = row;
+		if (size == chunkSize) {
+			submit();
+		}
+	}
+
+	private void submit() throws Exception {
+		final Object[][] rows = size == chunk.length ? chunk : Arrays.copyOf(chunk, size);
+		chunk = null;
+		size = 0;
+		final Callable<Object[][]> task = new Callable<Object[][]>() {
+
+			@Override
+			public Object[][] call() throws Exception {
+				for (int i = 0; i < rows.length; i++) {
+					rows[i] = process(processors, rows[i]);
+				}
+				return rows;
+			}
+
+		};
+		if (ordered) {
+			final FutureTask<Object[][]> future = new FutureTask<Object[][]>(task);
+			executor.execute(future);
+			pending.add(future);
+		} else {
+			completionService.submit(task);
+		}
+		countPending++;
+		while (countPending >= maxPendingChunks) {
+			writeNext(true);
+		}
+		// pass the finished chunks without waiting
+		while (countPending > 0 && writeNext(false)) {
+			// next
+		}
+	}
+
+	private boolean writeNext(boolean wait) throws Exception {
+		final Future<Object[][]> future;
+		if (ordered) {
+			future = pending.peek();
+			if (wait == false && future.isDone() == false) {
+				return false;
+			}
+			pending.poll();
+		} else {
+			future = wait ? completionService.take() : completionService.poll();
+			if (future == null) {
+				return false;
+			}
+		}
+		countPending--;
+		final Object[][] rows;
+		try {
+			rows = future.get();
+		} catch (ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof Exception) {
+				throw new Exception("Row processing failed: " + cause.getMessage(), cause);
+			}
+			throw new Exception("Row processing failed: " + cause, cause);
+		}
+		for (Object[] row : rows) {
+			if (row != null) {
+				sink.write(row);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * processes the remaining rows and waits until all rows are written into the sink
+	 * @throws Exception
+	 */
+	public void finish() throws Exception {
+		if (size > 0) {
+			submit();
+		}
+		while (countPending > 0) {
+			writeNext(true);
+		}
+	}
+
+	/**
+	 * runs the processors for one row
+	 * @param processors
+	 * @param row
+	 * @return the processed row or null if the row should be skipped
+	 * @throws Exception
+	 */
+	public static Object[] process(RowProcessor[] processors, Object[] row) throws Exception {
+		for (RowProcessor p : processors) {
+			row = p.process(row);
+			if (row == null) {
+				return null;
+			}
+		}
+		return row;
+	}
+
+}
@@ -0,0 +1,264 @@
+/**
+ * Copyright 2024 Jan Lolling jan.lolling@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.jlo.talendcomp.tabletransfer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Preallocated lock-free ring buffer for chunks of rows.
+ * Every consumer (table writer, file writer) reads all chunks with its own cursor,
+ * so a chunk is published only once for all consumers.
+ * The producers (the readers) claim their slot with a sequence counter and
+ * wait until the slowest cursor has passed the slot.
+ * All cursors must be added before the first chunk is published.
+ */
+public class RowRingBuffer {
+	
+	private final int capacity;
+	private final int mask;
+	private final Object[][][] slots;
+	// contains the sequence published in a slot
+	private final AtomicLongArray publishedSequences;
+	private final AtomicLong claimSequence = new AtomicLong(0);
+	private final List<Cursor> cursors = new ArrayList<>();
+	private volatile Cursor[] cursorArray = new Cursor[0];
+	private final WaitStrategy waitStrategy;
+	
+	/**
+	 * creates the ring buffer
+	 * @param minCapacity count chunks, will be raised to the next power of 2
+	 * @param waitStrategy the strategy for producers and consumers waiting for each other
+	 */
+	public RowRingBuffer(int minCapacity, WaitStrategy waitStrategy) {
+		if (minCapacity < 1) {
+			throw new IllegalArgumentException("minCapacity must be greater than 0");
+		}
+		if (waitStrategy == null) {
+			throw new IllegalArgumentException("waitStrategy cannot be null");
+		}
+		int c = 1;
+		while (c < minCapacity) {
+			c = c << 1;
+		}
+		capacity = c;
+		mask = c - 1;
+		slots = new Object[c][][];
+		publishedSequences = new AtomicLongArray(c);
+		for (int i = 0; i < c; i++) {
+			publishedSequences.set(i, -1);
+		}
+		this.waitStrategy = waitStrategy;
+	}
+	
+	/**
+	 * adds a consumer. Must be called before the producers start.
+	 * @return the new cursor
+	 */
+	public synchronized Cursor addCursor() {
+		if (claimSequence.get() > 0) {
+			throw new IllegalStateException("Cursors must be added before the first chunk is published");
+		}
+		final Cursor cursor = new Cursor();
+		cursors.add(cursor);
+		cursorArray = cursors.toArray(new Cursor[cursors.size()]);
+		return cursor;
+	}
+	
+	private synchronized void removeCursor(Cursor cursor) {
+		if (cursors.remove(cursor)) {
+			cursorArray = cursors.toArray(new Cursor[cursors.size()]);
+		}
+	}
+	
+	/**
+	 * publishes the chunk for all cursors and waits if the slowest cursor has not yet read the slot.
+	 * Can be called by multiple producers.
+	 * @param chunk
+	 * @throws InterruptedException
+	 */
+	public void put(Object[][] chunk) throws InterruptedException {
+		final long sequence = claimSequence.getAndIncrement();
+		final long wrapPoint = sequence - capacity;
+		int counter = 0;
+		while (wrapPoint >= getMinCursorSequence()) {
+			if (Thread.interrupted()) {
+				throw new InterruptedException("Interrupted while waiting for free slot in ring buffer");
+			}
+			waitStrategy.idle(counter++);
+		}
+		final int index = (int) (sequence & mask);
+		slots[index] = chunk;
+		// the volatile write makes the slot visible to the cursors
+		publishedSequences.set(index, sequence);
+	}
+	
+	private long getMinCursorSequence() {
+		long min = Long.MAX_VALUE;
+		for (Cursor c : cursorArray) {
+			final long s = c.sequence.get();
+			if (s < min) {
+				min = s;
+			}
+		}
+		return min;
+	}
+	
+	public int getCapacity() {
+		return capacity;
+	}
+	
+	/**
+	 * The read position of one consumer.
+	 * A cursor must only be used by one thread.
+	 */
+	public class Cursor implements RowChunkQueue {
+		
+		// the next sequence to read
+		private final AtomicLong sequence = new AtomicLong(0);
+		
+		private Cursor() {}
+
+		/**
+		 * publishes the chunk into the ring buffer for all cursors
+		 */
+		@Override
+		public void put(Object[][] chunk) throws InterruptedException {
+			RowRingBuffer.this.put(chunk);
+		}
+
+		@Override
+		public Object[][] poll(long timeout, TimeUnit unit) throws InterruptedException {
+			final long next = sequence.get();
+			final int index = (int) (next & mask);
+			final long deadline = System.nanoTime() + unit.toNanos(timeout);
+			int counter = 0;
+			while (publishedSequences.get(index) != next) {
+				if (Thread.interrupted()) {
+					throw new InterruptedException("Interrupted while waiting for chunk in ring buffer");
+				}
+				if (System.nanoTime() - deadline >= 0) {
+					return null;
+				}
+				waitStrategy.idle(counter++);
+			}
+			final Object[][] chunk = slots[index];
+			// release the slot for the producers
+			sequence.lazySet(next + 1);
+			return chunk;
+		}
+		
+		@Override
+		public int size() {
+			// claimed slots are counted even if not yet published
+			final long size = claimSequence.get() - sequence.get();
+			return (int) Math.max(0, Math.min(capacity, size));
+		}
+		
+		/**
+		 * removes the cursor from the ring buffer.
+		 * A consumer must close its cursor when it stops reading, otherwise the producers wait for ever.
+		 */
+		public void close() {
+			removeCursor(this);
+		}
+		
+	}
+	
+	/**
+	 * Defines how a thread waits for the other side of the ring buffer.
+	 */
+	public static abstract class WaitStrategy {
+		
+		/**
+		 * busy spin, lowest latency but uses a core per waiting thread.
+		 * Yields only now and then to not starve the other threads if there are less cores than threads.
+		 */
+		public static final WaitStrategy SPIN = new WaitStrategy() {
+			
+			@Override
+			public void idle(int counter) {
+				if ((counter & 0x3ff) == 0x3ff) {
+					Thread.yield();
+				}
+			}
+			
+		};
+		
+		/**
+		 * spin a while and then give up the CPU with Thread.yield()
+		 */
+		public static final WaitStrategy YIELD = new WaitStrategy() {
+			
+			@Override
+			public void idle(int counter) {
+				if (counter > 100) {
+					Thread.yield();
+				}
+			}
+			
+		};
+		
+		/**
+		 * spin and yield a while and then park the thread, lowest CPU usage
+		 */
+		public static final WaitStrategy PARK = new WaitStrategy() {
+			
+			@Override
+			public void idle(int counter) {
+				if (counter > 200) {
+					LockSupport.parkNanos(50000l);
+				} else if (counter > 100) {
+					Thread.yield();
+				}
+			}
+			
+		};
+		
+		/**
+		 * called in every iteration of a wait loop
+		 * @param counter number of the iteration within the current wait
+		 */
+		public abstract void idle(int counter);
+		
+		/**
+		 * returns the strategy for the name
+		 * @param name spin, yield or park
+		 * @return the strategy
+		 */
+		public static WaitStrategy forName(String name) {
+			if (name == null || name.trim().isEmpty()) {
+				return PARK;
+			}
+			name = name.trim();
+			if ("spin".equalsIgnoreCase(name)) {
+				return SPIN;
+			} else if ("yield".equalsIgnoreCase(name)) {
+				return YIELD;
+			} else if ("park".equalsIgnoreCase(name)) {
+				return PARK;
+			} else {
+				throw new IllegalArgumentException("Unknown wait strategy: " + name + ". Use spin, yield or park.");
+			}
+		}
+		
+	}
+
+}
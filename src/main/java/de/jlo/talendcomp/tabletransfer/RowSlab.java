@@ -0,0 +1,234 @@
+/**
+ * Copyright 2024 Jan Lolling jan.lolling@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.jlo.talendcomp.tabletransfer;
+
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Chunk of rows serialized in a direct (off-heap) ByteBuffer with the RowChunkCodec format.
+ * The rows are not scanned by the garbage collector while they wait in the queues.
+ * The consumers decode the rows one by one, every consumer with its own read position.
+ * The slab travels as chunk with one row containing only the slab through the queues.
+ */
+public class RowSlab {
+	
+	private static final int INITIAL_CAPACITY = 64 * 1024;
+	// a slab grown beyond this size by a wide chunk does not keep its memory in the pool
+	static final int MAX_RETAINED_CAPACITY = 1024 * 1024;
+	private ByteBuffer buffer;
+	private final Object[][] chunk;
+	private final DataOutputStream output = new DataOutputStream(new SlabOutputStream());
+	private int countRows = 0;
+	
+	public RowSlab() {
+		buffer = ByteBuffer.allocateDirect(INITIAL_CAPACITY);
+		chunk = new Object[][] {new Object[] {this}};
+	}
+	
+	/**
+	 * @param chunk a chunk from the queue
+	 * @return the slab if the chunk carries a slab otherwise null
+	 */
+	public static RowSlab fromChunk(Object[][] chunk) {
+		if (chunk.length == 1 && chunk[0] != null && chunk[0].length == 1 && chunk[0][0] instanceof RowSlab) {
+			return (RowSlab) chunk[0][0];
+		}
+		return null;
+	}
+	
+	/**
+	 * @return the chunk carrying this slab through the queues
+	 */
+	public Object[][] getChunk() {
+		return chunk;
+	}
+	
+	/**
+	 * serializes the rows into the slab and replaces the former content
+	 * @param rows a chunk of rows or a chunk carrying a column batch
+	 * @throws IOException
+	 */
+	public void write(Object[][] rows) throws IOException {
+		buffer.clear();
+		RowChunkCodec.writeChunk(output, rows);
+		output.flush();
+		buffer.flip();
+		countRows = buffer.getInt(0);
+	}
+	
+	public int getCountRows() {
+		return countRows;
+	}
+	
+	/**
+	 * @return count bytes of the serialized rows
+	 */
+	public int getSize() {
+		return buffer.limit();
+	}
+	
+	/**
+	 * @return the allocated off-heap bytes
+	 */
+	public int getCapacity() {
+		return buffer.capacity();
+	}
+	
+	/**
+	 * writes the serialized rows in the RowChunkCodec format (count rows and rows)
+	 * @param out
+	 * @throws IOException
+	 */
+	public void writeTo(DataOutput out) throws IOException {
+		final ByteBuffer b = buffer.duplicate();
+		final byte[] bytes = new byte[b.remaining()];
+		b.get(bytes);
+		out.write(bytes);
+	}
+	
+	/**
+	 * @return a new reader with its own position
+	 */
+	public Reader openReader() {
+		return new Reader(buffer.duplicate());
+	}
+	
+	/**
+	 * releases the memory of a slab grown by a wide chunk. 
+	 * Must only be called if no consumer uses the slab any longer.
+	 * @return true if the buffer has been replaced by a smaller one
+	 */
+	public boolean shrink() {
+		if (buffer.capacity() > MAX_RETAINED_CAPACITY) {
+			buffer = ByteBuffer.allocateDirect(INITIAL_CAPACITY);
+			buffer.flip();
+			countRows = 0;
+			return true;
+		}
+		return false;
+	}
+
+	private void ensureRemaining(int count) {
+		if (buffer.remaining() < count) {
+			final ByteBuffer newBuffer = ByteBuffer.allocateDirect(Math.max(buffer.capacity() * 2, buffer.position() + count));
+			buffer.flip();
+			newBuffer.put(buffer);
+			buffer = newBuffer;
+		}
+	}
+	
+	/**
+	 * Decodes the rows of the slab one by one.
+	 */
+	public static class Reader {
+		
+		private final DataInputStream input;
+		private final int countRows;
+		private int rowIndex = 0;
+		
+		private Reader(ByteBuffer b) {
+			countRows = b.getInt();
+			input = new DataInputStream(new SlabInputStream(b));
+		}
+		
+		public int getCountRows() {
+			return countRows;
+		}
+		
+		public boolean hasNext() {
+			return rowIndex < countRows;
+		}
+		
+		/**
+		 * @return the next decoded row
+		 * @throws IOException
+		 */
+		public Object[] next() throws IOException {
+			rowIndex++;
+			return RowChunkCodec.readRow(input);
+		}
+		
+	}
+	
+	/**
+	 * Writes into the slab buffer and grows it if necessary.
+	 */
+	private final class SlabOutputStream extends OutputStream {
+
+		@Override
+		public void write(int b) {
+			ensureRemaining(1);
+			buffer.put((byte) b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			ensureRemaining(len);
+			buffer.put(b, off, len);
+		}
+
+	}
+
+	/**
+	 * Reads from a view of the slab buffer with its own position.
+	 */
+	private static final class SlabInputStream extends InputStream {
+
+		private final ByteBuffer b;
+
+		private SlabInputStream(ByteBuffer b) {
+			this.b = b;
+		}
+
+		@Override
+		public int read() {
+			return b.hasRemaining() ? b.get() & 0xff : -1;
+		}
+
+		@Override
+		public int read(byte[] bytes, int off, int len) {
+			if (len == 0) {
+				return 0;
+			}
+			if (b.hasRemaining() == false) {
+				return -1;
+			}
+			final int count = Math.min(len, b.remaining());
+			b.get(bytes, off, count);
+			return count;
+		}
+
+		@Override
+		public long skip(long n) {
+			final int skip = (int) Math.max(0, Math.min(n, b.remaining()));
+			b.position(b.position() + skip);
+			return skip;
+		}
+
+		@Override
+		public int available() {
+			return b.remaining();
+		}
+
+	}
+
+}
@@ -0,0 +1,80 @@
+/**
+ * Copyright 2024 Jan Lolling jan.lolling@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.jlo.talendcomp.tabletransfer;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One range of the split column read by its own reader thread.
+ */
+public class SourcePartition {
+	
+	private final int partitionIndex;
+	private final String sql;
+	private final List<Object> params = new ArrayList<>();
+	
+	public SourcePartition(int partitionIndex, String sql) {
+		if (sql == null || sql.trim().isEmpty()) {
+			throw new IllegalArgumentException("sql cannot be null or empty");
+		}
+		this.partitionIndex = partitionIndex;
+		this.sql = sql;
+	}
+	
+	public int getPartitionIndex() {
+		return partitionIndex;
+	}
+
+	public String getSQL() {
+		return sql;
+	}
+	
+	public void addParam(Object value) {
+		params.add(value);
+	}
+	
+	public List<Object> getParams() {
+		return params;
+	}
+	
+	/**
+	 * sets the range bounds as parameters
+	 * @param ps the statement prepared with the sql of this partition
+	 * @throws SQLException
+	 */
+	public void setParams(PreparedStatement ps) throws SQLException {
+		int index = 1;
+		for (Object value : params) {
+			if (value instanceof Long) {
+				ps.setLong(index++, (Long) value);
+			} else if (value instanceof Timestamp) {
+				ps.setTimestamp(index++, (Timestamp) value);
+			} else {
+				ps.setObject(index++, value);
+			}
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return "partition #" + partitionIndex + " params: " + params;
+	}
+
+}
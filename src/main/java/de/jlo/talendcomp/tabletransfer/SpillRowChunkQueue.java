@@ -0,0 +1,391 @@
+/**
+ * Copyright 2024 Jan Lolling jan.lolling@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.jlo.talendcomp.tabletransfer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayDeque;
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Row chunk queue which never lets the producer wait.
+ * If the queue in memory is full, the chunks are written into spill segment files 
+ * and the consumers read them back in the same order.
+ * Once chunks are spilled, all following chunks are spilled too until the consumers have read all segments.
+ * The segment files are placed in a directory only readable for the owner, 
+ * the file I/O takes place outside of the lock of the memory queue.
+ */
+public class SpillRowChunkQueue implements RowChunkQueue {
+	
+	private static final int CHUNK_TERMINAL = -1;
+	private static final int SEGMENT_END = -2;
+	private final int capacity;
+	private final ArrayDeque<Object[][]> memoryQueue;
+	private final File spillDir;
+	private final String prefix;
+	private final long maxSegmentBytes;
+	private final Object[][] terminalChunk;
+	private final SpillListener listener;
+	// guarded by lock
+	private final LinkedList<File> closedSegments = new LinkedList<>();
+	// guarded by writeLock
+	private File segmentDir = null;
+	private File writeSegmentFile = null;
+	private DataOutputStream writeSegment = null;
+	private int chunksInWriteSegment = 0;
+	private int countSegments = 0;
+	// guarded by readLock
+	private File readSegmentFile = null;
+	private DataInputStream readSegment = null;
+	// guarded by lock
+	private boolean spilling = false;
+	private long countSpilledChunks = 0;
+	private long countSpilledRows = 0;
+	// chunks decided to be spilled and not yet taken by a consumer
+	private int countChunksInSegments = 0;
+	// chunks written into a segment and not yet taken by a consumer
+	private int countChunksReadable = 0;
+	// a lock instead of synchronized does not pin a waiting virtual thread to its carrier thread
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition available = lock.newCondition();
+	// the locks are always taken in the order readLock, writeLock, lock
+	private final ReentrantLock writeLock = new ReentrantLock();
+	private final ReentrantLock readLock = new ReentrantLock();
+	
+	/**
+	 * Will be informed if a chunk has been spilled, the chunk object itself will not be consumed.
+	 */
+	public interface SpillListener {
+		
+		void spilled(Object[][] chunk);
+		
+	}
+	
+	/**
+	 * creates the queue
+	 * @param capacity count chunks in memory
+	 * @param spillDir the directory in which the private directory for the segment files will be created
+	 * @param prefix the prefix of the segment directory name
+	 * @param maxSegmentBytes size after which the next segment file will be started
+	 * @param terminalChunk the chunk marking the end, will be returned as the same object
+	 * @param listener will be informed about spilled chunks, can be null
+	 */
+	public SpillRowChunkQueue(int capacity, File spillDir, String prefix, long maxSegmentBytes, Object[][] terminalChunk, SpillListener listener) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("capacity must be greater than 0");
+		}
+		if (spillDir == null) {
+			throw new IllegalArgumentException("spillDir cannot be null");
+		}
+		this.capacity = capacity;
+		this.memoryQueue = new ArrayDeque<>(capacity);
+		this.spillDir = spillDir;
+		this.prefix = prefix;
+		this.maxSegmentBytes = maxSegmentBytes;
+		this.terminalChunk = terminalChunk;
+		this.listener = listener;
+	}
+
+	@Override
+	public void put(Object[][] chunk) throws InterruptedException {
+		lock.lockInterruptibly();
+		try {
+			if (spilling == false) {
+				if (memoryQueue.size() < capacity) {
+					memoryQueue.add(chunk);
+					available.signalAll();
+					return;
+				}
+				spilling = true;
+			}
+			// counted before it is written, so the consumers do not leave the spilling mode in between
+			countChunksInSegments++;
+		} finally {
+			lock.unlock();
+		}
+		writeLock.lockInterruptibly();
+		try {
+			try {
+				writeChunk(chunk);
+			} catch (IOException e) {
+				throw new IllegalStateException("Spill chunk into segment file: " + writeSegmentFile + " failed: " + e.getMessage(), e);
+			}
+			lock.lock();
+			try {
+				if (chunk != terminalChunk) {
+					final ColumnBatch batch = ColumnBatch.fromChunk(chunk);
+					countSpilledRows += batch != null ? batch.getCountRows() : chunk.length;
+					countSpilledChunks++;
+				}
+				countChunksReadable++;
+				available.signalAll();
+			} finally {
+				lock.unlock();
+			}
+		} finally {
+			writeLock.unlock();
+		}
+		if (listener != null && chunk != terminalChunk) {
+			listener.spilled(chunk);
+		}
+	}
+	
+	private void writeChunk(Object[][] chunk) throws IOException {
+		if (writeSegment == null) {
+			writeSegmentFile = new File(getSegmentDir(), "segment_" + (countSegments++) + ".spill");
+			writeSegment = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(writeSegmentFile), 65536));
+			chunksInWriteSegment = 0;
+		}
+		if (chunk == terminalChunk) {
+			writeSegment.writeInt(CHUNK_TERMINAL);
+		} else {
+			RowChunkCodec.writeChunk(writeSegment, chunk);
+		}
+		chunksInWriteSegment++;
+		if (writeSegment.size() >= maxSegmentBytes) {
+			closeWriteSegment();
+		}
+	}
+	
+	private File getSegmentDir() throws IOException {
+		if (segmentDir == null) {
+			if (spillDir.exists() == false) {
+				spillDir.mkdirs();
+			}
+			if (spillDir.toPath().getFileSystem().supportedFileAttributeViews().contains("posix")) {
+				segmentDir = Files.createTempDirectory(spillDir.toPath(), prefix + "_", PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------"))).toFile();
+			} else {
+				segmentDir = Files.createTempDirectory(spillDir.toPath(), prefix + "_").toFile();
+				segmentDir.setReadable(false, false);
+				segmentDir.setReadable(true, true);
+				segmentDir.setWritable(false, false);
+				segmentDir.setWritable(true, true);
+				segmentDir.setExecutable(false, false);
+				segmentDir.setExecutable(true, true);
+			}
+		}
+		return segmentDir;
+	}
+	
+	private void closeWriteSegment() throws IOException {
+		final File file = writeSegmentFile;
+		final DataOutputStream out = writeSegment;
+		writeSegment = null;
+		writeSegmentFile = null;
+		try {
+			out.writeInt(SEGMENT_END);
+			out.close();
+		} finally {
+			lock.lock();
+			try {
+				closedSegments.add(file);
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	@Override
+	public Object[][] poll(long timeout, TimeUnit unit) throws InterruptedException {
+		final long deadline = System.nanoTime() + unit.toNanos(timeout);
+		lock.lockInterruptibly();
+		try {
+			final Object[][] chunk = nextInMemory(deadline);
+			if (chunk != null || countChunksReadable == 0) {
+				return chunk;
+			}
+			// reserve one spilled chunk, it will be read outside of this lock
+			countChunksReadable--;
+			countChunksInSegments--;
+		} finally {
+			lock.unlock();
+		}
+		readLock.lockInterruptibly();
+		try {
+			return readChunk();
+		} catch (IOException e) {
+			throw new IllegalStateException("Read chunk from segment file: " + readSegmentFile + " failed: " + e.getMessage(), e);
+		} finally {
+			readLock.unlock();
+		}
+	}
+
+	/**
+	 * waits until a chunk in memory or a readable spilled chunk is available
+	 * @return the chunk from memory or null if a spilled chunk is readable or the timeout has been reached
+	 */
+	private Object[][] nextInMemory(long deadline) throws InterruptedException {
+		while (true) {
+			final Object[][] chunk = memoryQueue.poll();
+			if (chunk != null) {
+				return chunk;
+			}
+			if (spilling) {
+				if (countChunksReadable > 0) {
+					return null;
+				}
+				if (countChunksInSegments == 0) {
+					// all spilled chunks are read, the next chunks go into memory again
+					spilling = false;
+				}
+			}
+			final long remaining = deadline - System.nanoTime();
+			if (remaining <= 0) {
+				return null;
+			}
+			available.awaitNanos(remaining);
+		}
+	}
+	
+	private Object[][] readChunk() throws IOException {
+		while (true) {
+			if (readSegment == null) {
+				File file = pollClosedSegment();
+				if (file == null) {
+					// the consumer has caught up, make the current segment readable
+					writeLock.lock();
+					try {
+						if (writeSegment != null && chunksInWriteSegment > 0) {
+							closeWriteSegment();
+						}
+					} finally {
+						writeLock.unlock();
+					}
+					file = pollClosedSegment();
+					if (file == null) {
+						throw new IllegalStateException("No segment file left for a spilled chunk in: " + segmentDir);
+					}
+				}
+				readSegmentFile = file;
+				readSegment = new DataInputStream(new BufferedInputStream(new FileInputStream(readSegmentFile), 65536));
+			}
+			final int countRows = readSegment.readInt();
+			if (countRows == SEGMENT_END) {
+				closeReadSegment();
+			} else if (countRows == CHUNK_TERMINAL) {
+				return terminalChunk;
+			} else {
+				return RowChunkCodec.readChunk(readSegment, countRows);
+			}
+		}
+	}
+	
+	private File pollClosedSegment() {
+		lock.lock();
+		try {
+			return closedSegments.poll();
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	private void closeReadSegment() throws IOException {
+		try {
+			readSegment.close();
+		} finally {
+			readSegment = null;
+			readSegmentFile.delete();
+			readSegmentFile = null;
+		}
+	}
+	
+	/**
+	 * closes and deletes all segment files and the segment directory
+	 */
+	public void dispose() {
+		readLock.lock();
+		try {
+			writeLock.lock();
+			try {
+				try {
+					if (readSegment != null) {
+						closeReadSegment();
+					}
+				} catch (IOException e) {
+					// intentionally empty
+				}
+				try {
+					if (writeSegment != null) {
+						closeWriteSegment();
+					}
+				} catch (IOException e) {
+					// intentionally empty
+				}
+				lock.lock();
+				try {
+					for (File f : closedSegments) {
+						f.delete();
+					}
+					closedSegments.clear();
+					countChunksInSegments = 0;
+					countChunksReadable = 0;
+					memoryQueue.clear();
+					spilling = false;
+				} finally {
+					lock.unlock();
+				}
+				if (segmentDir != null) {
+					segmentDir.delete();
+					segmentDir = null;
+				}
+			} finally {
+				writeLock.unlock();
+			}
+		} finally {
+			readLock.unlock();
+		}
+	}
+	
+	@Override
+	public int size() {
+		lock.lock();
+		try {
+			return memoryQueue.size() + countChunksInSegments;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	public long getCountSpilledChunks() {
+		lock.lock();
+		try {
+			return countSpilledChunks;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	public long getCountSpilledRows() {
+		lock.lock();
+		try {
+			return countSpilledRows;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+}
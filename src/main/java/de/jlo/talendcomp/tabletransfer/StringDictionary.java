@@ -0,0 +1,110 @@
+/**
+ * Copyright 2024 Jan Lolling jan.lolling@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.jlo.talendcomp.tabletransfer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded dictionary of the string values of one column.
+ * Repeated values are replaced by the first instance read, so low cardinality columns (status codes, countries, currencies)
+ * keep only one String per distinct value in the queues.
+ * The least recently used value is removed if the dictionary is full.
+ * The dictionary switches itself off if the hit rate of the first lookups is too low.
+ */
+public class StringDictionary {
+
+	private final LinkedHashMap<String, String> map;
+	private final int maxSize;
+	private final int sampleSize;
+	private final double minHitRate;
+	private volatile boolean enabled = true;
+	private long countLookups = 0;
+	private long countHits = 0;
+
+	/**
+	 * @param maxSize max number of distinct values
+	 * @param sampleSize number of lookups after which the hit rate will be checked
+	 * @param minHitRate the dictionary will be switched off if the hit rate is below this rate (0..1)
+	 */
+	public StringDictionary(int maxSize, int sampleSize, double minHitRate) {
+		if (maxSize < 1) {
+			throw new IllegalArgumentException("maxSize must be greater 0");
+		}
+		this.maxSize = maxSize;
+		this.sampleSize = sampleSize;
+		this.minHitRate = minHitRate;
+		this.map = new LinkedHashMap<String, String>(Math.min(maxSize, 1024) * 2, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+				return size() > StringDictionary.this.maxSize;
+			}
+
+		};
+	}
+
+	/**
+	 * returns the instance already in the dictionary or adds the value
+	 * @param value
+	 * @return the canonical instance of the value
+	 */
+	public String canonicalize(String value) {
+		if (value == null || enabled == false) {
+			return value;
+		}
+		synchronized (map) {
+			if (enabled == false) {
+				return value;
+			}
+			countLookups++;
+			String existing = map.get(value);
+			if (existing != null) {
+				countHits++;
+			} else {
+				map.put(value, value);
+				existing = value;
+			}
+			if (countLookups == sampleSize && countHits < sampleSize * minHitRate) {
+				// the column has too many distinct values
+				enabled = false;
+				map.clear();
+			}
+			return existing;
+		}
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public long getCountLookups() {
+		return countLookups;
+	}
+
+	public long getCountHits() {
+		return countHits;
+	}
+
+	public int getSize() {
+		synchronized (map) {
+			return map.size();
+		}
+	}
+
+}
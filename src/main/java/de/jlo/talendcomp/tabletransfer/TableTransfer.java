@@ -33,16 +33,27 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Time;
 import java.sql.Timestamp;
+import java.sql.Types;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -75,24 +86,77 @@ public class TableTransfer {
 	private static final int RETURN_CODE_ERROR_INPUT = 1;
 	private static final int RETURN_CODE_ERROR_OUTPUT = 2;
 	private static final int RETURN_CODE_WARN = 5;
-	private int returnCode = RETURN_CODE_OK;
+	private volatile int returnCode = RETURN_CODE_OK;
 	private String errorMessage;
 	private Exception errorException;
-	private BlockingQueue<Object> tableQueue;
-	private BlockingQueue<Object> fileQueue;
-	private final Object closeFlag = new String("The End");
+	private RowChunkQueue tableQueue;
+	private RowChunkQueue fileQueue;
+	private boolean useRingBuffer = false;
+	private RowRingBuffer.WaitStrategy ringBufferWaitStrategy = RowRingBuffer.WaitStrategy.PARK;
+	private RowRingBuffer ringBuffer = null;
+	private boolean recycleRows = false;
+	private boolean useColumnarBatches = false;
+	private boolean columnar = false;
+	private int[] columnBatchTypes = null;
+	private RowPool rowPool = null;
+	private boolean offHeapRows = false;
+	private RowPool slabPool = null;
+	private int queueMaxMemoryMB = 0;
+	private MemoryBudget memoryBudget = null;
+	private static final long SPILL_SEGMENT_BYTES = 64l * 1024l * 1024l;
+	private boolean spillToDisk = false;
+	private String spillDirectory = null;
+	private final List<SpillRowChunkQueue> spillQueues = new ArrayList<>();
+	// the terminal chunk
+	private final Object[][] closeFlag = new Object[0][];
 	private List<String> listSourceFieldNames;
 	private List<String> listSourceFieldTypeNames;
-	private Thread readerThread;
-	private Thread writerThread;
-	private Thread writerBackupThread;
-	private volatile int countInsertsAdded = 0;
-	private volatile int countInsertsInDB = 0;
+	private ColumnReader[] columnReaders;
+	private boolean useStringDictionary = false;
+	private int stringDictionaryMaxSize = 1024;
+	private StringDictionary[] stringDictionaries = null;
+	private static final int STRING_DICTIONARY_SAMPLE_SIZE = 10000;
+	private static final double STRING_DICTIONARY_MIN_HIT_RATE = 0.5;
+	private final List<RowProcessor> rowProcessors = new ArrayList<>();
+	private int countRowProcessorThreads = 0;
+	private boolean rowProcessorOrdered = true;
+	private boolean rowStage = false;
+	private RowProcessor[] processors = new RowProcessor[0];
+	private BoundedExecutor rowProcessorPool = null;
+	private boolean autoTune = false;
+	private int autoTuneMinWriters = 1;
+	private int autoTuneMaxWriters = 4;
+	private long autoTuneIntervalMillis = 5000;
+	private TransferAutoTuner autoTuner = null;
+	private TransferTask autoTunerTask = null;
+	private int queueCapacity = 0;
+	private int nextWriterIndex = 0;
+	private final AtomicInteger countWritersToRetire = new AtomicInteger();
+	private final Object writerLock = new Object();
+	private final List<TableTransfer> sinks = new ArrayList<>();
+	private TableTransfer fanOutSource = null;
+	private boolean detachFailingSinks = false;
+	private volatile boolean detached = false;
+	private final AtomicInteger countDetachedSinks = new AtomicInteger();
+	private final AtomicBoolean sinksAborted = new AtomicBoolean(false);
+	private boolean useDirectCopy = false;
+	private boolean directCopy = false;
+	private final List<TransferTask> readerThreads = new ArrayList<>();
+	// writers can be added by the autotuner while the writers stop the transfer
+	private final List<TransferTask> writerThreads = new CopyOnWriteArrayList<>();
+	private TransferTask writerBackupThread;
+	private TransferEngine engine = null;
+	private boolean targetModelChecked = false;
+	private boolean useVirtualThreads = false;
+	private ThreadFactory threadFactory = null;
+	private ThreadFactory configuredThreadFactory = null;
+	private final AtomicInteger countInsertsInDB = new AtomicInteger();
 	private volatile int countFileRows = 0;
-	private volatile int countRead = 0;
+	private final AtomicInteger countRead = new AtomicInteger();
 	private volatile boolean runningDb = false;
 	private volatile boolean runningFile = false;
 	private long startTime;
+	private volatile CompletableFuture<TransferResult> completion = null;
 	public static final String SOURCE_FETCHSIZE = "source.fetchSize";
 	public static final String SOURCE_TABLE = "source.table";
 	public static final String SOURCE_WHERE = "source.whereClause";
@@ -127,7 +191,14 @@ public class TableTransfer {
 	private boolean exportBooleanAsNumber = true;
 	private final Map<String, String> dbJavaTypeMap = new HashMap<>();
 	private boolean keepDataModels = false;
-	private final Map<Integer, String> outputClassMap = new HashMap<>();
+	private int[] paramIndexes;
+	private int[] paramSourceIndexes;
+	private int[] paramNullTypes;
+	private ParameterSetter[] paramSetters;
+	private SQLStatement bindingStatement = null;
+	// the statements built by the first writer of the execution
+	private final Map<String, SQLStatement> targetStatements = new HashMap<>();
+	static final String TARGET_STATEMENT_DML = "dml";
 	private String valueRangeColumn = null;
 	private String timeRangeColumn = null;
 	private int valueRangeColumnIndex = -1;
@@ -141,15 +212,31 @@ public class TableTransfer {
 	private boolean strictSourceFieldMatching = false;
 	private boolean trimFields = false;
 	private String checkConnectionStatement = "select 1";
-	private boolean withinWriteAction = false;
+	private volatile boolean withinWriteAction = false;
 	private boolean runOnlyUpdates = false;
 	private boolean stripNoneUTF8Characters = false;
 	private String application = null;
 	private String modelKeyTarget = null;
-	private static final long ZERO_DATETIME = -61854541200000l;
 	private boolean setZeroDateToNull = false;
 	private boolean allowMatchTolerant = false;
 	private boolean writeHeaderInFile = false;
+	private ConnectionFactory sourceConnectionFactory = null;
+	private String partitionColumn = null;
+	private int countPartitions = 1;
+	private Object partitionLowerBound = null;
+	private Object partitionUpperBound = null;
+	private List<SourcePartition> sourcePartitions = null;
+	private final AtomicInteger countActiveReaders = new AtomicInteger();
+	private boolean sourceFieldsInitialized = false;
+	private int insertRowsPerStatement = 1;
+	private ConnectionFactory targetConnectionFactory = null;
+	private int countWriters = 1;
+	private final AtomicInteger countActiveWriters = new AtomicInteger();
+	private boolean routeRowsByKey = false;
+	private List<RowChunkQueue> writerQueues = null;
+	private int queueChunkSize = 512;
+	private List<String> routingKeyNames = null;
+	private int[] routingKeySourceIndexes = null;
 
 	private String cleanupColumnNameForMatching(String columnName) {
 		if (columnName == null || columnName.trim().isEmpty()) {
@@ -191,11 +278,11 @@ public class TableTransfer {
 	}
 
 	public final int getCurrentCountInserts() {
-		return Math.max(countInsertsInDB, countFileRows);
+		return Math.max(countInsertsInDB.get(), countFileRows);
 	}
 
 	public final int getCurrentCountReads() {
-		return countRead;
+		return countRead.get();
 	}
 
 	public final long getStartTime() {
@@ -203,7 +290,16 @@ public class TableTransfer {
 	}
 
 	public final boolean isRunning() {
-		return runningDb || runningFile;
+		return runningDb || runningFile || isSinkRunning();
+	}
+
+	private boolean isSinkRunning() {
+		for (TableTransfer sink : sinks) {
+			if (sink.isRunning()) {
+				return true;
+			}
+		}
+		return false;
 	}
 
 	/**
@@ -215,36 +311,182 @@ public class TableTransfer {
 		if (initialized == false) {
 			throw new Exception("Not initialized!");
 		}
-		countRead = 0;
-		countInsertsAdded = 0;
-		countInsertsInDB = 0;
-		startWriting();
-		startReading();
+		countRead.set(0);
+		countInsertsInDB.set(0);
+		completion = new CompletableFuture<>();
+		countWritersToRetire.set(0);
+		sinksAborted.set(false);
+		countDetachedSinks.set(0);
+		for (TableTransfer sink : sinks) {
+			if (sink.initialized == false) {
+				throw new Exception("Sink for table: " + sink.getTargetTableAsGiven() + " is not initialized!");
+			}
+			if (sink.outputToTable == false || sink.outputToFile) {
+				throw new Exception("Sink for table: " + sink.getTargetTableAsGiven() + " must write only into its table!");
+			}
+		}
+		try {
+			if (directCopy) {
+				startDirectCopy();
+				return;
+			}
+			startWriting();
+			for (TableTransfer sink : sinks) {
+				sink.startSink();
+			}
+			startReading();
+			if (autoTuner != null) {
+				autoTunerTask = new TransferTask(autoTuner);
+				autoTunerTask.start();
+			}
+		} catch (Exception e) {
+			completion.completeExceptionally(e);
+			throw e;
+		}
+	}
+
+	/**
+	 * executes the transfer with separate read and write threads
+	 * @return the handle which will be completed after the last writer has been finished
+	 * @throws Exception
+	 */
+	public final CompletableFuture<TransferResult> executeAsync() throws Exception {
+		execute();
+		return completion;
+	}
+
+	/**
+	 * @return the handle of the current execution, null if not executed yet
+	 */
+	public final CompletableFuture<TransferResult> getCompletion() {
+		return completion;
+	}
+
+	/**
+	 * waits until the transfer has been finished or the timeout has been reached.
+	 * Returns immediately after the last writer has been finished.
+	 * @param timeoutMillis max time to wait
+	 * @return true if the transfer is finished
+	 * @throws InterruptedException
+	 */
+	public final boolean waitForCompletion(long timeoutMillis) throws InterruptedException {
+		final CompletableFuture<TransferResult> c = completion;
+		if (c == null) {
+			return isRunning() == false;
+		}
+		try {
+			c.get(timeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (ExecutionException e) {
+			// the error is available in the result and as error exception
+		} catch (TimeoutException e) {
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * completes the handle if all writers have been finished
+	 */
+	private void checkCompleted() {
+		final CompletableFuture<TransferResult> c = completion;
+		if (c != null && countActiveWriters.get() == 0 && runningFile == false && isSinkRunning() == false) {
+			c.complete(new TransferResult(countRead.get(), countInsertsInDB.get(), countFileRows, startTime, 
+					System.currentTimeMillis(), returnCode, errorMessage, errorException));
+		}
 	}
 
 	private final void startReading() {
-		readerThread = new Thread() {
+		readerThreads.clear();
+		sourceFieldsInitialized = false;
+		if (rowStage) {
+			rowProcessorPool = createWorkerPool(countRowProcessorThreads);
+		}
+		if (sourcePartitions != null) {
+			countActiveReaders.set(sourcePartitions.size());
+			for (final SourcePartition partition : sourcePartitions) {
+				final TransferTask t = new TransferTask(new Runnable() {
+					@Override
+					public void run() {
+						read(partition);
+					}
+				});
+				readerThreads.add(t);
+			}
+		} else {
+			countActiveReaders.set(1);
+			final TransferTask t = new TransferTask(new Runnable() {
+				@Override
+				public void run() {
+					read(null);
+				}
+			});
+			readerThreads.add(t);
+		}
+		for (TransferTask t : readerThreads) {
+			t.start();
+		}
+	}
+
+	private final void startDirectCopy() {
+		targetStatements.clear();
+		readerThreads.clear();
+		writerThreads.clear();
+		sourceFieldsInitialized = false;
+		runningFile = false;
+		runningDb = true;
+		countActiveWriters.set(0);
+		countActiveReaders.set(1);
+		final TransferTask t = new TransferTask(new Runnable() {
 			@Override
 			public void run() {
-				read();
+				copyDirect();
 			}
-		};
-		readerThread.setDaemon(false);
-		readerThread.start();
+		});
+		readerThreads.add(t);
+		t.start();
 	}
 
 	private final void startWriting() throws Exception {
+		// a table writer failing at once must not complete the execution before the file writer starts
+		runningFile = outputToFile;
 		if (outputToTable) {
-			debug("Start writer thread...");
-			runningDb = true;
-			writerThread = new Thread() {
-				@Override
-				public void run() {
-					writeTable();
+			targetStatements.clear();
+			writerThreads.clear();
+			final List<Connection> connections = new ArrayList<>();
+			connections.add(targetConnection);
+			try {
+				for (int i = 1; i < countWriters; i++) {
+					connections.add(targetConnectionFactory.createConnection());
+				}
+			} catch (Exception e) {
+				for (int i = 1; i < connections.size(); i++) {
+					try {
+						connections.get(i).close();
+					} catch (SQLException ce) {
+						// intentionally empty
+					}
 				}
-			};
-			writerThread.setDaemon(false);
-			writerThread.start();
+				throw new Exception("Create connections for the parallel writers failed: " + e.getMessage(), e);
+			}
+			debug("Start " + countWriters + " writer thread(s)...");
+			nextWriterIndex = countWriters;
+			runningDb = true;
+			countActiveWriters.set(countWriters);
+			for (int i = 0; i < countWriters; i++) {
+				final Connection connection = connections.get(i);
+				final int writerIndex = i;
+				final RowChunkQueue queue = writerQueues != null ? writerQueues.get(i) : tableQueue;
+				final TransferTask t = new TransferTask(new Runnable() {
+					@Override
+					public void run() {
+						writeTable(connection, writerIndex, queue);
+					}
+				});
+				writerThreads.add(t);
+			}
+			for (TransferTask t : writerThreads) {
+				t.start();
+			}
 		}
 		if (outputToFile) {
 			runningFile = true;
@@ -257,30 +499,295 @@ public class TableTransfer {
 			if (isDebugEnabled()) {
 				debug("Backup file established.");
 			}
-			writerBackupThread = new Thread() {
+			writerBackupThread = new TransferTask(new Runnable() {
 				@Override
 				public void run() {
 					writeFile();
 				}
-			};
-			writerBackupThread.setDaemon(false);
+			});
 			writerBackupThread.start();
 		}
 	}
 
+	/**
+	 * starts the runnable in a pooled thread of the engine, in a thread of the thread factory or in a new thread
+	 * @param runnable
+	 */
+	private void startThread(Runnable runnable) {
+		if (engine != null) {
+			engine.execute(runnable);
+		} else if (threadFactory != null) {
+			threadFactory.newThread(runnable).start();
+		} else {
+			final Thread t = new Thread(runnable);
+			t.setDaemon(false);
+			t.start();
+		}
+	}
+
+	/**
+	 * @param countThreads
+	 * @return a pool which takes its threads like the reader and writer tasks
+	 */
+	private BoundedExecutor createWorkerPool(int countThreads) {
+		return new BoundedExecutor(new Executor() {
+
+			@Override
+			public void execute(Runnable command) {
+				startThread(command);
+			}
+
+		}, countThreads);
+	}
+
+	/**
+	 * A reader or writer task running in an own thread or in a pooled thread of the engine.
+	 */
+	private final class TransferTask implements Runnable {
+
+		private final Runnable runnable;
+		private Thread runner = null;
+		private boolean interruptRequested = false;
+		private volatile boolean alive = false;
+
+		private TransferTask(Runnable runnable) {
+			this.runnable = runnable;
+		}
+
+		private void start() {
+			alive = true;
+			try {
+				startThread(this);
+			} catch (RuntimeException e) {
+				alive = false;
+				throw e;
+			}
+		}
+
+		@Override
+		public void run() {
+			synchronized (this) {
+				runner = Thread.currentThread();
+				if (interruptRequested) {
+					runner.interrupt();
+				}
+			}
+			try {
+				runnable.run();
+			} finally {
+				synchronized (this) {
+					runner = null;
+					// a pooled thread must not take the interruption to the next task
+					Thread.interrupted();
+				}
+				alive = false;
+			}
+		}
+
+		private synchronized void interrupt() {
+			interruptRequested = true;
+			if (runner != null) {
+				runner.interrupt();
+			}
+		}
+
+		private boolean isAlive() {
+			return alive;
+		}
+
+		private synchronized boolean isCurrentThread() {
+			return runner == Thread.currentThread();
+		}
+
+	}
+
+	/**
+	 * starts the writers of a sink, the rows come from the fan-out source
+	 * @throws Exception
+	 */
+	private void startSink() throws Exception {
+		countRead.set(0);
+		countInsertsInDB.set(0);
+		countWritersToRetire.set(0);
+		detached = false;
+		startWriting();
+	}
+
+	private RowChunkQueue[] getSinkQueues() {
+		final List<RowChunkQueue> queues = new ArrayList<>();
+		for (TableTransfer sink : sinks) {
+			if (sink.detached == false) {
+				queues.add(sink.tableQueue);
+			}
+		}
+		return queues.toArray(new RowChunkQueue[queues.size()]);
+	}
+
+	/**
+	 * removes the queues of detached sinks from the buffers of a reader
+	 * @param buffers
+	 * @return count detached sinks
+	 */
+	private int detachSinks(List<RowChunkBuffer> buffers) {
+		final int count = countDetachedSinks.get();
+		for (TableTransfer sink : sinks) {
+			if (sink.detached) {
+				for (RowChunkBuffer b : buffers) {
+					b.removeConsumer(sink.tableQueue);
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * called by a sink if one of its writers has been failed
+	 * @param sink
+	 */
+	private void sinkFailed(TableTransfer sink) {
+		if (detachFailingSinks) {
+			if (sink.detached == false) {
+				sink.detached = true;
+				countDetachedSinks.incrementAndGet();
+				warn("Sink for table: " + sink.getTargetTableAsGiven() + " failed and has been detached: " + sink.getErrorMessage(), null);
+			}
+		} else if (sinksAborted.compareAndSet(false, true)) {
+			error("Sink for table: " + sink.getTargetTableAsGiven() + " failed: " + sink.getErrorMessage() + ". Stop all sinks.", sink.getErrorException());
+			returnCode = RETURN_CODE_ERROR_OUTPUT;
+			stop();
+			for (TableTransfer other : sinks) {
+				if (other != sink) {
+					other.stop();
+				}
+			}
+		}
+	}
+
+	/**
+	 * takes the chunks of a failed writer until the close flag arrives
+	 * so that the reader never waits for space in the queue of this writer
+	 * @param queue the queue of the failed writer
+	 */
+	private void drainQueue(RowChunkQueue queue) {
+		final TableTransfer source = fanOutSource != null ? fanOutSource : this;
+		try {
+			while (true) {
+				final Object[][] chunk = queue.poll(1000, TimeUnit.MILLISECONDS);
+				if (chunk == closeFlag) {
+					if (countActiveWriters.get() > 1 && writerQueues == null) {
+						// the other writers of the shared queue also need the flag
+						queue.put(closeFlag);
+					}
+					break;
+				} else if (chunk != null) {
+					if (memoryBudget != null) {
+						memoryBudget.release(chunk, MemoryBudget.CONSUMER_TABLE);
+					}
+					releaseChunk(chunk);
+				} else if (source.isReading() == false) {
+					break;
+				}
+			}
+		} catch (InterruptedException e) {
+			// stop draining
+		}
+	}
+
+	/**
+	 * starts an additional writer on the shared table queue
+	 * @return true if the writer has been started
+	 */
+	boolean addWriter() {
+		if (targetConnectionFactory == null || doCommit == false) {
+			return false;
+		}
+		final Connection connection;
+		try {
+			connection = targetConnectionFactory.createConnection();
+		} catch (Exception e) {
+			warn("Create connection for an additional writer failed: " + e.getMessage(), e);
+			return false;
+		}
+		synchronized (writerLock) {
+			if (countActiveReaders.get() > 0 && runningDb) {
+				final int writerIndex = nextWriterIndex++;
+				final RowChunkQueue queue = tableQueue;
+				countActiveWriters.incrementAndGet();
+				final TransferTask t = new TransferTask(new Runnable() {
+					@Override
+					public void run() {
+						writeTable(connection, writerIndex, queue);
+					}
+				});
+				writerThreads.add(t);
+				t.start();
+				return true;
+			}
+		}
+		try {
+			connection.close();
+		} catch (SQLException e) {
+			// intentionally empty
+		}
+		return false;
+	}
+
+	/**
+	 * lets one writer finish after its current chunk, the last writer will not be removed
+	 * @return true if a writer will be removed
+	 */
+	boolean retireWriter() {
+		if (countActiveWriters.get() - countWritersToRetire.get() <= 1) {
+			return false;
+		}
+		countWritersToRetire.incrementAndGet();
+		return true;
+	}
+
+	private boolean takeRetirement() {
+		int n;
+		do {
+			n = countWritersToRetire.get();
+			if (n <= 0) {
+				return false;
+			}
+		} while (countWritersToRetire.compareAndSet(n, n - 1) == false);
+		return true;
+	}
+
+	boolean isReading() {
+		return countActiveReaders.get() > 0;
+	}
+
+	int getCountActiveReaders() {
+		return countActiveReaders.get();
+	}
+
+	/**
+	 * @return count currently running table writers
+	 */
+	public int getCountActiveWriters() {
+		return countActiveWriters.get();
+	}
+
 	/**
 	 * stops the execution (all threads)
 	 */
 	public final void stop() {
-		if (readerThread != null) {
-			readerThread.interrupt();
+		for (TransferTask t : readerThreads) {
+			t.interrupt();
 		}
-		if (writerThread != null) {
-			writerThread.interrupt();
+		for (TransferTask t : writerThreads) {
+			if (t.isCurrentThread() == false) {
+				t.interrupt();
+			}
 		}
 		if (writerBackupThread != null) {
 			writerBackupThread.interrupt();
 		}
+		if (autoTunerTask != null && autoTunerTask.isCurrentThread() == false) {
+			autoTunerTask.interrupt();
+		}
 	}
 
 	/**
@@ -315,87 +822,94 @@ public class TableTransfer {
 		}
 	}
 
-	private final void read() {
+	/**
+	 * reads the source and puts the rows into the queues
+	 * @param partition the partition to read or null to read the whole source query with the source connection
+	 */
+	private final void read(final SourcePartition partition) {
 		ResultSet rs = null;
+		// the partitions except the first one are read with an own connection
+		final boolean ownConnection = partition != null && partition.getPartitionIndex() > 0;
+		// null until the connection of this reader has been created
+		Connection connection = ownConnection ? null : sourceConnection;
+		Statement statement = partition == null ? sourceSelectStatement : null;
 		try {
-			if (isDebugEnabled()) {
-				debug("Execute source query: " + sourceQuery);
-			}
-			rs = sourceSelectStatement.executeQuery(sourceQuery);
-			if (isDebugEnabled()) {
-				debug("Analyse result set for ResultSet object: " + rs);
-			}
-			final ResultSetMetaData rsMeta = rs.getMetaData();
-			final int countColumns = rsMeta.getColumnCount();
-			listSourceFieldNames = new ArrayList<String>(countColumns);
-			listSourceFieldTypeNames = new ArrayList<String>(countColumns);
-			// register field names from query
-			for (int i = 1; i <= countColumns; i++) {
-				String name = rsMeta.getColumnLabel(i);
-				if (name == null) {
-					name = rsMeta.getColumnName(i);
-				}
-				if (name == null) {
-					throw new Exception(
-							"Cannot retrieve column name or label from " + i + ". column of the query: " + sourceQuery);
-				}
-				name = name.toLowerCase();
-				if (name.equalsIgnoreCase(valueRangeColumn)) {
-					valueRangeColumnIndex = i;
-					if (isDebugEnabled()) {
-						debug("Collect min/max for value-range from column: " + name + " at index: "
-								+ valueRangeColumnIndex);
-					}
-				} else if (name.equalsIgnoreCase(timeRangeColumn)) {
-					timeRangeColumnIndex = i;
-					if (isDebugEnabled()) {
-						debug("Collect min/max for time-range from column: " + name + " at index: "
-								+ timeRangeColumnIndex);
-					}
-				}
-				listSourceFieldNames.add(name);
-				final String type = rsMeta.getColumnTypeName(i).toUpperCase();
-				listSourceFieldTypeNames.add(type);
+			if (partition == null) {
 				if (isDebugEnabled()) {
-					debug("Name: " + name + ",  Type: " + type);
+					debug("Execute source query: " + sourceQuery);
 				}
-			}
-			// register fixed column value names
-			for (ColumnValue cv : fixedColumnValueList) {
-				listSourceFieldNames.add(cv.getColumnName().toLowerCase());
+				rs = sourceSelectStatement.executeQuery(sourceQuery);
+			} else {
+				if (ownConnection) {
+					connection = sourceConnectionFactory.createConnection();
+				}
+				final PreparedStatement ps = connection.prepareStatement(partition.getSQL());
+				statement = ps;
+				setupSourceStatement(ps, connection);
+				partition.setParams(ps);
 				if (isDebugEnabled()) {
-					debug("Name: " + cv.getColumnName());
+					debug("Execute source query for " + partition + ": " + partition.getSQL());
 				}
+				rs = ps.executeQuery();
 			}
 			if (isDebugEnabled()) {
-				debug("Start fetching data...");
+				debug("Analyse result set for ResultSet object: " + rs);
 			}
-			startTime = System.currentTimeMillis();
-			while (rs.next()) {
-				final Object[] row = fillRow(rs, countColumns);
-				if (valueRangeColumnIndex > 0) {
-					checkValueRange(row[valueRangeColumnIndex - 1]);
-				}
-				if (timeRangeColumnIndex > 0) {
-					checkTimeRange(row[timeRangeColumnIndex - 1]);
-				}
-				if (outputToTable) {
-					tableQueue.put(row);
+			final int countColumns = setupSourceFields(rs.getMetaData());
+			// every reader collects its rows in own chunks
+			// the file writer gets the same chunks as the table writers
+			final RowPool.Recycler recycler = rowPool != null ? rowPool.createRecycler() : null;
+			boolean toFile = outputToFile;
+			final List<RowChunkBuffer> buffers = new ArrayList<>();
+			RowChunkBuffer tableBuffer = null;
+			RowChunkBuffer[] writerBuffers = null;
+			RowChunkBuffer fileBuffer = null;
+			if (outputToTable) {
+				if (writerQueues != null) {
+					writerBuffers = new RowChunkBuffer[writerQueues.size()];
+					for (int i = 0; i < writerBuffers.length; i++) {
+						writerBuffers[i] = createChunkBuffer(writerQueues.get(i), toFile, recycler);
+						buffers.add(writerBuffers[i]);
+					}
+				} else {
+					tableBuffer = createChunkBuffer(tableQueue, toFile, recycler);
+					buffers.add(tableBuffer);
 				}
-				if (outputToFile) {
-					if (writerBackupThread == null || writerBackupThread.isAlive() == false) {
-						if (outputToTable) {
-							warn("Backup process died. Switch off backup", null);
-							outputToFile = false;
-						} else {
-							throw new Exception(
-									"No output will work. The component is in backup only mode and the backup thread is not started or dead. Stop processing.");
-						}
+			} else if (toFile) {
+				fileBuffer = createChunkBuffer(fileQueue, false, recycler);
+				buffers.add(fileBuffer);
+			} else if (sinks.isEmpty() == false) {
+				// the rows only go to the sinks
+				fileBuffer = new RowChunkBuffer(getSinkQueues(), queueChunkSize);
+				buffers.add(fileBuffer);
+			}
+			if (columnar) {
+				readColumnBatches(rs, countColumns, buffers, toFile);
+			}
+			final RowOutput output = new RowOutput(buffers, tableBuffer, writerBuffers, fileBuffer, toFile);
+			final RowProcessorStage stage = rowStage ? new RowProcessorStage(rowProcessorPool, processors, queueChunkSize, countRowProcessorThreads * 2, rowProcessorOrdered, output) : null;
+			while (columnar == false && rs.next()) {
+				final Object[] row = fillRow(rs, countColumns, recycler);
+				if (stage != null) {
+					// the processors run in the worker pool, the stage passes the rows to the output
+					stage.add(row);
+				} else {
+					if (valueRangeColumnIndex > 0) {
+						checkValueRange(row[valueRangeColumnIndex - 1]);
+					}
+					if (timeRangeColumnIndex > 0) {
+						checkTimeRange(row[timeRangeColumnIndex - 1]);
+					}
+					if (processors.length == 0) {
+						output.write(row);
 					} else {
-						fileQueue.put(row);
+						final Object[] processed = RowProcessorStage.process(processors, row);
+						if (processed != null) {
+							output.write(processed);
+						}
 					}
 				}
-				countRead++;
+				countRead.incrementAndGet();
 				if (Thread.currentThread().isInterrupted()) {
 					break;
 				}
@@ -403,10 +917,27 @@ public class TableTransfer {
 					info("Stop read thread because output error detected");
 					break;
 				}
+				if (partition != null && returnCode == RETURN_CODE_ERROR_INPUT) {
+					info("Stop read thread for " + partition + " because another reader failed");
+					break;
+				}
+			}
+			if (returnCode != RETURN_CODE_ERROR_OUTPUT && Thread.currentThread().isInterrupted() == false) {
+				if (stage != null) {
+					stage.finish();
+				}
+				// send the rows of the incomplete chunks
+				for (RowChunkBuffer b : buffers) {
+					b.flush();
+				}
 			}
 			rs.close();
 			if (isDebugEnabled()) {
-				debug("Finished fetch data from source, count read:" + countRead);
+				if (partition != null) {
+					debug("Finished fetch data from source " + partition + ", count read:" + countRead);
+				} else {
+					debug("Finished fetch data from source, count read:" + countRead);
+				}
 			}
 		} catch (SQLException e) {
 			String message = e.getMessage();
@@ -434,109 +965,562 @@ public class TableTransfer {
 					// intentionally empty
 				}
 			}
-			try {
-				if (outputToTable) {
-					info("Stopping write table thread...");
-					tableQueue.put(closeFlag);
+			final boolean lastReader;
+			synchronized (writerLock) {
+				// the autotuner does not add writers after the last reader has finished
+				lastReader = countActiveReaders.decrementAndGet() == 0;
+			}
+			// only the last reader sends the close flag
+			if (lastReader) {
+				if (rowProcessorPool != null) {
+					rowProcessorPool.shutdownNow();
 				}
-				if (outputToFile) {
-					info("Stopping write file thread...");
-					fileQueue.put(closeFlag);
+				try {
+					if (outputToTable) {
+						info("Stopping write table thread...");
+						if (writerQueues != null) {
+							for (RowChunkQueue queue : writerQueues) {
+								queue.put(closeFlag);
+							}
+						} else {
+							tableQueue.put(closeFlag);
+						}
+					}
+					if (outputToFile && (ringBuffer == null || outputToTable == false)) {
+						info("Stopping write file thread...");
+						fileQueue.put(closeFlag);
+					}
+					for (TableTransfer sink : sinks) {
+						// also detached sinks take the flag to stop draining their queue
+						sink.tableQueue.put(sink.closeFlag);
+					}
+				} catch (InterruptedException e) {
+					error("read interrupted (send close flag)", e);
+					returnCode = RETURN_CODE_ERROR_INPUT;
 				}
-			} catch (InterruptedException e) {
-				error("read interrupted (send close flag)", e);
-				returnCode = RETURN_CODE_ERROR_INPUT;
 			}
 			try {
-				if (sourceConnection.getAutoCommit() == false) {
-					sourceConnection.commit();
+				if (connection != null && connection.getAutoCommit() == false) {
+					connection.commit();
+				}
+				if (statement != null) {
+					statement.close();
 				}
-				sourceSelectStatement.close();
 			} catch (SQLException e) {
 			}
+			if (ownConnection && connection != null) {
+				try {
+					connection.close();
+				} catch (SQLException e) {
+					warn("Close source connection for " + partition + " failed: " + e.getMessage(), e);
+				}
+			}
 		}
 		if (isDebugEnabled()) {
 			debug("End read.");
 		}
 	}
 
-	private final Object[] fillRow(ResultSet rs, int countDBColumns) throws SQLException {
-		String dbType = null;
-		String javaType = null;
-		final Object[] row = new Object[countDBColumns + fixedColumnValueList.size()];
-		int columnIndex = 0;
-		while (columnIndex < countDBColumns) {
-			dbType = listSourceFieldTypeNames.get(columnIndex);
-			if (dbType != null) {
-				javaType = dbJavaTypeMap.get(dbType);
-			} else {
-				javaType = null;
+	/**
+	 * registers the source fields of the query. 
+	 * In case of partitioned reading only the first reader does the work.
+	 * @param rsMeta
+	 * @return count columns of the query
+	 * @throws Exception
+	 */
+	private synchronized int setupSourceFields(ResultSetMetaData rsMeta) throws Exception {
+		final int countColumns = rsMeta.getColumnCount();
+		if (sourceFieldsInitialized) {
+			return countColumns;
+		}
+		listSourceFieldNames = new ArrayList<String>(countColumns);
+		listSourceFieldTypeNames = new ArrayList<String>(countColumns);
+		// register field names from query
+		for (int i = 1; i <= countColumns; i++) {
+			String name = rsMeta.getColumnLabel(i);
+			if (name == null) {
+				name = rsMeta.getColumnName(i);
 			}
-			try {
-				if (javaType == null) {
-					if (trimFields) {
-						final Object v = rs.getObject(columnIndex + 1);
-						row[columnIndex] = v instanceof String ? ((String) v).trim() : v;
-					} else {
-						row[columnIndex] = rs.getObject(columnIndex + 1);
-					}
-				} else if ("time".equalsIgnoreCase(javaType)) {
-					row[columnIndex] = rs.getTime(columnIndex + 1);
-				} else if ("timestamp".equalsIgnoreCase(javaType)) {
-					row[columnIndex] = rs.getTimestamp(columnIndex + 1);
-				} else if ("date".equalsIgnoreCase(javaType)) {
-					row[columnIndex] = rs.getDate(columnIndex + 1);
-				} else if ("string".equalsIgnoreCase(javaType)) {
-					String s = rs.getString(columnIndex + 1);
-					if (trimFields && s != null) {
-						s = s.trim();
-					}
-					if (stripNoneUTF8Characters) {
-						s = DBHelper.stripNoneUTF8(s);
-					}
-					row[columnIndex] = s;
-				} else if ("boolean".equalsIgnoreCase(javaType)) {
-					row[columnIndex] = rs.getBoolean(columnIndex + 1);
-				} else if ("integer".equalsIgnoreCase(javaType)) {
-					row[columnIndex] = rs.getInt(columnIndex + 1);
-				} else if ("long".equalsIgnoreCase(javaType)) {
-					row[columnIndex] = rs.getLong(columnIndex + 1);
-				} else if ("bigdecimal".equalsIgnoreCase(javaType)) {
-					row[columnIndex] = rs.getBigDecimal(columnIndex + 1);
-				} else if ("double".equalsIgnoreCase(javaType)) {
-					row[columnIndex] = rs.getDouble(columnIndex + 1);
-				} else if ("short".equalsIgnoreCase(javaType)) {
-					row[columnIndex] = rs.getShort(columnIndex + 1);
-				} else if ("biginteger".equalsIgnoreCase(javaType)) {
-					row[columnIndex] = new BigInteger(rs.getString(columnIndex + 1));
-				} else if ("float".equalsIgnoreCase(javaType)) {
-					row[columnIndex] = rs.getFloat(columnIndex + 1);
-				} else if ("byte".equalsIgnoreCase(javaType)) {
-					row[columnIndex] = rs.getByte(columnIndex + 1);
-				} else {
-					row[columnIndex] = rs.getObject(columnIndex + 1);
-				}
-			} catch (SQLException e) {
-				if (setZeroDateToNull && e.getMessage().toLowerCase().contains("zero")) {
-					row[columnIndex] = null;
-				} else {
-					if (ignoreReadFieldErrors == false) {
-						throw e;
-					} else {
-						warn("Ignore database error while reading field with index: " + columnIndex + " in row: "
-								+ countRead + " message: " + e.getMessage(), null);
-						row[columnIndex] = null;
-					}
-				}
+			if (name == null) {
+				throw new Exception(
+						"Cannot retrieve column name or label from " + i + ". column of the query: " + sourceQuery);
+			}
+			name = name.toLowerCase();
+			if (name.equalsIgnoreCase(valueRangeColumn)) {
+				valueRangeColumnIndex = i;
+				if (isDebugEnabled()) {
+					debug("Collect min/max for value-range from column: " + name + " at index: "
+							+ valueRangeColumnIndex);
+				}
+			} else if (name.equalsIgnoreCase(timeRangeColumn)) {
+				timeRangeColumnIndex = i;
+				if (isDebugEnabled()) {
+					debug("Collect min/max for time-range from column: " + name + " at index: "
+							+ timeRangeColumnIndex);
+				}
+			}
+			listSourceFieldNames.add(name);
+			final String type = rsMeta.getColumnTypeName(i).toUpperCase();
+			listSourceFieldTypeNames.add(type);
+			if (isDebugEnabled()) {
+				debug("Name: " + name + ",  Type: " + type);
 			}
-			columnIndex++;
 		}
+		setupColumnReaders(countColumns);
+		if (columnar) {
+			setupColumnBatchTypes(rsMeta, countColumns);
+		}
+		// register fixed column value names
 		for (ColumnValue cv : fixedColumnValueList) {
-			row[columnIndex++] = cv.getValue();
+			listSourceFieldNames.add(cv.getColumnName().toLowerCase());
+			if (isDebugEnabled()) {
+				debug("Name: " + cv.getColumnName());
+			}
+		}
+		if (routingKeyNames != null) {
+			setupRoutingKey();
+		}
+		if (isDebugEnabled()) {
+			debug("Start fetching data...");
+		}
+		for (TableTransfer sink : sinks) {
+			// the sinks map their target columns to the rows of this source
+			sink.listSourceFieldNames = listSourceFieldNames;
+			sink.listSourceFieldTypeNames = listSourceFieldTypeNames;
+			sink.sourceFieldsInitialized = true;
+			sink.startTime = System.currentTimeMillis();
+		}
+		startTime = System.currentTimeMillis();
+		sourceFieldsInitialized = true;
+		return countColumns;
+	}
+
+	private void setupRoutingKey() throws Exception {
+		routingKeySourceIndexes = new int[routingKeyNames.size()];
+		for (int i = 0; i < routingKeySourceIndexes.length; i++) {
+			final String name = routingKeyNames.get(i);
+			routingKeySourceIndexes[i] = getIndexInSourceFieldList(name);
+			if (routingKeySourceIndexes[i] == -1) {
+				throw new Exception("Key column: " + name + " used to route the rows to the writers is not available in the source.");
+			}
+		}
+		if (isDebugEnabled()) {
+			debug("Route rows to the writers by key columns: " + routingKeyNames);
+		}
+	}
+
+	/**
+	 * rows with the same key always goes to the same writer
+	 * @param row
+	 * @return the index of the writer
+	 */
+	private int getWriterIndexForKey(Object[] row) {
+		return getWriterIndex(row, routingKeySourceIndexes, writerQueues.size());
+	}
+
+	/**
+	 * @param row
+	 * @param keyIndexes indexes of the key values in the row
+	 * @param countWriters
+	 * @return the index of the writer for the key values of the row
+	 */
+	static int getWriterIndex(Object[] row, int[] keyIndexes, int countWriters) {
+		int hash = 1;
+		for (int i = 0; i < keyIndexes.length; i++) {
+			final Object value = row[keyIndexes[i]];
+			hash = 31 * hash + getKeyHashCode(value);
+		}
+		// spread the bits because the hash codes of numbers are often sequential
+		hash ^= (hash >>> 16);
+		return (hash & 0x7fffffff) % countWriters;
+	}
+
+	/**
+	 * equal key values must have the same hash code
+	 * @param value
+	 * @return hash code
+	 */
+	static int getKeyHashCode(Object value) {
+		if (value == null) {
+			return 0;
+		} else if (value instanceof byte[]) {
+			return Arrays.hashCode((byte[]) value);
+		} else if (value instanceof BigDecimal) {
+			// 1.0 and 1.00 are the same key
+			return ((BigDecimal) value).stripTrailingZeros().hashCode();
+		} else {
+			return value.hashCode();
+		}
+	}
+
+	/**
+	 * Passes the rows of one reader to the chunk buffers of the writers.
+	 */
+	private final class RowOutput implements RowProcessorStage.RowSink {
+
+		private final List<RowChunkBuffer> buffers;
+		private final RowChunkBuffer tableBuffer;
+		private final RowChunkBuffer[] writerBuffers;
+		private final RowChunkBuffer fileBuffer;
+		private boolean toFile;
+		private int countDetachedSinks = 0;
+
+		private RowOutput(List<RowChunkBuffer> buffers, RowChunkBuffer tableBuffer, RowChunkBuffer[] writerBuffers, RowChunkBuffer fileBuffer, boolean toFile) {
+			this.buffers = buffers;
+			this.tableBuffer = tableBuffer;
+			this.writerBuffers = writerBuffers;
+			this.fileBuffer = fileBuffer;
+			this.toFile = toFile;
+		}
+
+		@Override
+		public void write(Object[] row) throws Exception {
+			if (countDetachedSinks != TableTransfer.this.countDetachedSinks.get()) {
+				countDetachedSinks = detachSinks(buffers);
+			}
+			if (outputToTable) {
+				if (writerBuffers != null) {
+					writerBuffers[getWriterIndexForKey(row)].add(row);
+				} else {
+					tableBuffer.add(row);
+				}
+			}
+			if (toFile) {
+				toFile = checkBackupAlive(buffers);
+				if (toFile && fileBuffer != null) {
+					fileBuffer.add(row);
+				}
+			} else if (fileBuffer != null && outputToTable == false) {
+				// only sinks
+				fileBuffer.add(row);
+			}
+		}
+
+	}
+
+	private void setupColumnReaders(int countDBColumns) {
+		columnReaders = new ColumnReader[countDBColumns];
+		stringDictionaries = useStringDictionary ? new StringDictionary[countDBColumns] : null;
+		final List<Integer> stringColumns = new ArrayList<>();
+		for (int i = 0; i < countDBColumns; i++) {
+			final String dbType = listSourceFieldTypeNames.get(i);
+			final String javaType = dbType != null ? dbJavaTypeMap.get(dbType) : null;
+			if (rowStage) {
+				// trim, strip and the dictionary run in the row processor stage
+				columnReaders[i] = ColumnReader.create(javaType, false, false, setZeroDateToNull);
+			} else {
+				columnReaders[i] = ColumnReader.create(javaType, trimFields, stripNoneUTF8Characters, setZeroDateToNull);
+			}
+			if ("string".equalsIgnoreCase(javaType)) {
+				stringColumns.add(i);
+			}
+			if (useStringDictionary && (javaType == null || "string".equalsIgnoreCase(javaType))) {
+				stringDictionaries[i] = new StringDictionary(stringDictionaryMaxSize, STRING_DICTIONARY_SAMPLE_SIZE, STRING_DICTIONARY_MIN_HIT_RATE);
+				if (rowStage == false) {
+					columnReaders[i] = new ColumnReader.DictionaryReader(columnReaders[i], stringDictionaries[i]);
+				}
+			}
+			if (isDebugEnabled() && javaType != null) {
+				debug("Column #" + (i + 1) + " (" + dbType + ") read as: " + javaType);
+			}
+		}
+		setupRowProcessors(countDBColumns, stringColumns);
+	}
+
+	private void setupRowProcessors(int countDBColumns, List<Integer> stringColumns) {
+		final List<RowProcessor> list = new ArrayList<>();
+		if (rowStage) {
+			// the same order as in the reader without the stage
+			if (fixedColumnValueList.isEmpty() == false) {
+				list.add(new RowProcessor.FixedValueProcessor(countDBColumns, fixedColumnValueList));
+			}
+			if (trimFields) {
+				list.add(new RowProcessor.TrimProcessor(countDBColumns));
+			}
+			if (stripNoneUTF8Characters && stringColumns.isEmpty() == false) {
+				final int[] indexes = new int[stringColumns.size()];
+				for (int i = 0; i < indexes.length; i++) {
+					indexes[i] = stringColumns.get(i);
+				}
+				list.add(new RowProcessor.StripNoneUTF8Processor(indexes));
+			}
+			if (stringDictionaries != null) {
+				list.add(new RowProcessor.DictionaryProcessor(stringDictionaries));
+			}
+			if (valueRangeColumnIndex > 0 || timeRangeColumnIndex > 0) {
+				list.add(new RowProcessor() {
+
+					@Override
+					public Object[] process(Object[] row) {
+						if (valueRangeColumnIndex > 0) {
+							checkValueRange(row[valueRangeColumnIndex - 1]);
+						}
+						if (timeRangeColumnIndex > 0) {
+							checkTimeRange(row[timeRangeColumnIndex - 1]);
+						}
+						return row;
+					}
+
+				});
+			}
+		}
+		list.addAll(rowProcessors);
+		processors = list.toArray(new RowProcessor[list.size()]);
+	}
+
+	private RowChunkBuffer createChunkBuffer(RowChunkQueue queue, boolean withFile, RowPool.Recycler recycler) {
+		final List<RowChunkQueue> queues = new ArrayList<>();
+		queues.add(queue);
+		if (withFile && ringBuffer == null) {
+			queues.add(fileQueue);
+		}
+		// with the ring buffer the file writer reads the chunks with its own cursor
+		for (RowChunkQueue sinkQueue : getSinkQueues()) {
+			queues.add(sinkQueue);
+		}
+		final RowChunkBuffer buffer = new RowChunkBuffer(queues.toArray(new RowChunkQueue[queues.size()]), queueChunkSize);
+		if (recycler != null) {
+			buffer.setRowPool(recycler, withFile ? 2 : 1);
+		}
+		if (slabPool != null) {
+			buffer.setSlabPool(slabPool, withFile ? 2 : 1);
+		}
+		if (memoryBudget != null) {
+			int consumers = queue == fileQueue ? MemoryBudget.CONSUMER_FILE : MemoryBudget.CONSUMER_TABLE;
+			if (withFile) {
+				consumers |= MemoryBudget.CONSUMER_FILE;
+			}
+			buffer.setMemoryBudget(memoryBudget, consumers);
+		}
+		return buffer;
+	}
+
+	private RowChunkQueue createChunkQueue(int capacity, String name) {
+		if (spillToDisk) {
+			final File dir = new File(spillDirectory != null ? spillDirectory : System.getProperty("java.io.tmpdir"));
+			final String prefix = "tabletransfer_" + Integer.toHexString(System.identityHashCode(this)) + "_" + name;
+			final SpillRowChunkQueue queue = new SpillRowChunkQueue(capacity, dir, prefix, SPILL_SEGMENT_BYTES, closeFlag, new SpillRowChunkQueue.SpillListener() {
+				
+				@Override
+				public void spilled(Object[][] chunk) {
+					// the consumer gets a copy of the spilled chunk and never releases the original
+					releaseChunk(chunk);
+				}
+				
+			});
+			spillQueues.add(queue);
+			return queue;
+		} else {
+			return new ArrayRowChunkQueue(capacity);
+		}
+	}
+
+	private void disposeQueue(RowChunkQueue queue) {
+		if (queue instanceof TransferAutoTuner.TimedQueue) {
+			queue = ((TransferAutoTuner.TimedQueue) queue).getQueue();
+		}
+		if (queue instanceof SpillRowChunkQueue) {
+			((SpillRowChunkQueue) queue).dispose();
+		}
+	}
+
+	private final Object[] fillRow(ResultSet rs, int countDBColumns, RowPool.Recycler recycler) throws SQLException {
+		final ColumnReader[] readers = columnReaders;
+		final int width = countDBColumns + fixedColumnValueList.size();
+		final Object[] row = recycler != null ? recycler.nextRow(width) : new Object[width];
+		int columnIndex = 0;
+		while (columnIndex < countDBColumns) {
+			try {
+				row[columnIndex] = readers[columnIndex].read(rs, columnIndex + 1);
+			} catch (SQLException e) {
+				if (ignoreReadFieldErrors == false) {
+					throw e;
+				} else {
+					warn("Ignore database error while reading field with index: " + columnIndex + " in row: "
+							+ countRead + " message: " + e.getMessage(), null);
+					row[columnIndex] = null;
+				}
+			}
+			columnIndex++;
+		}
+		if (rowStage == false) {
+			for (ColumnValue cv : fixedColumnValueList) {
+				row[columnIndex++] = cv.getValue();
+			}
 		}
 		return row;
 	}
 
+	/**
+	 * checks if the backup thread is still alive and switches off the backup if not
+	 * @param buffers the buffers of the reader
+	 * @return true if the rows still go into the file
+	 * @throws Exception if there is no other output
+	 */
+	private boolean checkBackupAlive(List<RowChunkBuffer> buffers) throws Exception {
+		if (writerBackupThread == null || writerBackupThread.isAlive() == false) {
+			if (outputToTable) {
+				warn("Backup process died. Switch off backup", null);
+				outputToFile = false;
+				for (RowChunkBuffer b : buffers) {
+					b.removeConsumer(fileQueue);
+				}
+				return false;
+			} else {
+				throw new Exception(
+						"No output will work. The component is in backup only mode and the backup thread is not started or dead. Stop processing.");
+			}
+		}
+		return true;
+	}
+
+	private void setupColumnBatchTypes(ResultSetMetaData rsMeta, int countDBColumns) throws SQLException {
+		columnBatchTypes = new int[countDBColumns + fixedColumnValueList.size()];
+		for (int i = 0; i < countDBColumns; i++) {
+			final String dbType = listSourceFieldTypeNames.get(i);
+			final String javaType = dbType != null ? dbJavaTypeMap.get(dbType) : null;
+			int type = ColumnBatch.TYPE_OBJECT;
+			if (javaType != null) {
+				if ("integer".equalsIgnoreCase(javaType)) {
+					type = ColumnBatch.TYPE_INT;
+				} else if ("long".equalsIgnoreCase(javaType)) {
+					type = ColumnBatch.TYPE_LONG;
+				} else if ("double".equalsIgnoreCase(javaType)) {
+					type = ColumnBatch.TYPE_DOUBLE;
+				}
+			} else {
+				// only types where getObject returns the same class as the primitive getter
+				final int sqlType = rsMeta.getColumnType(i + 1);
+				if (sqlType == Types.INTEGER) {
+					type = rsMeta.isSigned(i + 1) ? ColumnBatch.TYPE_INT : ColumnBatch.TYPE_LONG;
+				} else if (sqlType == Types.BIGINT && rsMeta.isSigned(i + 1)) {
+					type = ColumnBatch.TYPE_LONG;
+				} else if (sqlType == Types.DOUBLE) {
+					// not FLOAT, getObject returns BigDecimal for some databases (e.g. Oracle)
+					type = ColumnBatch.TYPE_DOUBLE;
+				}
+			}
+			columnBatchTypes[i] = type;
+			if (isDebugEnabled() && type != ColumnBatch.TYPE_OBJECT) {
+				debug("Column #" + (i + 1) + " (" + dbType + ") read into primitive vector type: " + type);
+			}
+		}
+	}
+
+	private ColumnBatch nextColumnBatch() {
+		Object[][] free = null;
+		while ((free = rowPool.pollFreeChunk()) != null) {
+			// spilled batches come back as rows
+			final ColumnBatch batch = ColumnBatch.fromChunk(free);
+			if (batch != null) {
+				batch.clear();
+				return batch;
+			}
+		}
+		return new ColumnBatch(columnBatchTypes, queueChunkSize);
+	}
+
+	/**
+	 * reads the rows into column batches. The batches are published by the first buffer.
+	 * @param rs the result set
+	 * @param countColumns count columns of the result set
+	 * @param buffers the buffers of the reader
+	 * @param toFile true if the rows goes into the file
+	 * @throws Exception
+	 */
+	private void readColumnBatches(ResultSet rs, int countColumns, List<RowChunkBuffer> buffers, boolean toFile) throws Exception {
+		final ColumnReader[] readers = columnReaders;
+		final int[] types = columnBatchTypes;
+		final RowChunkBuffer buffer = buffers.get(0);
+		ColumnBatch batch = nextColumnBatch();
+		while (rs.next()) {
+			final int r = batch.addRow();
+			for (int c = 0; c < countColumns; c++) {
+				try {
+					switch (types[c]) {
+					case ColumnBatch.TYPE_LONG:
+						final long lv = rs.getLong(c + 1);
+						if (rs.wasNull()) {
+							batch.setNull(c, r);
+						} else {
+							batch.setLong(c, r, lv);
+						}
+						break;
+					case ColumnBatch.TYPE_INT:
+						final int iv = rs.getInt(c + 1);
+						if (rs.wasNull()) {
+							batch.setNull(c, r);
+						} else {
+							batch.setInt(c, r, iv);
+						}
+						break;
+					case ColumnBatch.TYPE_DOUBLE:
+						final double dv = rs.getDouble(c + 1);
+						if (rs.wasNull()) {
+							batch.setNull(c, r);
+						} else {
+							batch.setDouble(c, r, dv);
+						}
+						break;
+					default:
+						final Object v = readers[c].read(rs, c + 1);
+						if (v == null) {
+							batch.setNull(c, r);
+						} else {
+							batch.setObject(c, r, v);
+						}
+					}
+				} catch (SQLException e) {
+					if (ignoreReadFieldErrors == false) {
+						throw e;
+					} else {
+						warn("Ignore database error while reading field with index: " + c + " in row: "
+								+ countRead + " message: " + e.getMessage(), null);
+						batch.setNull(c, r);
+					}
+				}
+			}
+			int c = countColumns;
+			for (ColumnValue cv : fixedColumnValueList) {
+				final Object v = cv.getValue();
+				if (v == null) {
+					batch.setNull(c, r);
+				} else {
+					batch.setObject(c, r, v);
+				}
+				c++;
+			}
+			if (valueRangeColumnIndex > 0) {
+				checkValueRange(batch.getValue(valueRangeColumnIndex - 1, r));
+			}
+			if (timeRangeColumnIndex > 0) {
+				checkTimeRange(batch.getValue(timeRangeColumnIndex - 1, r));
+			}
+			countRead.incrementAndGet();
+			if (batch.isFull()) {
+				if (toFile) {
+					toFile = checkBackupAlive(buffers);
+				}
+				buffer.putChunk(batch.getChunk());
+				batch = nextColumnBatch();
+			}
+			if (Thread.currentThread().isInterrupted()) {
+				break;
+			}
+			if (returnCode == RETURN_CODE_ERROR_OUTPUT) {
+				info("Stop read thread because output error detected");
+				break;
+			}
+			if (returnCode == RETURN_CODE_ERROR_INPUT) {
+				info("Stop read thread because another reader failed");
+				break;
+			}
+		}
+		if (batch.getCountRows() > 0 && returnCode != RETURN_CODE_ERROR_OUTPUT && Thread.currentThread().isInterrupted() == false) {
+			buffer.putChunk(batch.getChunk());
+		}
+	}
+
 	public void executeKeepAliveStatementForTargetConnection() throws Exception {
 		if (withinWriteAction == false 
 				&& checkConnectionStatement != null
@@ -554,80 +1538,143 @@ public class TableTransfer {
 		}
 	}
 
-	private final void writeTable() {
+	/**
+	 * creates the writer used to write the rows into the target table
+	 * @param connection the target connection
+	 * @param batchSize the configured batch size
+	 * @return the writer
+	 * @throws Exception
+	 */
+	protected TableWriter createTableWriter(Connection connection, int batchSize) throws Exception {
+		if (insertRowsPerStatement > 1 && runOnlyUpdates == false) {
+			return new MultiRowInsertWriter(this, connection, batchSize, insertRowsPerStatement);
+		}
+		return new PreparedStatementWriter(this, connection, batchSize);
+	}
+
+	/**
+	 * writes the rows from the table queue into the target table
+	 * @param connection the connection of this writer
+	 * @param writerIndex the index of the writer, the first writer uses the target connection
+	 * @param queue the queue of this writer
+	 */
+	private final void writeTable(final Connection connection, final int writerIndex, final RowChunkQueue queue) {
+		final String writerName = countWriters > 1 || autoTuner != null ? "Write table thread #" + writerIndex : "Write table thread";
 		if (isDebugEnabled()) {
-			debug("Start writing data into target table " + getTargetTableAsGiven());
+			debug(writerName + ": Start writing data into target table " + getTargetTableAsGiven());
 		}
-		final int batchSize = Integer.parseInt(properties.getProperty(TARGET_BATCHSIZE, "1"));
+		final boolean isMainConnection = connection == targetConnection;
+		int batchSize = Integer.parseInt(properties.getProperty(TARGET_BATCHSIZE, "1"));
 		int currentBatchCount = 0;
+		int countAdded = 0;
+		boolean failed = false;
+		TableWriter writer = null;
+		// the writers may keep the rows until the batch is executed
+		final List<Object[][]> chunksInBatch = new ArrayList<>();
 		try {
 			boolean autocommitTemp = false;
 			try {
-				if (targetConnection == null) {
+				if (connection == null) {
 					throw new Exception("Write into table: " + getTargetTableAsGiven()
 							+ " failed because target connection is null");
 				}
-				if (targetConnection.isClosed()) {
+				if (connection.isClosed()) {
 					throw new Exception("Write into table: " + getTargetTableAsGiven()
 							+ " failed because target connection is closed");
 				}
-				autocommitTemp = targetConnection.getAutoCommit();
+				autocommitTemp = connection.getAutoCommit();
 			} catch (Exception e2) {
 				warn("Failed to detect autocommit state: " + e2.getMessage(), e2);
 			}
 			final boolean autocommit = autocommitTemp;
+			boolean prepared = false;
 			boolean endFlagReceived = false;
 			while (endFlagReceived == false) {
+				if (takeRetirement()) {
+					// the rows of the current batch will be written and committed after the loop
+					info(writerName + ": Removed by autotune.");
+					break;
+				}
 				try {
-					final List<Object> queueObjects = new ArrayList<>(batchSize);
-					withinWriteAction = false;
-					// poll waits for a time until new records arrives
-					final Object one = tableQueue.poll(10000, TimeUnit.MILLISECONDS);
-					if (one == null) {
+					if (writer == null) {
+						writer = createTableWriter(connection, batchSize);
+						batchSize = writer.getBatchSize();
+					}
+					if (isMainConnection) {
+						withinWriteAction = false;
+					}
+					// poll waits for a time until a new chunk of records arrives
+					final Object[][] chunk = queue.poll(10000, TimeUnit.MILLISECONDS);
+					if (chunk == null) {
 						continue;
-					} else {
-						// because poll removes already the one object
-						// we have to add it here
-						queueObjects.add(one);
+					} else if (chunk == closeFlag) {
+						info(writerName + ": Stop flag received.");
+						if ((countWriters > 1 || autoTuner != null) && writerQueues == null) {
+							// pass the close flag to the next writer of the shared queue
+							queue.put(closeFlag);
+						}
+						endFlagReceived = true;
+						break;
 					}
-					// drain never waits! Thats why we have to use poll before!
-					// here we get the rest of all objects from the queue
-					tableQueue.drainTo(queueObjects, batchSize); // pull elements from queue to this given list
-					for (Object item : queueObjects) {
-						if (item == closeFlag) {
-							info("Write table thread: Stop flag received.");
-							endFlagReceived = true;
-							break;
+					if (memoryBudget != null) {
+						memoryBudget.release(chunk, MemoryBudget.CONSUMER_TABLE);
+					}
+					if (isMainConnection) {
+						withinWriteAction = true;
+					}
+					final ColumnBatch columnBatch = ColumnBatch.fromChunk(chunk);
+					final RowSlab.Reader slabReader = openSlabReader(chunk);
+					final int countRows = columnBatch != null ? columnBatch.getCountRows() : (slabReader != null ? slabReader.getCountRows() : chunk.length);
+					for (int r = 0; r < countRows; r++) {
+						if (prepared == false) {
+							// the writers share the target statement and the parameter binding
+							synchronized (this) {
+								writer.prepare();
+							}
+							prepared = true;
+						}
+						if (columnBatch != null) {
+							writer.addRow(columnBatch, r);
+						} else if (slabReader != null) {
+							// decode the row while binding
+							writer.addRow(slabReader.next());
 						} else {
-							withinWriteAction = true;
-							if (targetSQLStatement == null) {
-								targetPreparedStatement = createTargetStatement();
+							writer.addRow(chunk[r]);
+						}
+						countAdded++;
+						currentBatchCount++;
+						if (currentBatchCount == batchSize) {
+							if (isDebugEnabled()) {
+								debug(writerName + ": Write execute insert batch ends with recno: " + countAdded);
 							}
-							prepareInsertStatement((Object[]) item);
-							targetPreparedStatement.addBatch();
-							countInsertsAdded++;
-							currentBatchCount++;
-							if (currentBatchCount == batchSize) {
-								if (isDebugEnabled()) {
-									debug("Write execute insert batch ends with recno: " + countInsertsAdded);
-								}
-								targetPreparedStatement.executeBatch();
-								countInsertsInDB = countInsertsAdded;
-								if (doCommit && autocommit == false) {
-									targetConnection.commit();
-								}
-								currentBatchCount = 0;
+							writer.executeBatch();
+							countInsertsInDB.addAndGet(currentBatchCount);
+							if (doCommit && autocommit == false) {
+								connection.commit();
 							}
+							currentBatchCount = 0;
+							releaseChunks(chunksInBatch);
 						}
 						if (Thread.currentThread().isInterrupted()) {
 							break;
 						}
 					}
+					if (slabReader != null) {
+						// the writer got decoded copies of the rows
+						releaseChunk(chunk);
+					} else if (rowPool != null) {
+						chunksInBatch.add(chunk);
+					}
+					if (returnCode == RETURN_CODE_ERROR_OUTPUT && dieOnError) {
+						info(writerName + ": Stop because another writer failed");
+						failed = true;
+						break;
+					}
 				} catch (InterruptedException e) {
 					returnCode = RETURN_CODE_ERROR_OUTPUT;
+					failed = true;
 					break;
 				} catch (SQLException sqle) {
-					runningDb = false;
 					if (sqle instanceof BatchUpdateException) {
 						final BatchUpdateException be = (BatchUpdateException) sqle;
 						final int[] counts = be.getUpdateCounts();
@@ -635,13 +1682,13 @@ public class TableTransfer {
 						for (int c : counts) {
 							overallIndex += c;
 						}
-						overallIndex += (countInsertsAdded - batchSize); // set the batchIndex as the
-																						// absolute over all index
-						error("Write into table: " + getTargetTableAsGiven() + " failed in line number " + overallIndex
+						overallIndex += (countAdded - batchSize); // set the batchIndex as the
+																		// absolute index within this writer
+						error(writerName + ": Write into table: " + getTargetTableAsGiven() + " failed in line number " + overallIndex
 								+ " message:" + sqle.getMessage(), sqle);
 					} else {
-						error("Write into table: " + getTargetTableAsGiven() + " failed in line number "
-								+ countInsertsAdded + " message:" + sqle.getMessage(), sqle);
+						error(writerName + ": Write into table: " + getTargetTableAsGiven() + " failed in line number "
+								+ countAdded + " message:" + sqle.getMessage(), sqle);
 					}
 					final SQLException ne = sqle.getNextException();
 					if (ne != null) {
@@ -649,19 +1696,23 @@ public class TableTransfer {
 					}
 					returnCode = RETURN_CODE_ERROR_OUTPUT;
 					if (dieOnError) {
+						failed = true;
 						try {
 							if (autocommit == false) {
-								targetConnection.rollback();
+								connection.rollback();
 							}
 						} catch (SQLException e) {
 							error("Write rollback failed: " + e.getMessage(), e);
 						}
 						break;
 					} else {
+						currentBatchCount = 0;
+						// the writer could still refer the rows of the failed batch
+						chunksInBatch.clear();
 						if (doCommit) {
 							try {
 								if (autocommit == false) {
-									targetConnection.commit();
+									connection.commit();
 								}
 							} catch (SQLException e) {
 								error("Write into table: " + getTargetTableAsGiven() + " commit failed: "
@@ -670,69 +1721,393 @@ public class TableTransfer {
 						}
 					}
 				} catch (Exception e1) {
-					runningDb = false;
+					failed = true;
 					returnCode = RETURN_CODE_ERROR_OUTPUT;
-					error("Write into table: " + getTargetTableAsGiven() + " latest line number before batch-execute: "
-							+ countInsertsAdded + " failed: " + e1.getMessage(), e1);
+					error(writerName + ": Write into table: " + getTargetTableAsGiven() + " latest line number before batch-execute: "
+							+ countAdded + " failed: " + e1.getMessage(), e1);
 					break;
 				}
 			}
-			if (currentBatchCount > 0 && returnCode != RETURN_CODE_ERROR_OUTPUT) {
+			if (currentBatchCount > 0 && failed == false) {
 				// the batch has still some cached records and must send to the database
 				// and we do not have problems with the target database yet
 				try {
 					if (isDebugEnabled()) {
-						debug("write execute final insert batch");
+						debug(writerName + ": write execute final insert batch");
 					}
-					targetPreparedStatement.executeBatch();
-					countInsertsInDB += currentBatchCount;
+					writer.executeBatch();
+					countInsertsInDB.addAndGet(currentBatchCount);
 					if (doCommit && autocommit == false) {
-						targetConnection.commit();
+						connection.commit();
 					}
 					currentBatchCount = 0;
-				} catch (SQLException sqle) {
+					releaseChunks(chunksInBatch);
+				} catch (Exception e) {
+					failed = true;
 					returnCode = RETURN_CODE_ERROR_OUTPUT;
-					if (sqle instanceof BatchUpdateException) {
-						final BatchUpdateException be = (BatchUpdateException) sqle;
+					if (e instanceof BatchUpdateException) {
+						final BatchUpdateException be = (BatchUpdateException) e;
 						final int[] counts = be.getUpdateCounts();
 						int overallIndex = 0;
 						for (int c : counts) {
 							overallIndex += c;
 						}
-						overallIndex += (countInsertsAdded - batchSize);
-						error("Write into table: " + getTargetTableAsGiven() + " failed in line number " + overallIndex
-								+ " message: " + sqle.getMessage(), sqle);
+						overallIndex += (countAdded - currentBatchCount);
+						error(writerName + ": Write into table: " + getTargetTableAsGiven() + " failed in line number " + overallIndex
+								+ " message: " + e.getMessage(), e);
 					} else {
-						error("Write into table: " + getTargetTableAsGiven() + " failed in line number "
-								+ countInsertsAdded + " message: " + sqle.getMessage(), sqle);
+						error(writerName + ": Write into table: " + getTargetTableAsGiven() + " failed in line number "
+								+ countAdded + " message: " + e.getMessage(), e);
 					}
-					final SQLException ne = sqle.getNextException();
-					if (ne != null) {
-						error("Next exception:" + ne.getMessage(), ne);
+					if (e instanceof SQLException) {
+						final SQLException ne = ((SQLException) e).getNextException();
+						if (ne != null) {
+							error("Next exception:" + ne.getMessage(), ne);
+						}
+					}
+					try {
+						connection.rollback();
+					} catch (SQLException re) {
+						error("Write into table: " + getTargetTableAsGiven() + " rollback failed:" + re.getMessage(), re);
+					}
+				}
+			}
+		} finally {
+			if (queue instanceof RowRingBuffer.Cursor) {
+				// do not block the reader any longer
+				((RowRingBuffer.Cursor) queue).close();
+			}
+			if (writer != null) {
+				writer.close();
+			}
+			if (isMainConnection == false && connection != null) {
+				try {
+					connection.close();
+				} catch (SQLException e) {
+					// intentionally empty
+				}
+			}
+			if (isDebugEnabled()) {
+				debug(writerName + ": Finished write data into target table " + getTargetTableAsGiven() + ", count inserts: "
+						+ countAdded);
+			}
+		}
+		if (failed && dieOnError) {
+			// stops the readers and the other writers
+			runningDb = false;
+			stop();
+		}
+		if (failed && fanOutSource != null) {
+			fanOutSource.sinkFailed(this);
+			if (fanOutSource.detachFailingSinks) {
+				// the source may still wait for space in the queue
+				drainQueue(queue);
+			}
+		} else if (failed && dieOnError == false && writerQueues != null) {
+			// nobody else takes the rows routed to this writer
+			drainQueue(queue);
+		}
+		if (countActiveWriters.decrementAndGet() == 0) {
+			disposeQueue(tableQueue);
+			if (writerQueues != null) {
+				for (RowChunkQueue q : writerQueues) {
+					disposeQueue(q);
+				}
+			}
+			if (memoryBudget != null) {
+				// do not block the reader any longer
+				memoryBudget.removeConsumer(MemoryBudget.CONSUMER_TABLE);
+			}
+			runningDb = false;
+			info("Write into table: " + getTargetTableAsGiven() + " ended.");
+			stop();
+			checkCompleted();
+			if (fanOutSource != null) {
+				fanOutSource.checkCompleted();
+			}
+		}
+	}
+
+	/**
+	 * copies the rows from the source result set directly into the target statement without rows and queues.
+	 * With a target connection factory a second connection takes the next batch while the current batch is executed.
+	 */
+	private final void copyDirect() {
+		final int batchSize = Integer.parseInt(properties.getProperty(TARGET_BATCHSIZE, "1"));
+		final List<DirectBatch> batches = new ArrayList<>(2);
+		BoundedExecutor batchExecutor = null;
+		FutureTask<Void> pending = null;
+		ResultSet rs = null;
+		boolean writing = false;
+		try {
+			if (isDebugEnabled()) {
+				debug("Execute source query for direct copy: " + sourceQuery);
+			}
+			rs = sourceSelectStatement.executeQuery(sourceQuery);
+			final ResultSetMetaData rsMeta = rs.getMetaData();
+			setupSourceFields(rsMeta);
+			withinWriteAction = true;
+			batches.add(new DirectBatch(targetConnection));
+			if (targetConnectionFactory != null && doCommit) {
+				batches.add(new DirectBatch(targetConnectionFactory.createConnection()));
+				batchExecutor = createWorkerPool(1);
+			} else {
+				info("Direct copy without target connection factory or with an external commit executes the batches in the read thread.");
+			}
+			setupParameterBinding();
+			final int[] indexes = paramIndexes;
+			final int[] sourceIndexes = paramSourceIndexes;
+			final int[] nullTypes = paramNullTypes;
+			final ColumnCopier[] copiers = setupColumnCopiers(rsMeta);
+			int current = 0;
+			DirectBatch batch = batches.get(current);
+			while (rs.next()) {
+				final PreparedStatement ps = batch.statement;
+				for (int i = 0; i < indexes.length; i++) {
+					if (sourceIndexes[i] == -1) {
+						ps.setNull(indexes[i], nullTypes[i]);
+						continue;
 					}
 					try {
-						targetConnection.rollback();
+						copiers[i].read(rs, sourceIndexes[i] + 1);
 					} catch (SQLException e) {
-						error("Write into table: " + getTargetTableAsGiven() + " rollback failed:" + e.getMessage(), e);
+						if (ignoreReadFieldErrors == false) {
+							throw e;
+						} else {
+							warn("Ignore database error while reading field with index: " + sourceIndexes[i] + " in row: "
+									+ countRead + " message: " + e.getMessage(), null);
+							ps.setNull(indexes[i], nullTypes[i]);
+							continue;
+						}
+					}
+					try {
+						copiers[i].bind(ps, indexes[i], nullTypes[i]);
+					} catch (SQLException e) {
+						// the value cannot be written, this is never ignored
+						writing = true;
+						throw e;
 					}
 				}
+				ps.addBatch();
+				batch.countRows++;
+				countRead.incrementAndGet();
+				if (batch.countRows == batchSize) {
+					writing = true;
+					if (batchExecutor != null) {
+						// wait for the previous batch, the statement of the current batch is not used meanwhile
+						waitForDirectBatch(pending);
+						pending = new FutureTask<Void>(batch);
+						batchExecutor.execute(pending);
+						current = 1 - current;
+						batch = batches.get(current);
+					} else {
+						batch.call();
+					}
+					writing = false;
+				}
+				if (Thread.currentThread().isInterrupted()) {
+					throw new InterruptedException();
+				}
+			}
+			writing = true;
+			waitForDirectBatch(pending);
+			if (batch.countRows > 0) {
+				batch.call();
+			}
+			writing = false;
+			rs.close();
+			if (isDebugEnabled()) {
+				debug("Finished direct copy, count read: " + countRead + ", count inserts: " + countInsertsInDB);
+			}
+		} catch (InterruptedException ie) {
+			if (returnCode == RETURN_CODE_OK) {
+				returnCode = RETURN_CODE_ERROR_INPUT;
+			}
+			awaitDirectBatch(pending, ie);
+			rollbackDirectBatches(batches);
+		} catch (Exception e) {
+			String message = e.getMessage();
+			if (e instanceof SQLException && ((SQLException) e).getNextException() != null) {
+				message = message + "\nNext Exception:" + ((SQLException) e).getNextException().getMessage();
+			}
+			if (writing) {
+				error("Direct copy into table: " + getTargetTableAsGiven() + " failed before line number " + countRead + " message: " + message, e);
+				returnCode = RETURN_CODE_ERROR_OUTPUT;
+			} else {
+				error("Direct copy read failed in line number " + countRead + " message: " + message, e);
+				returnCode = RETURN_CODE_ERROR_INPUT;
+			}
+			awaitDirectBatch(pending, e);
+			rollbackDirectBatches(batches);
+		} finally {
+			if (batchExecutor != null) {
+				batchExecutor.shutdownNow();
+			}
+			for (DirectBatch b : batches) {
+				b.close();
+			}
+			if (rs != null) {
+				try {
+					rs.close();
+				} catch (Throwable t) {
+					// intentionally empty
+				}
+			}
+			withinWriteAction = false;
+			countActiveReaders.set(0);
+			runningDb = false;
+			info("Direct copy into table: " + getTargetTableAsGiven() + " ended.");
+			checkCompleted();
+		}
+	}
+
+	private ColumnCopier[] setupColumnCopiers(ResultSetMetaData rsMeta) throws SQLException {
+		final ColumnCopier[] copiers = new ColumnCopier[paramSourceIndexes.length];
+		for (int i = 0; i < copiers.length; i++) {
+			final int sourceIndex = paramSourceIndexes[i];
+			if (sourceIndex != -1) {
+				final String dbType = listSourceFieldTypeNames.get(sourceIndex);
+				final String javaType = dbType != null ? dbJavaTypeMap.get(dbType) : null;
+				copiers[i] = ColumnCopier.create(javaType, rsMeta.getColumnType(sourceIndex + 1), rsMeta.isSigned(sourceIndex + 1), trimFields, stripNoneUTF8Characters, setZeroDateToNull);
+				if (isDebugEnabled()) {
+					debug("Direct copy: column #" + (sourceIndex + 1) + " into parameter #" + paramIndexes[i] + " with " + copiers[i].getClass().getSimpleName());
+				}
+			}
+		}
+		return copiers;
+	}
+
+	private void waitForDirectBatch(Future<Void> pending) throws Exception {
+		if (pending != null) {
+			try {
+				pending.get();
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof Exception) {
+					throw (Exception) e.getCause();
+				}
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * waits until the batch executed in the background has been finished after the copy has been failed.
+	 * The rollback and the close must not run at the same time as the batch on the same connection.
+	 * @param pending
+	 * @param reported the exception already reported
+	 */
+	private void awaitDirectBatch(Future<Void> pending, Exception reported) {
+		if (pending != null) {
+			final boolean interrupted = Thread.interrupted();
+			try {
+				pending.get();
+			} catch (ExecutionException e) {
+				if (e.getCause() != reported) {
+					warn("Direct copy batch executed in the background failed too: " + e.getCause().getMessage(), null);
+				}
+			} catch (Exception e) {
+				// the batch has not been started
+			} finally {
+				if (interrupted) {
+					Thread.currentThread().interrupt();
+				}
 			}
-		} finally {
+		}
+	}
+
+	private void rollbackDirectBatches(List<DirectBatch> batches) {
+		for (DirectBatch b : batches) {
 			try {
-				if (targetPreparedStatement != null) {
-					targetPreparedStatement.close();
+				if (b.autocommit == false) {
+					b.connection.rollback();
 				}
 			} catch (SQLException e) {
+				error("Direct copy rollback failed: " + e.getMessage(), e);
 			}
-			runningDb = false;
+		}
+	}
+
+	/**
+	 * A batch of the direct copy with its own target statement and connection.
+	 */
+	private final class DirectBatch implements Callable<Void> {
+
+		private final Connection connection;
+		private final boolean autocommit;
+		private final PreparedStatement statement;
+		private int countRows = 0;
+
+		private DirectBatch(Connection connection) throws Exception {
+			if (connection == null || connection.isClosed()) {
+				throw new Exception("Direct copy into table: " + getTargetTableAsGiven() + " failed because target connection is null or closed");
+			}
+			this.connection = connection;
+			this.autocommit = connection.getAutoCommit();
+			this.statement = createTargetStatement(connection);
+		}
+
+		/**
+		 * executes and commits the batch
+		 */
+		@Override
+		public Void call() throws Exception {
 			if (isDebugEnabled()) {
-				debug("Finished write data into target table " + getTargetTableAsGiven() + ", count inserts: "
-						+ countInsertsInDB);
+				debug("Direct copy: execute batch with " + countRows + " rows");
+			}
+			statement.executeBatch();
+			countInsertsInDB.addAndGet(countRows);
+			countRows = 0;
+			if (doCommit && autocommit == false) {
+				connection.commit();
+			}
+			return null;
+		}
+
+		private void close() {
+			closeTargetStatement(statement);
+			if (connection != targetConnection) {
+				try {
+					connection.close();
+				} catch (SQLException e) {
+					// intentionally empty
+				}
+			}
+		}
+
+	}
+
+	private void releaseChunks(List<Object[][]> chunks) {
+		for (Object[][] chunk : chunks) {
+			releaseChunk(chunk);
+		}
+		chunks.clear();
+	}
+
+	/**
+	 * returns the chunk into its pool
+	 * @param chunk
+	 */
+	private void releaseChunk(Object[][] chunk) {
+		final RowSlab slab = slabPool != null ? RowSlab.fromChunk(chunk) : null;
+		if (slab != null) {
+			if (slabPool.releaseReference(chunk)) {
+				// the pooled slabs do not keep the peak size of a wide chunk
+				slab.shrink();
+				slabPool.recycle(chunk);
+			}
+		} else if (rowPool != null) {
+			rowPool.release(chunk);
+		}
+	}
+
+	private RowSlab.Reader openSlabReader(Object[][] chunk) {
+		if (slabPool != null) {
+			final RowSlab slab = RowSlab.fromChunk(chunk);
+			if (slab != null) {
+				return slab.openReader();
 			}
 		}
-		runningDb = false;
-		info("Write into table: " + getTargetTableAsGiven() + " ended.");
-		stop();
+		return null;
 	}
 
 	private int getIndexInSourceFieldList(String columnName) {
@@ -760,25 +2135,62 @@ public class TableTransfer {
 		if (index != -1) {
 			return row[index];
 		} else {
-			if (strictFieldMatching) {
-				// create human readable error message
-				final StringBuilder sb = new StringBuilder();
-				sb.append("Following target columns does not have a matching column in the source query: ");
-				boolean firstLoop = true;
+			checkMissingSourceField();
+			// otherwise simply use null
+			return null;
+		}
+	}
+
+	/**
+	 * Checks the field matching modes in case of a target column without source column
+	 * @throws Exception if the strict mode does not allow missing source fields
+	 */
+	private void checkMissingSourceField() throws Exception {
+		if (strictFieldMatching) {
+			// create human readable error message
+			final StringBuilder sb = new StringBuilder();
+			sb.append("Following target columns does not have a matching column in the source query: ");
+			boolean firstLoop = true;
+			for (SQLPSParam p : targetSQLStatement.getParams()) {
+				final String targetColumnName = p.getName().toLowerCase();
+				if (getIndexInSourceFieldList(targetColumnName) == -1) {
+					if (firstLoop) {
+						firstLoop = false;
+					} else {
+						sb.append(",");
+					}
+					sb.append(targetColumnName);
+				}
+			}
+			firstLoop = true;
+			sb.append("\nList of source query columns: ");
+			for (String sourceColumn : listSourceFieldNames) {
+				if (firstLoop) {
+					firstLoop = false;
+				} else {
+					sb.append(",");
+				}
+				sb.append(sourceColumn);
+			}
+			throw new Exception("Transfer into table: " + getTargetTableAsGiven() + " in all-strict-mode failed: "
+					+ sb.toString());
+		} else if (strictSourceFieldMatching) {
+			boolean inputFieldsWithoutTarget = false;
+			final StringBuilder sb = new StringBuilder();
+			sb.append("Following source query columns does not have a matching field in the targe table: ");
+			boolean firstLoop = true;
+			for (String sourceColumn : listSourceFieldNames) {
+				boolean found = false;
 				for (SQLPSParam p : targetSQLStatement.getParams()) {
 					final String targetColumnName = p.getName().toLowerCase();
-					if (getIndexInSourceFieldList(targetColumnName) == -1) {
-						if (firstLoop) {
-							firstLoop = false;
-						} else {
-							sb.append(",");
-						}
-						sb.append(targetColumnName);
+					if (cleanupColumnNameForMatching(sourceColumn)
+							.equals(cleanupColumnNameForMatching(targetColumnName))) {
+						found = true;
+						break;
 					}
 				}
-				firstLoop = true;
-				sb.append("\nList of source query columns: ");
-				for (String sourceColumn : listSourceFieldNames) {
+				if (found == false) {
+					inputFieldsWithoutTarget = true;
 					if (firstLoop) {
 						firstLoop = false;
 					} else {
@@ -786,102 +2198,174 @@ public class TableTransfer {
 					}
 					sb.append(sourceColumn);
 				}
-				throw new Exception("Transfer into table: " + getTargetTableAsGiven() + " in all-strict-mode failed: "
-						+ sb.toString());
-			} else {
-				if (strictSourceFieldMatching) {
-					boolean inputFieldsWithoutTarget = false;
-					final StringBuilder sb = new StringBuilder();
-					sb.append("Following source query columns does not have a matching field in the targe table: ");
-					boolean firstLoop = true;
-					for (String sourceColumn : listSourceFieldNames) {
-						boolean found = false;
-						for (SQLPSParam p : targetSQLStatement.getParams()) {
-							final String targetColumnName = p.getName().toLowerCase();
-							if (cleanupColumnNameForMatching(sourceColumn)
-									.equals(cleanupColumnNameForMatching(targetColumnName))) {
-								found = true;
-								break;
-							}
-						}
-						if (found == false) {
-							inputFieldsWithoutTarget = true;
-							if (firstLoop) {
-								firstLoop = false;
-							} else {
-								sb.append(",");
-							}
-							sb.append(sourceColumn);
-						}
-					}
-					if (inputFieldsWithoutTarget) {
-						throw new Exception("Transfer into table: " + getTargetTableAsGiven()
-								+ " in input-strict-mode failed: " + sb.toString());
-					}
-				}
-				// otherwise simply use null
-				return null;
 			}
+			if (inputFieldsWithoutTarget) {
+				throw new Exception("Transfer into table: " + getTargetTableAsGiven()
+						+ " in input-strict-mode failed: " + sb.toString());
+			}
+		}
+	}
+
+	/**
+	 * Builds the binding plan for the target statement parameters.
+	 * Resolves the source field index and the SQL type for null values once for every parameter
+	 * so that prepareInsertStatement does not need any name matching per row.
+	 * The plan is built only once for the target statement, the writers running already keep using it.
+	 * @throws Exception
+	 */
+	protected final void setupParameterBinding() throws Exception {
+		if (bindingStatement != null && bindingStatement == targetSQLStatement) {
+			return;
+		}
+		if (listSourceFieldNames == null) {
+			throw new Exception("List of source fields is not initialized");
+		}
+		if (listSourceFieldNames.isEmpty()) {
+			throw new Exception("List of source fields is empty");
+		}
+		final List<SQLPSParam> params = targetSQLStatement.getParams();
+		final int countParams = params.size();
+		// fill the arrays completely before the writers can see them
+		final int[] indexes = new int[countParams];
+		final int[] sourceIndexes = new int[countParams];
+		final int[] nullTypes = new int[countParams];
+		for (int i = 0; i < countParams; i++) {
+			final SQLPSParam p = params.get(i);
+			indexes[i] = p.getIndex();
+			sourceIndexes[i] = getIndexInSourceFieldList(p.getName());
+			if (sourceIndexes[i] == -1) {
+				checkMissingSourceField();
+			}
+			final SQLField field = targetTable.getField(p.getName());
+			nullTypes[i] = field != null ? field.getType() : Types.NULL;
+			if (isDebugEnabled()) {
+				debug("Parameter binding: #" + p.getIndex() + " (" + p.getName() + ") from source index: " + sourceIndexes[i]);
+			}
+		}
+		paramSetters = new ParameterSetter[countParams];
+		paramNullTypes = nullTypes;
+		paramSourceIndexes = sourceIndexes;
+		paramIndexes = indexes;
+		bindingStatement = targetSQLStatement;
+	}
+
+	/**
+	 * @param kind the kind of statement
+	 * @return the statement already built in this execution or null
+	 */
+	protected final SQLStatement getBuiltTargetStatement(String kind) {
+		return targetStatements.get(kind);
+	}
+
+	/**
+	 * keeps the statement for the other writers of this execution
+	 * @param kind the kind of statement
+	 * @param statement
+	 */
+	protected final void putBuiltTargetStatement(String kind, SQLStatement statement) {
+		targetStatements.put(kind, statement);
+	}
+
+	/**
+	 * @param statement
+	 * @return the SQL code with the application name
+	 */
+	protected final String getTargetSQL(SQLStatement statement) {
+		String sql = statement.getSQL();
+		if (getApplicationName() != null) {
+			sql = "/* ApplicationName=" + getApplicationName() + " */\n" + sql;
 		}
+		return sql;
+	}
+
+	/**
+	 * @return the index of the source field for every parameter of the target statement (-1 if there is no source field)
+	 */
+	final int[] getParamSourceIndexes() {
+		return paramSourceIndexes;
+	}
+
+	protected final void prepareInsertStatement(final PreparedStatement ps, final Object[] row) throws Exception {
+		prepareInsertStatement(ps, row, 0, 1, Integer.MAX_VALUE);
 	}
 
-	protected final void prepareInsertStatement(final Object[] row) throws Exception {
-		for (SQLPSParam p : targetSQLStatement.getParams()) {
-			final Object value = getRowValue(p.getName(), row);
+	/**
+	 * sets the parameters of one row in a statement with multiple rows
+	 * @param ps the statement
+	 * @param row the row
+	 * @param indexOffset the offset added to the parameter index of the single row statement
+	 * @param minParamIndex parameters of the single row statement with a lower index will be skipped
+	 * @param maxParamIndex parameters of the single row statement with a greater index will be skipped
+	 * @throws Exception
+	 */
+	final void prepareInsertStatement(final PreparedStatement ps, final Object[] row, final int indexOffset, final int minParamIndex, final int maxParamIndex) throws Exception {
+		final int[] indexes = paramIndexes;
+		final int[] sourceIndexes = paramSourceIndexes;
+		final int[] nullTypes = paramNullTypes;
+		final ParameterSetter[] setters = paramSetters;
+		for (int i = 0; i < indexes.length; i++) {
+			if (indexes[i] < minParamIndex || indexes[i] > maxParamIndex) {
+				continue;
+			}
+			final int sourceIndex = sourceIndexes[i];
+			final Object value = sourceIndex != -1 ? row[sourceIndex] : null;
 			if (value != null) {
-				String className = outputClassMap.get(p.getIndex());
-				if (className == null) {
-					className = value.getClass().getSimpleName();
-					outputClassMap.put(p.getIndex(), className);
-					if (isDebugEnabled()) {
-						debug("Output class mapping: #" + p.getIndex() + " (" + p.getName() + ") use: " + className);
-					}
-				}
-				if ("BigDecimal".equalsIgnoreCase(className)) {
-					targetPreparedStatement.setBigDecimal(p.getIndex(), (BigDecimal) value);
-				} else if ("BigInteger".equalsIgnoreCase(className)) {
-					targetPreparedStatement.setLong(p.getIndex(), ((BigInteger) value).longValue());
-				} else if ("Double".equalsIgnoreCase(className)) {
-					targetPreparedStatement.setDouble(p.getIndex(), (Double) value);
-				} else if ("Float".equalsIgnoreCase(className)) {
-					targetPreparedStatement.setFloat(p.getIndex(), (Float) value);
-				} else if ("Long".equalsIgnoreCase(className)) {
-					targetPreparedStatement.setLong(p.getIndex(), (Long) value);
-				} else if ("Integer".equalsIgnoreCase(className)) {
-					targetPreparedStatement.setInt(p.getIndex(), (Integer) value);
-				} else if ("Short".equalsIgnoreCase(className)) {
-					targetPreparedStatement.setShort(p.getIndex(), (Short) value);
-				} else if ("String".equalsIgnoreCase(className)) {
-					targetPreparedStatement.setString(p.getIndex(), (String) value);
-				} else if ("Time".equalsIgnoreCase(className)) {
-					// we need to check Time before Date because Time extends Date!
-					targetPreparedStatement.setTime(p.getIndex(), (Time) value);
-				} else if ("Timestamp".equalsIgnoreCase(className)) {
-					final long ms = ((Timestamp) value).getTime();
-					if (setZeroDateToNull && ms <= ZERO_DATETIME) {
-						targetPreparedStatement.setNull(p.getIndex(), targetTable.getField(p.getName()).getType());
-					} else {
-						targetPreparedStatement.setTimestamp(p.getIndex(), (Timestamp) value);
-					}
-				} else if ("Date".equalsIgnoreCase(className)) {
-					long ms = ZERO_DATETIME;
-					if (value instanceof java.util.Date) {
-						ms = ((java.util.Date) value).getTime();
-					} else if (value instanceof java.sql.Date) {
-						ms = ((java.sql.Date) value).getTime();
-					}
-					if (setZeroDateToNull && ms <= ZERO_DATETIME) {
-						targetPreparedStatement.setNull(p.getIndex(), targetTable.getField(p.getName()).getType());
-					} else {
-						targetPreparedStatement.setTimestamp(p.getIndex(), new java.sql.Timestamp(ms));
-					}
-				} else if ("Boolean".equalsIgnoreCase(className)) {
-					targetPreparedStatement.setBoolean(p.getIndex(), (Boolean) value);
-				} else {
-					targetPreparedStatement.setObject(p.getIndex(), value);
+				ParameterSetter setter = setters[i];
+				if (setter == null) {
+					setter = createParameterSetter(i, value);
 				}
+				setter.set(ps, indexes[i] + indexOffset, value, nullTypes[i]);
 			} else {
-				targetPreparedStatement.setNull(p.getIndex(), targetTable.getField(p.getName()).getType());
+				ps.setNull(indexes[i] + indexOffset, nullTypes[i]);
+			}
+		}
+	}
+
+	private ParameterSetter createParameterSetter(int paramPos, Object value) {
+		final ParameterSetter setter = ParameterSetter.create(value, setZeroDateToNull);
+		paramSetters[paramPos] = setter;
+		if (isDebugEnabled()) {
+			debug("Output class mapping: #" + paramIndexes[paramPos] + " use: " + value.getClass().getSimpleName());
+		}
+		return setter;
+	}
+
+	/**
+	 * sets the parameters from one row of a column batch. 
+	 * The primitive columns are set without boxing.
+	 * @param ps the statement
+	 * @param batch the column batch
+	 * @param rowIndex the row within the batch
+	 * @throws Exception
+	 */
+	protected final void prepareInsertStatement(final PreparedStatement ps, final ColumnBatch batch, final int rowIndex) throws Exception {
+		final int[] indexes = paramIndexes;
+		final int[] sourceIndexes = paramSourceIndexes;
+		final int[] nullTypes = paramNullTypes;
+		final ParameterSetter[] setters = paramSetters;
+		for (int i = 0; i < indexes.length; i++) {
+			final int sourceIndex = sourceIndexes[i];
+			if (sourceIndex == -1 || batch.isNull(sourceIndex, rowIndex)) {
+				ps.setNull(indexes[i], nullTypes[i]);
+				continue;
+			}
+			switch (batch.getColumnType(sourceIndex)) {
+			case ColumnBatch.TYPE_LONG:
+				ps.setLong(indexes[i], batch.getLong(sourceIndex, rowIndex));
+				break;
+			case ColumnBatch.TYPE_INT:
+				ps.setInt(indexes[i], batch.getInt(sourceIndex, rowIndex));
+				break;
+			case ColumnBatch.TYPE_DOUBLE:
+				ps.setDouble(indexes[i], batch.getDouble(sourceIndex, rowIndex));
+				break;
+			default:
+				final Object value = batch.getObject(sourceIndex, rowIndex);
+				ParameterSetter setter = setters[i];
+				if (setter == null) {
+					setter = createParameterSetter(i, value);
+				}
+				setter.set(ps, indexes[i], value, nullTypes[i]);
 			}
 		}
 	}
@@ -920,17 +2404,101 @@ public class TableTransfer {
 	 * @throws Exception
 	 */
 	public final void setup() throws Exception {
-		createSourceSelectStatement();
+		targetModelChecked = false;
+		final boolean useSourceQuery = properties.getProperty(SOURCE_QUERY) != null;
+		if (fanOutSource == null) {
+			createSourceSelectStatement();
+		}
+		if (fanOutSource == null && partitionColumn != null && countPartitions > 1) {
+			setupSourcePartitions(useSourceQuery);
+		} else {
+			sourcePartitions = null;
+		}
+		if (outputToTable && countWriters > 1 && targetConnectionFactory == null) {
+			throw new Exception("Parallel write with " + countWriters + " writers needs a target connection factory!");
+		}
+		if (outputToTable && countWriters > 1 && doCommit == false) {
+			// the additional writers commit their own connections, an external commit would not see their rows
+			throw new Exception("Parallel write with " + countWriters + " writers cannot be used with an external commit!");
+		}
 		final int batchSize = Integer.parseInt(properties.getProperty(TARGET_BATCHSIZE, "1000"));
 		final int fetchSize = Integer.parseInt(properties.getProperty(SOURCE_FETCHSIZE, "1000"));
-		final int queueSize = Math.max(batchSize, fetchSize);
+		// the queues take chunks of rows
+		final int queueSize = Math.max(2, Math.max(batchSize, fetchSize) / queueChunkSize);
+		if (useRingBuffer && countWriters == 1 && spillToDisk == false) {
+			ringBuffer = new RowRingBuffer(queueSize, ringBufferWaitStrategy);
+		} else {
+			if (useRingBuffer) {
+				warn("The ring buffer cannot be used with parallel writers or spill to disk. Use queues instead.", null);
+			}
+			ringBuffer = null;
+		}
+		spillQueues.clear();
 		if (outputToTable) {
-			tableQueue = new ArrayBlockingQueue<>(queueSize);
+			tableQueue = ringBuffer != null ? ringBuffer.addCursor() : createChunkQueue(queueSize, "table");
+			if (countWriters > 1 && routeRowsByKey && fanOutSource == null) {
+				setupTargetDataModel();
+				// the source fields are not known yet, the key columns will be matched in setupSourceFields
+				routingKeyNames = lookupTargetTable(properties.getProperty(TARGET_TABLE)).getPrimaryKeyFieldNames();
+				if (routingKeyNames.isEmpty()) {
+					throw new Exception("Routing the rows by key to the writers needs a primary key or unique index at the target table: " + getTargetTableAsGiven());
+				}
+				writerQueues = new ArrayList<>(countWriters);
+				for (int i = 0; i < countWriters; i++) {
+					writerQueues.add(createChunkQueue(queueSize, "writer" + i));
+				}
+			} else {
+				routingKeyNames = null;
+				writerQueues = null;
+			}
 		}
 		if (outputToFile) {
-			fileQueue = new ArrayBlockingQueue<>(queueSize);
+			fileQueue = ringBuffer != null ? ringBuffer.addCursor() : createChunkQueue(queueSize, "file");
+		}
+		queueCapacity = queueSize;
+		autoTuner = null;
+		if (autoTune) {
+			if (outputToTable && writerQueues == null && ringBuffer == null) {
+				final TransferAutoTuner.TimedQueue timedQueue = new TransferAutoTuner.TimedQueue(tableQueue);
+				tableQueue = timedQueue;
+				autoTuner = new TransferAutoTuner(this, timedQueue, queueCapacity, autoTuneMinWriters, 
+						Math.max(autoTuneMinWriters, autoTuneMaxWriters), autoTuneIntervalMillis);
+				if (targetConnectionFactory == null || doCommit == false) {
+					warn("Autotune without target connection factory or with an external commit cannot add writers, it only logs the decisions.", null);
+				}
+			} else {
+				warn("Autotune needs table output with a shared table queue (no ring buffer, no rows routed by key). Autotune is switched off.", null);
+			}
+		}
+		// the sinks share the rows of the source, the chunks must not be recycled or serialized
+		final boolean sharedRows = sinks.isEmpty() == false || fanOutSource != null;
+		if (sharedRows && (recycleRows || useColumnarBatches || offHeapRows || queueMaxMemoryMB > 0)) {
+			warn("Row recycling, column batches, off-heap rows and the memory limit of the queues cannot be used with sinks and are switched off.", null);
 		}
 		dieOnError = Boolean.parseBoolean(properties.getProperty(DIE_ON_ERROR, "true"));
+		directCopy = useDirectCopy && isDirectCopyPossible();
+		if (useDirectCopy && directCopy == false) {
+			warn("Direct copy needs die on error and only one writer into the table without backup file, partitions, value or time range, fixed values, row processors, sinks, autotune and special writers. Use the queues instead.", null);
+		}
+		rowStage = countRowProcessorThreads > 0;
+		columnar = useColumnarBatches && (outputToTable == false || writerQueues == null) && rowStage == false && rowProcessors.isEmpty() && sharedRows == false;
+		if (useColumnarBatches && columnar == false) {
+			warn("Column batches cannot be used with rows routed by key or with row processors. Use rows instead.", null);
+		}
+		if (queueMaxMemoryMB > 0 && spillToDisk) {
+			warn("The memory limit of the queues is not used with spill to disk, the queues spill instead of waiting.", null);
+		}
+		memoryBudget = queueMaxMemoryMB > 0 && spillToDisk == false && sharedRows == false ? new MemoryBudget(queueMaxMemoryMB * 1024l * 1024l) : null;
+		// the column batches will be recycled in any case
+		rowPool = (recycleRows || columnar) && sharedRows == false ? new RowPool(queueSize * 2 + 2) : null;
+		slabPool = offHeapRows && sharedRows == false ? new RowPool(queueSize * 2 + 2) : null;
+		threadFactory = configuredThreadFactory;
+		if (threadFactory == null && useVirtualThreads) {
+			threadFactory = VirtualThreads.createFactory("tabletransfer-");
+			if (threadFactory == null) {
+				warn("Virtual threads are not supported by this Java version: " + System.getProperty("java.version") + ". Use platform threads instead.", null);
+			}
+		}
 		patternForBackslash = Pattern.compile("\\", Pattern.LITERAL);
 		patternForQuota = Pattern.compile("\"", Pattern.LITERAL);
 		replacementForBackslash = Matcher.quoteReplacement("\\\\");
@@ -958,40 +2526,59 @@ public class TableTransfer {
 		return cat;
 	}
 
+	/**
+	 * looks up the target table in the target model, the fields are not matched against the source fields.
+	 * The model can be shared with transfers running in parallel (engine or keepDataModels), 
+	 * therefore it is used only while holding its lock and with the connection of this transfer.
+	 * @param tableAndSchemaName
+	 * @return a copy of the table of the model
+	 * @throws Exception
+	 */
+	private SQLTable lookupTargetTable(String tableAndSchemaName) throws Exception {
+		synchronized (targetModel) {
+			targetModel.setConnection(targetConnection);
+			return lookupTargetTableLocked(tableAndSchemaName).clone();
+		}
+	}
+
+	private SQLTable lookupTargetTableLocked(String tableAndSchemaName) throws Exception {
+		String schemaName = getSchemaName(tableAndSchemaName);
+		if (schemaName == null) {
+			schemaName = targetConnection.getSchema();
+		}
+		if (schemaName == null) {
+			schemaName = getTargetDatabase();
+		}
+		final SQLSchema schema = targetModel.getSchema(schemaName);
+		if (schema == null) {
+			throw new Exception("Get information about target table: " + tableAndSchemaName + " failed: schema "
+					+ schemaName + " not available");
+		}
+		String tableName = getTableName(tableAndSchemaName);
+		if (tableName.startsWith("\"")) {
+			tableName = tableName.substring(1, tableName.length() - 1);
+		}
+		final SQLTable table = schema.getTable(tableName);
+		if (table == null) {
+			throw new Exception(
+					"Get information about target table: " + schemaName + "." + tableName + " not available");
+		}
+		if (table.isFieldsLoaded() == false) {
+			table.loadColumns(false);
+		}
+		if (table.getFieldCount() == 0) {
+			throw new Exception("Target table: " + schemaName + "." + tableName + " does not have any fields!");
+		}
+		// if there is no primary key, try to set them by unique index
+		table.setupPrimaryKeyFieldsByUniqueIndex();
+		return table;
+	}
+
 	protected final SQLTable getTargetSQLTable() throws Exception {
 		final String tableAndSchemaName = properties.getProperty(TARGET_TABLE);
 		if (targetTable == null || targetTable.getAbsoluteName().equalsIgnoreCase(tableAndSchemaName) == false) {
-			String schemaName = getSchemaName(tableAndSchemaName);
-			if (schemaName == null) {
-				schemaName = targetConnection.getSchema();
-			}
-			if (schemaName == null) {
-				schemaName = getTargetDatabase();
-			}
-			final SQLSchema schema = targetModel.getSchema(schemaName);
-			if (schema == null) {
-				throw new Exception("Get information about target table: " + tableAndSchemaName + " failed: schema "
-						+ schemaName + " not available");
-			}
-			String tableName = getTableName(tableAndSchemaName);
-			if (tableName.startsWith("\"")) {
-				tableName = tableName.substring(1, tableName.length() - 1);
-			}
-			targetTable = schema.getTable(tableName);
-			if (targetTable == null) {
-				throw new Exception(
-						"Get information about target table: " + schemaName + "." + tableName + " not available");
-			}
-			if (targetTable.isFieldsLoaded() == false) {
-				targetTable.loadColumns(false);
-			}
-			if (targetTable.getFieldCount() == 0) {
-				throw new Exception("Target table: " + schemaName + "." + tableName + " does not have any fields!");
-			}
-			// if there is no primary key, try to set them by unique index
-			targetTable.setupPrimaryKeyFieldsByUniqueIndex();
 			// clone the target table to prevent changes on the original table object
-			targetTable = targetTable.clone();
+			targetTable = lookupTargetTable(tableAndSchemaName);
 			// remove SQLFields which should be excluded
 			for (String exclFieldName : excludeFieldList) {
 				boolean exclude = true;
@@ -1125,19 +2712,128 @@ public class TableTransfer {
 		}
 		info("Source select:\n" + sourceQuery);
 		sourceSelectStatement = sourceConnection.createStatement();
+		setupSourceStatement(sourceSelectStatement, sourceConnection);
+		return sourceSelectStatement;
+	}
+
+	private void setupSourceStatement(Statement statement, Connection connection) throws Exception {
 		int fetchSize = getFetchSize();
 		if (fetchSize > 0) {
 			debug("set source fetch size: " + fetchSize);
-			sourceSelectStatement.setFetchSize(fetchSize);
+			statement.setFetchSize(fetchSize);
 		}
 		// we have to check that here because we do not know which source database type
 		// we use.
-		if (DBHelper.isMySQLConnection(sourceConnection)) {
+		if (DBHelper.isMySQLConnection(connection)) {
 			DBHelper util = (DBHelper) Class.forName("de.jlo.talendcomp.tabletransfer.MySQLHelper")
 					.getDeclaredConstructor().newInstance();
-			util.setupSelectStatement(sourceSelectStatement);
+			util.setupSelectStatement(statement);
 		}
-		return sourceSelectStatement;
+	}
+
+	/**
+	 * Splits the range of the partition column into count partitions.
+	 * The first partition also reads the null values and the first and last partition
+	 * are open ended to get all records even if the given bounds does not cover all values.
+	 * @param useSourceQuery true if the source query is given (it will be used as sub select)
+	 * @throws Exception
+	 */
+	private void setupSourcePartitions(boolean useSourceQuery) throws Exception {
+		if (sourceConnectionFactory == null) {
+			throw new Exception("Partitioned read with " + countPartitions + " partitions needs a source connection factory!");
+		}
+		final String column = getSourceCodeGenerator().getEncapsulatedName(partitionColumn, false);
+		final String from;
+		String where = "";
+		if (useSourceQuery) {
+			from = "(" + properties.getProperty(SOURCE_QUERY) + ") p";
+		} else {
+			from = getSourceTable();
+			where = buildSourceWhereSQL();
+			if (where.isEmpty() == false) {
+				// buildSourceWhereSQL always starts with " where"
+				where = where.substring(" where".length()).trim();
+			}
+		}
+		Object lower = partitionLowerBound;
+		Object upper = partitionUpperBound;
+		if (lower == null || upper == null) {
+			final String sql = "select min(" + column + "), max(" + column + ") from " + from
+					+ (where.isEmpty() ? "" : " where " + where);
+			info("Retrieve range of partition column:\n" + sql);
+			try (final Statement stat = sourceConnection.createStatement();
+					final ResultSet rs = stat.executeQuery(sql)) {
+				if (rs.next()) {
+					if (lower == null) {
+						lower = rs.getObject(1);
+					}
+					if (upper == null) {
+						upper = rs.getObject(2);
+					}
+				}
+			}
+			if (sourceConnection.getAutoCommit() == false) {
+				sourceConnection.commit();
+			}
+		}
+		if (lower == null || upper == null) {
+			info("Partition column: " + partitionColumn + " has no values. Read without partitions.");
+			sourcePartitions = null;
+			return;
+		}
+		final boolean isDate;
+		final long min;
+		final long max;
+		if (lower instanceof Number && upper instanceof Number) {
+			isDate = false;
+			min = ((Number) lower).longValue();
+			max = ((Number) upper).longValue();
+		} else if (lower instanceof Date && upper instanceof Date) {
+			isDate = true;
+			min = ((Date) lower).getTime();
+			max = ((Date) upper).getTime();
+		} else {
+			throw new Exception("Partition column: " + partitionColumn + " must be numeric or a date. Got bounds: "
+					+ lower.getClass().getName() + " and " + upper.getClass().getName());
+		}
+		// calculate the inner bounds and remove duplicates for small ranges
+		final List<Long> bounds = new ArrayList<>();
+		final BigInteger range = BigInteger.valueOf(max).subtract(BigInteger.valueOf(min));
+		for (int i = 1; i < countPartitions; i++) {
+			final long bound = BigInteger.valueOf(min)
+					.add(range.multiply(BigInteger.valueOf(i)).divide(BigInteger.valueOf(countPartitions)))
+					.longValue();
+			if (bound > min && (bounds.isEmpty() || bounds.get(bounds.size() - 1) < bound)) {
+				bounds.add(bound);
+			}
+		}
+		if (bounds.isEmpty()) {
+			info("Range of partition column: " + partitionColumn + " is too small. Read without partitions.");
+			sourcePartitions = null;
+			return;
+		}
+		final String sqlStart = (application != null ? "/* ApplicationName=" + application + " */\n" : "")
+				+ "select * from " + from + " where " + (where.isEmpty() ? "" : "(" + where + ") and ");
+		sourcePartitions = new ArrayList<>();
+		for (int i = 0; i <= bounds.size(); i++) {
+			final SourcePartition partition;
+			if (i == 0) {
+				partition = new SourcePartition(i, sqlStart + "(" + column + " < ? or " + column + " is null)");
+				partition.addParam(isDate ? new Timestamp(bounds.get(i)) : bounds.get(i));
+			} else if (i == bounds.size()) {
+				partition = new SourcePartition(i, sqlStart + column + " >= ?");
+				partition.addParam(isDate ? new Timestamp(bounds.get(i - 1)) : bounds.get(i - 1));
+			} else {
+				partition = new SourcePartition(i, sqlStart + column + " >= ? and " + column + " < ?");
+				partition.addParam(isDate ? new Timestamp(bounds.get(i - 1)) : bounds.get(i - 1));
+				partition.addParam(isDate ? new Timestamp(bounds.get(i)) : bounds.get(i));
+			}
+			sourcePartitions.add(partition);
+		}
+		info("Read source in " + sourcePartitions.size() + " partitions by column: " + partitionColumn
+				+ " range: " + lower + " - " + upper + ", statement:\n" + sourcePartitions.get(1).getSQL());
+		// the partitions use their own statements
+		sourceSelectStatement.close();
 	}
 
 	protected int getFetchSize() {
@@ -1150,26 +2846,86 @@ public class TableTransfer {
 		return fetchSize;
 	}
 
-	protected PreparedStatement createTargetStatement() throws Exception {
-		setupTargetDataModel();
+	/**
+	 * builds the insert statement with multiple rows in the values clause.
+	 * The parameters of one row must be ordered like in the single row statement, 
+	 * additional parameters (e.g. for an update clause) must follow after all rows.
+	 * @param countRows number of rows
+	 * @return statement
+	 * @throws Exception
+	 */
+	protected SQLStatement buildInsertSQLStatement(int countRows) throws Exception {
+		return getTargetCodeGenerator().buildInsertSQLStatement(getTargetSQLTable(), true, countRows);
+	}
+
+	/**
+	 * builds the insert or update statement
+	 * @return statement
+	 * @throws Exception
+	 */
+	protected SQLStatement buildTargetSQLStatement() throws Exception {
 		final SQLTable table = getTargetSQLTable();
 		if (runOnlyUpdates) {
-			targetSQLStatement = getTargetCodeGenerator().buildUpdateSQLStatement(table, true);
+			return getTargetCodeGenerator().buildUpdateSQLStatement(table, true);
 		} else {
-			targetSQLStatement = getTargetCodeGenerator().buildInsertSQLStatement(table, true);
+			return getTargetCodeGenerator().buildInsertSQLStatement(table, true);
 		}
-		if (targetSQLStatement.getCountParameters() == 0) {
-			throw new Exception("Target statement has no parameters!");
-		}
-		String sql = targetSQLStatement.getSQL();
-		if (getApplicationName() != null) {
-			sql = "/* ApplicationName=" + getApplicationName() + " */\n" + sql;
+	}
+
+	/**
+	 * prepares the target statement for the connection of a writer.
+	 * The statement is built only by the first writer of the execution.
+	 * @param connection
+	 * @return the statement
+	 * @throws Exception
+	 */
+	protected final PreparedStatement createTargetStatement(Connection connection) throws Exception {
+		SQLStatement statement = getBuiltTargetStatement(TARGET_STATEMENT_DML);
+		if (statement == null) {
+			setupTargetDataModel();
+			statement = buildTargetSQLStatement();
+			if (statement.getCountParameters() == 0) {
+				throw new Exception("Target statement has no parameters!");
+			}
+			putBuiltTargetStatement(TARGET_STATEMENT_DML, statement);
+			info("Target statement:\n" + getTargetSQL(statement));
 		}
-		info("Target statement:\n" + sql);
-		targetPreparedStatement = getTargetConnection().prepareStatement(sql);
+		targetSQLStatement = statement;
+		targetPreparedStatement = prepareTargetStatement(connection, getTargetSQL(statement));
 		return targetPreparedStatement;
 	}
 
+	/**
+	 * prepares the statement or takes it from the engine
+	 * @param connection
+	 * @param sql
+	 * @return the statement, must be closed with closeTargetStatement
+	 * @throws SQLException
+	 */
+	protected PreparedStatement prepareTargetStatement(Connection connection, String sql) throws SQLException {
+		if (engine != null) {
+			return engine.takeStatement(connection, sql);
+		} else {
+			return connection.prepareStatement(sql);
+		}
+	}
+
+	/**
+	 * closes the statement or returns it to the engine
+	 * @param ps
+	 */
+	protected void closeTargetStatement(PreparedStatement ps) {
+		if (engine != null) {
+			engine.releaseStatement(ps);
+		} else {
+			try {
+				ps.close();
+			} catch (SQLException e) {
+				// intentionally empty
+			}
+		}
+	}
+
 	protected final String buildSourceWhereSQL() {
 		String where = properties.getProperty(SOURCE_WHERE);
 		if (where != null && where.trim().isEmpty() == false) {
@@ -1232,6 +2988,10 @@ public class TableTransfer {
 	}
 
 	protected void setupTargetDataModel() throws Exception {
+		if (engine != null) {
+			setupTargetDataModelWithEngine();
+			return;
+		}
 		info("Setup target data model...");
 		if (keepDataModels) {
 			if (modelKeyTarget == null) {
@@ -1257,6 +3017,36 @@ public class TableTransfer {
 		}
 	}
 
+	private void setupTargetDataModelWithEngine() throws Exception {
+		if (targetModelChecked && targetModel != null) {
+			// already checked in this execution
+			return;
+		}
+		final String key = targetConnection.getMetaData().getURL() + "|" + getTargetTableAsGiven();
+		final String signature = engine.readTableSignature(targetConnection, getTargetTableAsGiven());
+		final SQLDataModel cachedModel = engine.getTargetModel(key, signature);
+		if (cachedModel != null) {
+			if (isDebugEnabled()) {
+				debug("Reuse target data model from the engine");
+			}
+			// the connection will be set in lookupTargetTable, the model can be used by parallel transfers
+			if (cachedModel != targetModel) {
+				targetTable = null;
+			}
+			targetModel = cachedModel;
+		} else {
+			info("Setup target data model...");
+			targetModel = new SQLDataModel(targetConnection);
+			targetModel.loadCatalogs();
+			targetTable = null;
+			engine.putTargetModel(key, signature, targetModel);
+		}
+		targetModelChecked = true;
+		if (targetConnection.getAutoCommit() == false) {
+			targetConnection.commit();
+		}
+	}
+
 	public void loadProperties(String filePath) {
 		try (final FileInputStream fis = new FileInputStream(filePath)) {
 			properties.load(fis);
@@ -1609,42 +3399,47 @@ public class TableTransfer {
 		try {
 			countFileRows = 0;
 			debug("Start writing data in file: " + backupFile.getAbsolutePath());
-			final int batchSize = Integer.parseInt(properties.getProperty(TARGET_BATCHSIZE, "1"));
 			boolean endFlagReceived = false;
 			boolean headerWritten = false;
 			while (endFlagReceived == false) {
 				try {
-					final List<Object> queueObjects = new ArrayList<Object>(batchSize);
-					// poll waits for a time until new records arrives
-					Object one = fileQueue.poll(10000, TimeUnit.MILLISECONDS);
-					if (one == null) {
+					// poll waits for a time until a new chunk of records arrives
+					final Object[][] chunk = fileQueue.poll(10000, TimeUnit.MILLISECONDS);
+					if (chunk == null) {
 						continue;
-					} else {
-						queueObjects.add(one);
+					} else if (chunk == closeFlag) {
+						debug("Write file thread: Stop flag received.");
+						endFlagReceived = true;
+						break;
 					}
-					// drain never waits! Thats why we have to use poll before!
-					fileQueue.drainTo(queueObjects, batchSize);
-					for (Object item : queueObjects) {
-						if (item == closeFlag) {
-							debug("Write file thread: Stop flag received.");
-							endFlagReceived = true;
-							break;
+					if (memoryBudget != null) {
+						memoryBudget.release(chunk, MemoryBudget.CONSUMER_FILE);
+					}
+					final ColumnBatch columnBatch = ColumnBatch.fromChunk(chunk);
+					final RowSlab.Reader slabReader = openSlabReader(chunk);
+					final int countRows = columnBatch != null ? columnBatch.getCountRows() : (slabReader != null ? slabReader.getCountRows() : chunk.length);
+					for (int r = 0; r < countRows; r++) {
+						if (writeHeaderInFile && headerWritten == false) {
+							debug("Write header into file (" + listSourceFieldNames.size() + " columns)");
+							// get header
+							Object[] headerRow = listSourceFieldNames.toArray();
+							// write into file
+							countFileRows = -1; // prevent count header as data row
+							writeRowInFile(headerRow);
+							headerWritten = true;
+						}
+						if (columnBatch != null) {
+							writeRowInFile(columnBatch.getRow(r));
+						} else if (slabReader != null) {
+							writeRowInFile(slabReader.next());
 						} else {
-							if (writeHeaderInFile && headerWritten == false) {
-								debug("Write header into file (" + listSourceFieldNames.size() + " columns)");
-								// get header
-								Object[] headerRow = listSourceFieldNames.toArray();
-								// write into file
-								countFileRows = -1; // prevent count header as data row
-								writeRowInFile(headerRow);
-								headerWritten = true;
-							}
-							writeRowInFile((Object[]) item);
+							writeRowInFile(chunk[r]);
 						}
 						if (Thread.currentThread().isInterrupted()) {
 							break;
 						}
 					}
+					releaseChunk(chunk);
 				} catch (Exception e) {
 					error("write file failed in line number " + countFileRows + " message:" + e.getMessage(), e);
 					if (dieOnError) {
@@ -1659,7 +3454,6 @@ public class TableTransfer {
 			} catch (Exception e) {
 				error("Close file failed: " + e.getMessage(), e);
 			}
-			runningFile = false;
 			if (returnCode == RETURN_CODE_OK) {
 				debug("Finished write data into file " + backupFile.getAbsolutePath() + ", count rows:"
 						+ countFileRows);
@@ -1689,11 +3483,21 @@ public class TableTransfer {
 			} catch (Exception e1) {
 				error("Close file failed: " + e.getMessage(), e);
 			}
-			runningFile = false;
 			error("Write data into file " + backupFile.getAbsolutePath() + " count rows:" + countFileRows + " failed: "
 					+ e.getMessage(), e);
 		}
+		if (fileQueue instanceof RowRingBuffer.Cursor) {
+			// do not block the reader any longer
+			((RowRingBuffer.Cursor) fileQueue).close();
+		}
+		if (memoryBudget != null) {
+			memoryBudget.removeConsumer(MemoryBudget.CONSUMER_FILE);
+		}
+		disposeQueue(fileQueue);
 		debug("Writing file has been finished.");
+		// not before the tmp file has been renamed, the file must be complete if the transfer is not running any longer
+		runningFile = false;
+		checkCompleted();
 	}
 
 	public boolean isOutputToTable() {
@@ -1764,7 +3568,7 @@ public class TableTransfer {
 		return valueRangeEnd;
 	}
 
-	private void checkTimeRange(Object value) {
+	private synchronized void checkTimeRange(Object value) {
 		if (value instanceof Long) {
 			checkTimeRange((Long) value);
 		} else if (value instanceof Date) {
@@ -1795,7 +3599,7 @@ public class TableTransfer {
 		}
 	}
 
-	private void checkValueRange(Object value) {
+	private synchronized void checkValueRange(Object value) {
 		if (value instanceof String) {
 			checkValueRange((String) value);
 		} else if (value instanceof Integer) {
@@ -2234,6 +4038,552 @@ public class TableTransfer {
 		}
 	}
 
+	public ConnectionFactory getSourceConnectionFactory() {
+		return sourceConnectionFactory;
+	}
+
+	/**
+	 * set the factory for the additional source connections used by the partitioned read
+	 * @param sourceConnectionFactory
+	 */
+	public void setSourceConnectionFactory(ConnectionFactory sourceConnectionFactory) {
+		this.sourceConnectionFactory = sourceConnectionFactory;
+	}
+
+	public String getPartitionColumn() {
+		return partitionColumn;
+	}
+
+	/**
+	 * set the numeric or date column used to split the source into ranges read in parallel
+	 * @param partitionColumn
+	 */
+	public void setPartitionColumn(String partitionColumn) {
+		if (partitionColumn != null && partitionColumn.trim().isEmpty() == false) {
+			this.partitionColumn = partitionColumn.trim();
+		}
+	}
+
+	public int getCountPartitions() {
+		return countPartitions;
+	}
+
+	public void setCountPartitions(Integer countPartitions) {
+		if (countPartitions != null) {
+			if (countPartitions < 1) {
+				throw new IllegalArgumentException("countPartitions must be greater 0");
+			}
+			this.countPartitions = countPartitions;
+		}
+	}
+
+	/**
+	 * set the range of the partition column. 
+	 * If not set the min and max values will be retrieved from the source.
+	 * @param lowerBound Number or Date
+	 * @param upperBound Number or Date
+	 */
+	public void setPartitionBounds(Object lowerBound, Object upperBound) {
+		this.partitionLowerBound = lowerBound;
+		this.partitionUpperBound = upperBound;
+	}
+
+	public int getCountSourcePartitions() {
+		return sourcePartitions != null ? sourcePartitions.size() : 1;
+	}
+
+	public ConnectionFactory getTargetConnectionFactory() {
+		return targetConnectionFactory;
+	}
+
+	/**
+	 * set the factory for the connections of the additional parallel writers.
+	 * The first writer always uses the target connection.
+	 * @param targetConnectionFactory
+	 */
+	public void setTargetConnectionFactory(ConnectionFactory targetConnectionFactory) {
+		this.targetConnectionFactory = targetConnectionFactory;
+	}
+
+	public int getCountWriters() {
+		return countWriters;
+	}
+
+	/**
+	 * set the number of parallel writers. Every writer uses its own connection and takes the rows from the same queue.
+	 * For more than one writer a target connection factory is necessary.
+	 * The writers commit independently, so the target table is not written in one transaction.
+	 * Cannot be used with an external commit (doCommit false).
+	 * @param countWriters default is 1
+	 */
+	public void setCountWriters(Integer countWriters) {
+		if (countWriters != null) {
+			if (countWriters < 1) {
+				throw new IllegalArgumentException("countWriters must be greater 0");
+			}
+			this.countWriters = countWriters;
+		}
+	}
+
+	public boolean isRouteRowsByKey() {
+		return routeRowsByKey;
+	}
+
+	/**
+	 * route the rows with parallel writers by the primary key (or unique index) of the target table.
+	 * Every writer gets its own queue and rows with the same key always goes to the same writer in the read order.
+	 * This prevents lock waits and dead locks between the writers e.g. for on conflict update.
+	 * @param routeRowsByKey
+	 */
+	public void setRouteRowsByKey(Boolean routeRowsByKey) {
+		if (routeRowsByKey != null) {
+			this.routeRowsByKey = routeRowsByKey;
+		}
+	}
+
+	/**
+	 * The reader hands the rows over to the writers in chunks
+	 * to reduce the locking on the queues.
+	 * @param queueChunkSize count rows per chunk (default 512)
+	 */
+	public void setQueueChunkSize(Integer queueChunkSize) {
+		if (queueChunkSize != null) {
+			if (queueChunkSize < 1) {
+				throw new IllegalArgumentException("queueChunkSize must be greater than 0");
+			}
+			this.queueChunkSize = queueChunkSize;
+		}
+	}
+
+	public int getQueueChunkSize() {
+		return queueChunkSize;
+	}
+
+	/**
+	 * Limits the estimated size of the rows in the queues. 
+	 * The size of the rows is estimated by the value types and the length of strings and byte arrays.
+	 * The count rows per queue remains as secondary limit.
+	 * @param queueMaxMemoryMB max MB in the queues, 0 or null means no limit
+	 */
+	public void setQueueMaxMemoryMB(Integer queueMaxMemoryMB) {
+		if (queueMaxMemoryMB != null) {
+			if (queueMaxMemoryMB < 0) {
+				throw new IllegalArgumentException("queueMaxMemoryMB cannot be negative");
+			}
+			this.queueMaxMemoryMB = queueMaxMemoryMB;
+		}
+	}
+
+	/**
+	 * @return the estimated bytes of the rows currently in the queues, 0 without memory limit
+	 */
+	public long getQueueBytesInFlight() {
+		return memoryBudget != null ? memoryBudget.getBytesInFlight() : 0;
+	}
+
+	/**
+	 * If the queue of a writer is full, the reader writes the rows into spill files instead of waiting.
+	 * This way the reader can finish and release the source transaction as early as possible.
+	 * The writers read the spilled rows in the same order.
+	 * @param spillToDisk
+	 */
+	public void setSpillToDisk(Boolean spillToDisk) {
+		if (spillToDisk != null) {
+			this.spillToDisk = spillToDisk;
+		}
+	}
+
+	/**
+	 * @param spillDirectory the directory for the spill files, default is java.io.tmpdir
+	 */
+	public void setSpillDirectory(String spillDirectory) {
+		if (spillDirectory != null && spillDirectory.trim().isEmpty() == false) {
+			this.spillDirectory = spillDirectory.trim();
+		} else {
+			this.spillDirectory = null;
+		}
+	}
+
+	/**
+	 * @return count rows written into spill files
+	 */
+	public long getCountSpilledRows() {
+		long count = 0;
+		for (SpillRowChunkQueue q : spillQueues) {
+			count += q.getCountSpilledRows();
+		}
+		return count;
+	}
+
+	/**
+	 * Use a lock-free ring buffer instead of the queues.
+	 * The table writer and the file writer read the rows from the same ring buffer,
+	 * so the reader publishes every chunk only once.
+	 * Only possible with one writer.
+	 * @param useRingBuffer
+	 */
+	public void setUseRingBuffer(Boolean useRingBuffer) {
+		if (useRingBuffer != null) {
+			this.useRingBuffer = useRingBuffer;
+		}
+	}
+
+	/**
+	 * set how the threads wait at the ring buffer
+	 * @param waitStrategy spin, yield or park (default)
+	 */
+	public void setRingBufferWaitStrategy(String waitStrategy) {
+		this.ringBufferWaitStrategy = RowRingBuffer.WaitStrategy.forName(waitStrategy);
+	}
+
+	/**
+	 * Recycle the row arrays after the table writer and the file writer have released them.
+	 * Reduces the garbage created per row.
+	 * Subclasses with own table writers must not keep the rows after executeBatch.
+	 * @param recycleRows
+	 */
+	public void setRecycleRows(Boolean recycleRows) {
+		if (recycleRows != null) {
+			this.recycleRows = recycleRows;
+		}
+	}
+
+	/**
+	 * Read the rows into column batches: integer, long and double columns are kept in primitive arrays
+	 * and bound with setInt, setLong and setDouble without boxing.
+	 * Writers without columnar support (copy, load data, multi row insert) and the backup file get boxed rows.
+	 * Cannot be used with rows routed by key.
+	 * @param useColumnarBatches
+	 */
+	public void setUseColumnarBatches(Boolean useColumnarBatches) {
+		if (useColumnarBatches != null) {
+			this.useColumnarBatches = useColumnarBatches;
+		}
+	}
+
+	/**
+	 * Serialize the rows into off-heap slabs (direct ByteBuffer) while they wait in the queues.
+	 * The writers decode the rows while binding them.
+	 * This keeps the rows in the queues out of the garbage collection and allows deeper queues without more heap.
+	 * The off-heap memory is limited by -XX:MaxDirectMemorySize.
+	 * @param offHeapRows
+	 */
+	public void setOffHeapRows(Boolean offHeapRows) {
+		if (offHeapRows != null) {
+			this.offHeapRows = offHeapRows;
+		}
+	}
+
+	/**
+	 * Run the reader, the writers and the backup file writer in virtual threads (needs Java 21).
+	 * Threads waiting for JDBC or the queues do not block an OS thread.
+	 * Falls back to platform threads with older Java versions.
+	 * @param useVirtualThreads
+	 */
+	public void setUseVirtualThreads(Boolean useVirtualThreads) {
+		if (useVirtualThreads != null) {
+			this.useVirtualThreads = useVirtualThreads;
+		}
+	}
+
+	/**
+	 * Set the factory creating the threads for the reader, the writers and the backup file writer.
+	 * Has precedence over the virtual threads option.
+	 * @param threadFactory null to use new platform threads
+	 */
+	public void setThreadFactory(ThreadFactory threadFactory) {
+		this.configuredThreadFactory = threadFactory;
+	}
+
+	/**
+	 * Use an engine shared by the transfers of a job.
+	 * The engine runs the threads in a pool, keeps the target data model until the columns of the target table change
+	 * and keeps the prepared target statements.
+	 * The engine has precedence over the thread factory and virtual threads.
+	 * @param engine null to create all resources per transfer
+	 */
+	public void setEngine(TransferEngine engine) {
+		this.engine = engine;
+	}
+
+	public TransferEngine getEngine() {
+		return engine;
+	}
+
+	/**
+	 * Add a processor for the rows between reader and writers.
+	 * The processors run in the added order after the built-in processing (fixed values, trim, strip, ranges).
+	 * A processor can change the values of the row or return null to skip the row.
+	 * @param processor must be thread safe if row processor threads are used
+	 */
+	public void addRowProcessor(RowProcessor processor) {
+		if (processor == null) {
+			throw new IllegalArgumentException("processor cannot be null");
+		}
+		rowProcessors.add(processor);
+	}
+
+	/**
+	 * Run the row processing in a pool of threads between reader and writers.
+	 * The built-in processing (trim, strip none UTF-8 characters, string dictionary, value and time range, fixed values)
+	 * moves from the reader into this pool, so the reader only fetches from the result set.
+	 * @param countRowProcessorThreads 0 (default) processes the rows in the reader
+	 */
+	public void setCountRowProcessorThreads(Integer countRowProcessorThreads) {
+		if (countRowProcessorThreads != null) {
+			if (countRowProcessorThreads < 0) {
+				throw new IllegalArgumentException("countRowProcessorThreads cannot be negative");
+			}
+			this.countRowProcessorThreads = countRowProcessorThreads;
+		}
+	}
+
+	/**
+	 * @param rowProcessorOrdered true (default) keeps the order of the rows, 
+	 * false passes the rows to the writers as soon as they are processed
+	 */
+	public void setRowProcessorOrdered(Boolean rowProcessorOrdered) {
+		if (rowProcessorOrdered != null) {
+			this.rowProcessorOrdered = rowProcessorOrdered;
+		}
+	}
+
+	/**
+	 * Write the rows read by this transfer also into the table of the sink.
+	 * The sink is a transfer with its own target connection, code generator (by its class), target table, 
+	 * column mapping, queue and batch and commit settings. It must write only into its table 
+	 * and must be set up (without source) before this transfer executes.
+	 * The source reads once and waits for the slowest sink.
+	 * Fixed column values and rows routed by key of the sink are not used, the rows come as read by this transfer.
+	 * @param sink
+	 */
+	public void addSink(TableTransfer sink) {
+		if (sink == null || sink == this) {
+			throw new IllegalArgumentException("sink cannot be null or the source itself");
+		}
+		if (sink.fanOutSource != null && sink.fanOutSource != this) {
+			throw new IllegalArgumentException("The sink for table: " + sink.getTargetTableAsGiven() + " is already used by another transfer");
+		}
+		sink.fanOutSource = this;
+		sinks.add(sink);
+	}
+
+	public List<TableTransfer> getSinks() {
+		return sinks;
+	}
+
+	/**
+	 * @param detachFailingSinks true: a failing sink will be detached and the other sinks continue, 
+	 * false (default): a failing sink stops the whole transfer
+	 */
+	public void setDetachFailingSinks(Boolean detachFailingSinks) {
+		if (detachFailingSinks != null) {
+			this.detachFailingSinks = detachFailingSinks;
+		}
+	}
+
+	/**
+	 * @return true if this sink has been detached from its source because it failed
+	 */
+	public boolean isDetached() {
+		return detached;
+	}
+
+	/**
+	 * Copy the values from the source result set directly into the target statement 
+	 * without rows, queues and writer threads. Every column is copied with a typed get/set pair chosen once.
+	 * With a target connection factory the next batch is filled while the current batch is executed
+	 * with a second target connection. The batches of both connections are committed independently, 
+	 * therefore the second connection is only used if this component commits (doCommit true). 
+	 * With an external commit all batches are executed with the target connection in the read thread.
+	 * Only used with die on error and if the transfer writes with one writer only into the table 
+	 * (no backup file, partitions, value or time range, fixed values, row processors, sinks, autotune and special writers).
+	 * @param useDirectCopy
+	 */
+	public void setUseDirectCopy(Boolean useDirectCopy) {
+		if (useDirectCopy != null) {
+			this.useDirectCopy = useDirectCopy;
+		}
+	}
+
+	/**
+	 * @return true if the current execution copies directly
+	 */
+	public boolean isDirectCopy() {
+		return directCopy;
+	}
+
+	/**
+	 * @return true if the configuration allows the direct copy, subclasses return false for their special writers
+	 */
+	protected boolean isDirectCopyPossible() {
+		// a failed batch ends the direct copy, it cannot continue with the next batch
+		return dieOnError 
+				&& outputToTable 
+				&& outputToFile == false 
+				&& countWriters == 1 
+				&& sourcePartitions == null 
+				&& valueRangeColumn == null 
+				&& timeRangeColumn == null 
+				&& fixedColumnValueList.isEmpty() 
+				&& rowProcessors.isEmpty() 
+				&& countRowProcessorThreads == 0 
+				&& sinks.isEmpty() 
+				&& fanOutSource == null 
+				&& autoTune == false 
+				&& (insertRowsPerStatement == 1 || runOnlyUpdates);
+	}
+
+	/**
+	 * Adjust the number of writers while the transfer runs.
+	 * The tuner samples the occupancy of the table queue and the time readers and writers wait for each other.
+	 * If the target is the bottleneck, a writer will be added, if the source is the bottleneck, a writer will be removed.
+	 * Additional writers need a target connection factory. Decisions are logged with their figures.
+	 * Cannot be used with the ring buffer or with rows routed by key.
+	 * @param autoTune
+	 */
+	public void setAutoTune(Boolean autoTune) {
+		if (autoTune != null) {
+			this.autoTune = autoTune;
+		}
+	}
+
+	/**
+	 * @param min min number of writers for autotune, default 1
+	 * @param max max number of writers for autotune, default 4
+	 */
+	public void setAutoTuneWriterLimits(Integer min, Integer max) {
+		if (min != null) {
+			if (min < 1) {
+				throw new IllegalArgumentException("min writers must be greater 0");
+			}
+			this.autoTuneMinWriters = min;
+		}
+		if (max != null) {
+			if (max < 1) {
+				throw new IllegalArgumentException("max writers must be greater 0");
+			}
+			this.autoTuneMaxWriters = max;
+		}
+	}
+
+	/**
+	 * @param autoTuneIntervalMillis time between two autotune decisions in ms, default 5000
+	 */
+	public void setAutoTuneIntervalMillis(Integer autoTuneIntervalMillis) {
+		if (autoTuneIntervalMillis != null) {
+			this.autoTuneIntervalMillis = autoTuneIntervalMillis;
+		}
+	}
+
+	/**
+	 * Replace repeated string values of a column by one instance.
+	 * Every string column gets a bounded dictionary (least recently used values are removed).
+	 * The dictionary of a column switches itself off if less than half of the first 10000 values are repeated.
+	 * Reduces the memory of the rows in the queues for low cardinality columns (e.g. status codes or currencies).
+	 * @param useStringDictionary
+	 */
+	public void setUseStringDictionary(Boolean useStringDictionary) {
+		if (useStringDictionary != null) {
+			this.useStringDictionary = useStringDictionary;
+		}
+	}
+
+	/**
+	 * @param stringDictionaryMaxSize max number of distinct values per column, default 1024
+	 */
+	public void setStringDictionaryMaxSize(Integer stringDictionaryMaxSize) {
+		if (stringDictionaryMaxSize != null) {
+			if (stringDictionaryMaxSize < 1) {
+				throw new IllegalArgumentException("stringDictionaryMaxSize must be greater 0");
+			}
+			this.stringDictionaryMaxSize = stringDictionaryMaxSize;
+		}
+	}
+
+	/**
+	 * @return count string values replaced by an instance from the dictionaries
+	 */
+	public long getStringDictionaryCountHits() {
+		long hits = 0;
+		if (stringDictionaries != null) {
+			for (StringDictionary d : stringDictionaries) {
+				if (d != null) {
+					hits = hits + d.getCountHits();
+				}
+			}
+		}
+		return hits;
+	}
+
+	/**
+	 * @return count columns with a still enabled string dictionary
+	 */
+	public int getStringDictionaryCountActive() {
+		int count = 0;
+		if (stringDictionaries != null) {
+			for (StringDictionary d : stringDictionaries) {
+				if (d != null && d.isEnabled()) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @return count free chunks of rows in the pool, 0 if the rows are not recycled
+	 */
+	public int getRowPoolCountFreeChunks() {
+		return rowPool != null ? rowPool.getCountFreeChunks() : 0;
+	}
+
+	/**
+	 * @return count new allocated row arrays, 0 if the rows are not recycled
+	 */
+	public long getRowPoolCountRowsAllocated() {
+		return rowPool != null ? rowPool.getCountRowsAllocated() : 0;
+	}
+
+	/**
+	 * @return count reused row arrays, 0 if the rows are not recycled
+	 */
+	public long getRowPoolCountRowsReused() {
+		return rowPool != null ? rowPool.getCountRowsReused() : 0;
+	}
+
+	/**
+	 * @return new allocated row arrays per second since the start of the read
+	 */
+	public double getRowPoolAllocationRate() {
+		final long duration = System.currentTimeMillis() - startTime;
+		if (rowPool == null || startTime == 0 || duration <= 0) {
+			return 0;
+		}
+		return rowPool.getCountRowsAllocated() * 1000d / duration;
+	}
+
+	public int getInsertRowsPerStatement() {
+		return insertRowsPerStatement;
+	}
+
+	/**
+	 * set the number of rows in one insert statement (values (...),(...),...). 
+	 * The number will be reduced to the max number of parameters the database accepts.
+	 * The database must support multiple rows in the values clause.
+	 * PostgreSQL rejects on conflict update if the same key appears twice in one statement 
+	 * (cannot affect row a second time).
+	 * @param insertRowsPerStatement default is 1
+	 */
+	public void setInsertRowsPerStatement(Integer insertRowsPerStatement) {
+		if (insertRowsPerStatement != null) {
+			if (insertRowsPerStatement < 1) {
+				throw new IllegalArgumentException("insertRowsPerStatement must be greater 0");
+			}
+			this.insertRowsPerStatement = insertRowsPerStatement;
+		}
+	}
+
 	public boolean isUseQuotingForAllTypes() {
 		return useQuotingForAllTypes;
 	}
@@ -0,0 +1,89 @@
+/**
+ * Copyright 2024 Jan Lolling jan.lolling@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.jlo.talendcomp.tabletransfer;
+
+import java.sql.Connection;
+
+/**
+ * Writes the rows from the queue into the target table.
+ * The writer thread of the TableTransfer takes care of the queue, the commits and the error handling.
+ */
+public abstract class TableWriter {
+	
+	private final TableTransfer tableTransfer;
+	private final Connection connection;
+	private final int batchSize;
+	
+	public TableWriter(TableTransfer tableTransfer, Connection connection, int batchSize) {
+		if (tableTransfer == null) {
+			throw new IllegalArgumentException("tableTransfer cannot be null");
+		}
+		this.tableTransfer = tableTransfer;
+		this.connection = connection;
+		this.batchSize = batchSize;
+	}
+	
+	public TableTransfer getTableTransfer() {
+		return tableTransfer;
+	}
+	
+	public Connection getConnection() {
+		return connection;
+	}
+	
+	/**
+	 * @return count rows after which executeBatch and the commit will be done
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * prepares the statements. Will be called with the first row because the source fields must be known.
+	 * @throws Exception
+	 */
+	public abstract void prepare() throws Exception;
+	
+	/**
+	 * adds a row to the current batch
+	 * @param row
+	 * @throws Exception
+	 */
+	public abstract void addRow(Object[] row) throws Exception;
+	
+	/**
+	 * adds a row of a columnar batch to the current batch.
+	 * This implementation boxes the values, writers binding the primitive values directly override it.
+	 * @param batch
+	 * @param rowIndex
+	 * @throws Exception
+	 */
+	public void addRow(ColumnBatch batch, int rowIndex) throws Exception {
+		addRow(batch.getRow(rowIndex));
+	}
+	
+	/**
+	 * sends the current batch to the database
+	 * @throws Exception
+	 */
+	public abstract void executeBatch() throws Exception;
+	
+	/**
+	 * releases the statements. Must not throw exceptions.
+	 */
+	public abstract void close();
+
+}
@@ -0,0 +1,190 @@
+/**
+ * Copyright 2024 Jan Lolling jan.lolling@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.jlo.talendcomp.tabletransfer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Adjusts the number of parallel writers while the transfer runs.
+ * The tuner samples the occupancy of the table queue and the time the readers wait to put chunks
+ * and the writers wait to get chunks. 
+ * <ul>
+ * <li>target-bound (full queue or waiting readers): adds a writer up to the max number of writers</li>
+ * <li>source-bound (empty queue and waiting writers): removes a writer down to the min number of writers</li>
+ * </ul>
+ * Every decision and its figures are logged. The tuner ends with the last reader.
+ */
+public class TransferAutoTuner implements Runnable {
+
+	private static final long SAMPLE_INTERVAL_MILLIS = 200;
+	static final double FULL_OCCUPANCY = 0.75;
+	static final double EMPTY_OCCUPANCY = 0.25;
+	static final double BLOCKED_RATIO = 0.5;
+	private final TableTransfer tableTransfer;
+	private final TimedQueue queue;
+	private final int capacity;
+	private final int minWriters;
+	private final int maxWriters;
+	private final long decisionIntervalMillis;
+	private int countWritersAdded = 0;
+	private int countWritersRemoved = 0;
+
+	/**
+	 * Measures the time spent waiting in put and poll of a queue.
+	 */
+	public static final class TimedQueue implements RowChunkQueue {
+
+		private final RowChunkQueue queue;
+		private final AtomicLong nanosInPut = new AtomicLong();
+		private final AtomicLong nanosInPoll = new AtomicLong();
+
+		public TimedQueue(RowChunkQueue queue) {
+			if (queue == null) {
+				throw new IllegalArgumentException("queue cannot be null");
+			}
+			this.queue = queue;
+		}
+
+		@Override
+		public void put(Object[][] chunk) throws InterruptedException {
+			final long start = System.nanoTime();
+			try {
+				queue.put(chunk);
+			} finally {
+				nanosInPut.addAndGet(System.nanoTime() - start);
+			}
+		}
+
+		@Override
+		public Object[][] poll(long timeout, TimeUnit unit) throws InterruptedException {
+			final long start = System.nanoTime();
+			try {
+				return queue.poll(timeout, unit);
+			} finally {
+				nanosInPoll.addAndGet(System.nanoTime() - start);
+			}
+		}
+
+		@Override
+		public int size() {
+			return queue.size();
+		}
+
+		public RowChunkQueue getQueue() {
+			return queue;
+		}
+
+		public long getNanosInPut() {
+			return nanosInPut.get();
+		}
+
+		public long getNanosInPoll() {
+			return nanosInPoll.get();
+		}
+
+	}
+
+	/**
+	 * @param tableTransfer the transfer to tune
+	 * @param queue the measured table queue
+	 * @param capacity the capacity of the queue in chunks
+	 * @param minWriters min number of writers
+	 * @param maxWriters max number of writers
+	 * @param decisionIntervalMillis time between two decisions
+	 */
+	public TransferAutoTuner(TableTransfer tableTransfer, TimedQueue queue, int capacity, int minWriters, int maxWriters, long decisionIntervalMillis) {
+		if (minWriters < 1 || maxWriters < minWriters) {
+			throw new IllegalArgumentException("Invalid writer limits min: " + minWriters + " max: " + maxWriters);
+		}
+		this.tableTransfer = tableTransfer;
+		this.queue = queue;
+		this.capacity = Math.max(1, capacity);
+		this.minWriters = minWriters;
+		this.maxWriters = maxWriters;
+		this.decisionIntervalMillis = Math.max(SAMPLE_INTERVAL_MILLIS, decisionIntervalMillis);
+	}
+
+	@Override
+	public void run() {
+		long lastTime = System.nanoTime();
+		long lastNanosInPut = queue.getNanosInPut();
+		long lastNanosInPoll = queue.getNanosInPoll();
+		long sumSizes = 0;
+		int countSamples = 0;
+		try {
+			while (tableTransfer.isReading()) {
+				Thread.sleep(SAMPLE_INTERVAL_MILLIS);
+				sumSizes += queue.size();
+				countSamples++;
+				final long now = System.nanoTime();
+				final long elapsed = now - lastTime;
+				if (elapsed >= TimeUnit.MILLISECONDS.toNanos(decisionIntervalMillis)) {
+					final long nanosInPut = queue.getNanosInPut();
+					final long nanosInPoll = queue.getNanosInPoll();
+					final double occupancy = sumSizes / (double) (countSamples * capacity);
+					final double readerBlocked = (nanosInPut - lastNanosInPut) / (double) (elapsed * Math.max(1, tableTransfer.getCountActiveReaders()));
+					final double writerIdle = (nanosInPoll - lastNanosInPoll) / (double) (elapsed * Math.max(1, tableTransfer.getCountActiveWriters()));
+					decide(occupancy, readerBlocked, writerIdle);
+					lastTime = now;
+					lastNanosInPut = nanosInPut;
+					lastNanosInPoll = nanosInPoll;
+					sumSizes = 0;
+					countSamples = 0;
+				}
+			}
+		} catch (InterruptedException e) {
+			// the transfer has been stopped
+		}
+		tableTransfer.info("Autotune ended: writers added: " + countWritersAdded + ", removed: " + countWritersRemoved);
+	}
+
+	private void decide(double occupancy, double readerBlocked, double writerIdle) {
+		final int writers = tableTransfer.getCountActiveWriters();
+		final String figures = "queue occupancy: " + TableTransfer.roundScale2(occupancy * 100) + "%, readers blocked: " 
+				+ TableTransfer.roundScale2(readerBlocked * 100) + "%, writers idle: " + TableTransfer.roundScale2(writerIdle * 100) 
+				+ "%, writers: " + writers;
+		if (occupancy >= FULL_OCCUPANCY || readerBlocked >= BLOCKED_RATIO) {
+			if (writers >= maxWriters) {
+				tableTransfer.info("Autotune: target-bound (" + figures + "), max writers: " + maxWriters + " reached");
+			} else if (tableTransfer.addWriter()) {
+				countWritersAdded++;
+				tableTransfer.info("Autotune: target-bound (" + figures + "), added a writer");
+			} else {
+				tableTransfer.info("Autotune: target-bound (" + figures + "), cannot add a writer");
+			}
+		} else if (occupancy <= EMPTY_OCCUPANCY && writerIdle >= BLOCKED_RATIO) {
+			if (writers <= minWriters) {
+				tableTransfer.info("Autotune: source-bound (" + figures + "), min writers: " + minWriters 
+						+ " reached. More source partitions or a larger fetch size could help.");
+			} else if (tableTransfer.retireWriter()) {
+				countWritersRemoved++;
+				tableTransfer.info("Autotune: source-bound (" + figures + "), removed a writer");
+			}
+		} else if (tableTransfer.isDebugEnabled()) {
+			tableTransfer.debug("Autotune: balanced (" + figures + ")");
+		}
+	}
+
+	public int getCountWritersAdded() {
+		return countWritersAdded;
+	}
+
+	public int getCountWritersRemoved() {
+		return countWritersRemoved;
+	}
+
+}
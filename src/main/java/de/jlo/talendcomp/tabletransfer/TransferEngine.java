@@ -0,0 +1,292 @@
+/**
+ * Copyright 2024 Jan Lolling jan.lolling@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.jlo.talendcomp.tabletransfer;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.jlo.datamodel.SQLDataModel;
+
+/**
+ * Keeps the expensive resources of transfers which are executed again and again (e.g. in a loop of a job).
+ * One engine can be shared by many TableTransfer instances, also by transfers running in parallel.
+ * <ul>
+ * <li>the reader and writer threads are taken from a pool</li>
+ * <li>the data model of the target table is kept as long as the columns of the target table do not change, 
+ * transfers running in parallel share the model and use it only while holding its lock</li>
+ * <li>the prepared target statements are kept per connection and SQL</li>
+ * </ul>
+ * The engine should be closed at the end of the job.
+ */
+public class TransferEngine {
+
+	private final ExecutorService executor;
+	private final Map<String, ModelEntry> models = new HashMap<>();
+	private final Map<Connection, Map<String, List<PreparedStatement>>> freeStatements = new IdentityHashMap<>();
+	private final Map<PreparedStatement, String> lentStatements = new IdentityHashMap<>();
+	private final Map<PreparedStatement, Connection> lentConnections = new IdentityHashMap<>();
+	private long countStatementsReused = 0;
+	private long countModelsReused = 0;
+	private boolean closed = false;
+
+	private static final class ModelEntry {
+
+		private final SQLDataModel model;
+		private final String signature;
+
+		private ModelEntry(SQLDataModel model, String signature) {
+			this.model = model;
+			this.signature = signature;
+		}
+
+	}
+
+	/**
+	 * creates an engine with pooled daemon threads
+	 */
+	public TransferEngine() {
+		this(null);
+	}
+
+	/**
+	 * creates an engine
+	 * @param threadFactory factory for the pooled threads, null to use daemon threads
+	 */
+	public TransferEngine(ThreadFactory threadFactory) {
+		if (threadFactory == null) {
+			threadFactory = new ThreadFactory() {
+
+				private final AtomicInteger counter = new AtomicInteger();
+
+				@Override
+				public Thread newThread(Runnable r) {
+					final Thread t = new Thread(r, "tabletransfer-" + counter.getAndIncrement());
+					// idle pool threads must not prevent the end of the job
+					t.setDaemon(true);
+					return t;
+				}
+
+			};
+		}
+		// every transfer needs all its threads at the same time, therefore the pool is not bounded
+		executor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), threadFactory);
+	}
+
+	/**
+	 * runs the task in a pooled thread
+	 * @param task
+	 */
+	public void execute(Runnable task) {
+		if (closed) {
+			throw new IllegalStateException("The transfer engine is already closed");
+		}
+		executor.execute(task);
+	}
+
+	/**
+	 * reads a signature of the columns of the table. A changed signature means changed meta data.
+	 * @param connection
+	 * @param table the table as used in the SQL
+	 * @return the signature
+	 * @throws Exception
+	 */
+	public String readTableSignature(Connection connection, String table) throws Exception {
+		final StringBuilder sb = new StringBuilder();
+		try (Statement stat = connection.createStatement(); ResultSet rs = stat.executeQuery("select * from " + table + " where 1=0")) {
+			final ResultSetMetaData meta = rs.getMetaData();
+			for (int i = 1; i <= meta.getColumnCount(); i++) {
+				sb.append(meta.getColumnName(i));
+				sb.append(':');
+				sb.append(meta.getColumnTypeName(i));
+				sb.append('(');
+				sb.append(meta.getPrecision(i));
+				sb.append(',');
+				sb.append(meta.getScale(i));
+				sb.append(')');
+				sb.append(meta.isNullable(i));
+				sb.append(';');
+			}
+		} catch (SQLException e) {
+			throw new Exception("Read the signature of table: " + table + " failed: " + e.getMessage(), e);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * @param key the key of the model (e.g. URL and table)
+	 * @param signature the current signature of the table
+	 * @return the cached model or null if there is no model or the signature has been changed
+	 */
+	public synchronized SQLDataModel getTargetModel(String key, String signature) {
+		final ModelEntry entry = models.get(key);
+		if (entry != null && entry.signature.equals(signature)) {
+			countModelsReused++;
+			return entry.model;
+		}
+		return null;
+	}
+
+	/**
+	 * keeps the model for the next transfers
+	 * @param key the key of the model (e.g. URL and table)
+	 * @param signature the current signature of the table
+	 * @param model
+	 */
+	public synchronized void putTargetModel(String key, String signature, SQLDataModel model) {
+		models.put(key, new ModelEntry(model, signature));
+	}
+
+	/**
+	 * takes a prepared statement from the pool or prepares a new one.
+	 * The statement belongs to the caller until it is released.
+	 * @param connection
+	 * @param sql
+	 * @return the statement
+	 * @throws SQLException
+	 */
+	public PreparedStatement takeStatement(Connection connection, String sql) throws SQLException {
+		PreparedStatement ps = null;
+		synchronized (this) {
+			removeClosedConnections();
+			final Map<String, List<PreparedStatement>> bySQL = freeStatements.get(connection);
+			if (bySQL != null) {
+				final List<PreparedStatement> list = bySQL.get(sql);
+				if (list != null && list.isEmpty() == false) {
+					ps = list.remove(list.size() - 1);
+					countStatementsReused++;
+				}
+			}
+		}
+		if (ps == null) {
+			ps = connection.prepareStatement(sql);
+		}
+		synchronized (this) {
+			lentStatements.put(ps, sql);
+			lentConnections.put(ps, connection);
+		}
+		return ps;
+	}
+
+	/**
+	 * returns the statement into the pool. Statements not taken from the pool will be closed.
+	 * @param ps
+	 */
+	public void releaseStatement(PreparedStatement ps) {
+		final String sql;
+		final Connection connection;
+		synchronized (this) {
+			sql = lentStatements.remove(ps);
+			connection = lentConnections.remove(ps);
+		}
+		boolean keep = sql != null && closed == false;
+		if (keep) {
+			try {
+				ps.clearBatch();
+				ps.clearParameters();
+				keep = connection.isClosed() == false;
+			} catch (SQLException e) {
+				keep = false;
+			}
+		}
+		if (keep) {
+			synchronized (this) {
+				Map<String, List<PreparedStatement>> bySQL = freeStatements.get(connection);
+				if (bySQL == null) {
+					bySQL = new HashMap<>();
+					freeStatements.put(connection, bySQL);
+				}
+				List<PreparedStatement> list = bySQL.get(sql);
+				if (list == null) {
+					list = new ArrayList<>();
+					bySQL.put(sql, list);
+				}
+				list.add(ps);
+			}
+		} else {
+			closeQuietly(ps);
+		}
+	}
+
+	private void removeClosedConnections() {
+		final Iterator<Map.Entry<Connection, Map<String, List<PreparedStatement>>>> it = freeStatements.entrySet().iterator();
+		while (it.hasNext()) {
+			final Map.Entry<Connection, Map<String, List<PreparedStatement>>> entry = it.next();
+			boolean isClosed = true;
+			try {
+				isClosed = entry.getKey().isClosed();
+			} catch (SQLException e) {
+				// treat as closed
+			}
+			if (isClosed) {
+				it.remove();
+			}
+		}
+	}
+
+	private static void closeQuietly(PreparedStatement ps) {
+		try {
+			ps.close();
+		} catch (SQLException e) {
+			// intentionally empty
+		}
+	}
+
+	public synchronized long getCountStatementsReused() {
+		return countStatementsReused;
+	}
+
+	public synchronized long getCountModelsReused() {
+		return countModelsReused;
+	}
+
+	/**
+	 * closes all pooled statements and stops the idle threads. Running tasks will be finished.
+	 */
+	public void close() {
+		final List<PreparedStatement> toClose = new ArrayList<>();
+		synchronized (this) {
+			closed = true;
+			for (Map<String, List<PreparedStatement>> bySQL : freeStatements.values()) {
+				for (List<PreparedStatement> list : bySQL.values()) {
+					toClose.addAll(list);
+				}
+			}
+			freeStatements.clear();
+			models.clear();
+		}
+		for (PreparedStatement ps : toClose) {
+			closeQuietly(ps);
+		}
+		executor.shutdown();
+	}
+
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright 2024 Jan Lolling jan.lolling@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.jlo.talendcomp.tabletransfer;
+
+/**
+ * The result of one execution of a transfer.
+ */
+public class TransferResult {
+
+	private final int countRead;
+	private final int countInserts;
+	private final int countFileRows;
+	private final long startTime;
+	private final long endTime;
+	private final int returnCode;
+	private final String errorMessage;
+	private final Exception errorException;
+
+	TransferResult(int countRead, int countInserts, int countFileRows, long startTime, long endTime, int returnCode, String errorMessage, Exception errorException) {
+		this.countRead = countRead;
+		this.countInserts = countInserts;
+		this.countFileRows = countFileRows;
+		this.startTime = startTime;
+		this.endTime = endTime;
+		this.returnCode = returnCode;
+		this.errorMessage = errorMessage;
+		this.errorException = errorException;
+	}
+
+	public int getCountRead() {
+		return countRead;
+	}
+
+	/**
+	 * @return count rows written into the target table
+	 */
+	public int getCountInserts() {
+		return countInserts;
+	}
+
+	/**
+	 * @return count rows written into the backup file
+	 */
+	public int getCountFileRows() {
+		return countFileRows;
+	}
+
+	/**
+	 * @return the start of the read in ms, 0 if the read has not been started
+	 */
+	public long getStartTime() {
+		return startTime;
+	}
+
+	public long getEndTime() {
+		return endTime;
+	}
+
+	/**
+	 * @return duration in ms between start of read and end of the last writer
+	 */
+	public long getDuration() {
+		return startTime > 0 ? endTime - startTime : 0;
+	}
+
+	public int getReturnCode() {
+		return returnCode;
+	}
+
+	public boolean isSuccessful() {
+		return returnCode == 0;
+	}
+
+	public String getErrorMessage() {
+		return errorMessage;
+	}
+
+	public Exception getErrorException() {
+		return errorException;
+	}
+
+	@Override
+	public String toString() {
+		return "read: " + countRead + " inserts: " + countInserts + " file rows: " + countFileRows + " duration: " + getDuration() + "ms return code: " + returnCode;
+	}
+
+}
@@ -0,0 +1,58 @@
+/**
+ * Copyright 2024 Jan Lolling jan.lolling@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.jlo.talendcomp.tabletransfer;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates virtual threads (Java 21 and newer).
+ * The API is accessed by reflection because the component is compiled for Java 8.
+ */
+public final class VirtualThreads {
+	
+	private VirtualThreads() {}
+
+	/**
+	 * @return true if the running JVM supports virtual threads
+	 */
+	public static boolean isSupported() {
+		try {
+			Thread.class.getMethod("ofVirtual");
+			return true;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * creates a thread factory for virtual threads
+	 * @param namePrefix the threads will be named namePrefix + counter
+	 * @return the factory or null if virtual threads are not supported
+	 * @throws Exception if the factory cannot be created
+	 */
+	public static ThreadFactory createFactory(String namePrefix) throws Exception {
+		if (isSupported() == false) {
+			return null;
+		}
+		final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+		final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+		final Method name = builderClass.getMethod("name", String.class, long.class);
+		final Object namedBuilder = name.invoke(builder, namePrefix, 0l);
+		return (ThreadFactory) builderClass.getMethod("factory").invoke(namedBuilder);
+	}
+
+}
@@ -0,0 +1,40 @@
+package de.jlo.datamodel.generator;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import de.jlo.datamodel.SQLStatement;
+
+public class MysqlSQLCodeGeneratorTest {
+
+	@Test
+	public void testMultiRowInsert() throws Exception {
+		final MysqlSQLCodeGenerator generator = new MysqlSQLCodeGenerator();
+		final SQLStatement stat = generator.buildInsertSQLStatement(TestTables.createTable(), true, false, false, 3);
+		assertEquals("insert into s.t (id,name,changed)\n values(?,?,?),\n(?,?,?),\n(?,?,?)", stat.getSQL());
+		assertEquals(9, stat.getCountParameters());
+		assertEquals("id", stat.getParam(4).getName());
+	}
+
+	@Test
+	public void testMultiRowInsertOnDuplicateKeyUpdate() throws Exception {
+		final MysqlSQLCodeGenerator generator = new MysqlSQLCodeGenerator();
+		final SQLStatement stat = generator.buildInsertSQLStatement(TestTables.createTable(), true, false, true, 2);
+		assertEquals("insert into s.t (id,name,changed)\n values(?,?,?),\n(?,?,?)"
+				+ "\n on duplicate key update \n\tname = values(name),\n\tchanged = ?", stat.getSQL());
+		// the fixed value of the update clause follows after the rows
+		assertEquals(7, stat.getCountParameters());
+		assertEquals("changed", stat.getParam(7).getName());
+		assertEquals(7, stat.getParam(7).getIndex());
+	}
+
+	@Test
+	public void testMultiRowInsertIgnore() throws Exception {
+		final MysqlSQLCodeGenerator generator = new MysqlSQLCodeGenerator();
+		final SQLStatement stat = generator.buildInsertSQLStatement(TestTables.createTable(), false, true, false, 2);
+		assertEquals("insert ignore into t (id,name,changed)\n values(?,?,?),\n(?,?,?)", stat.getSQL());
+		assertEquals(6, stat.getCountParameters());
+	}
+
+}
@@ -0,0 +1,59 @@
+package de.jlo.datamodel.generator;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import de.jlo.datamodel.SQLStatement;
+
+public class PostgresqlSQLCodeGeneratorTest {
+
+	@Test
+	public void testMultiRowInsert() throws Exception {
+		final PostgresqlSQLCodeGenerator generator = new PostgresqlSQLCodeGenerator();
+		final SQLStatement stat = generator.buildInsertSQLStatement(TestTables.createTable(), true, false, false, 3);
+		assertEquals("insert into s.t (id,name,changed)\n values (?,?,?),\n(?,?,?),\n(?,?,?)", stat.getSQL());
+		assertEquals(9, stat.getCountParameters());
+		assertEquals("id", stat.getParam(7).getName());
+	}
+
+	@Test
+	public void testMultiRowInsertOnConflictUpdate() throws Exception {
+		final PostgresqlSQLCodeGenerator generator = new PostgresqlSQLCodeGenerator();
+		final SQLStatement stat = generator.buildInsertSQLStatement(TestTables.createTable(), true, false, true, 2);
+		assertEquals("insert into s.t (id,name,changed)\n values (?,?,?),\n(?,?,?)"
+				+ "\n on conflict (id) do update set \n\tname = excluded.name,\n\tchanged = ?", stat.getSQL());
+		// the fixed value of the update clause follows after the rows
+		assertEquals(7, stat.getCountParameters());
+		assertEquals("changed", stat.getParam(7).getName());
+	}
+
+	@Test
+	public void testMultiRowInsertOnConflictIgnore() throws Exception {
+		final PostgresqlSQLCodeGenerator generator = new PostgresqlSQLCodeGenerator();
+		final SQLStatement stat = generator.buildInsertSQLStatement(TestTables.createTable(), false, true, false, 2);
+		assertEquals("insert into t (id,name,changed)\n values (?,?,?),\n(?,?,?)\n on conflict (id) do nothing", stat.getSQL());
+		assertEquals(6, stat.getCountParameters());
+	}
+
+	@Test
+	public void testUnnestInsert() throws Exception {
+		final PostgresqlSQLCodeGenerator generator = new PostgresqlSQLCodeGenerator();
+		final SQLStatement stat = generator.buildUnnestInsertSQLStatement(TestTables.createTable(), true, false, false);
+		// serial types are not usable as array element type
+		assertEquals("insert into s.t (id,name,changed)\n select * from unnest(?::int8[],?::text[],?::timestamp[])", stat.getSQL());
+		assertEquals(3, stat.getCountParameters());
+	}
+
+	@Test
+	public void testUnnestInsertOnConflictUpdate() throws Exception {
+		final PostgresqlSQLCodeGenerator generator = new PostgresqlSQLCodeGenerator();
+		final SQLStatement stat = generator.buildUnnestInsertSQLStatement(TestTables.createTable(), true, false, true);
+		assertEquals("insert into s.t (id,name,changed)\n select * from unnest(?::int8[],?::text[],?::timestamp[])"
+				+ "\n on conflict (id) do update set \n\tname = excluded.name,\n\tchanged = ?", stat.getSQL());
+		// the fixed value of the update clause is a single value after the arrays
+		assertEquals(4, stat.getCountParameters());
+		assertEquals("changed", stat.getParam(4).getName());
+	}
+
+}
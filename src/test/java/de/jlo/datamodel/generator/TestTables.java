@@ -0,0 +1,69 @@
+package de.jlo.datamodel.generator;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+
+import de.jlo.datamodel.SQLDataModel;
+import de.jlo.datamodel.SQLField;
+import de.jlo.datamodel.SQLSchema;
+import de.jlo.datamodel.SQLTable;
+
+/**
+ * builds table models for the code generator tests without a database
+ */
+class TestTables {
+
+	/**
+	 * a connection which only answers the questions of the SQLDataModel constructor
+	 */
+	private static Connection createConnection() {
+		final DatabaseMetaData metaData = (DatabaseMetaData) Proxy.newProxyInstance(
+				TestTables.class.getClassLoader(),
+				new Class<?>[] {DatabaseMetaData.class},
+				new InvocationHandler() {
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+						return null;
+					}
+				});
+		return (Connection) Proxy.newProxyInstance(
+				TestTables.class.getClassLoader(),
+				new Class<?>[] {Connection.class},
+				new InvocationHandler() {
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+						if ("getMetaData".equals(method.getName())) {
+							return metaData;
+						} else if ("isClosed".equals(method.getName())) {
+							return false;
+						}
+						return null;
+					}
+				});
+	}
+
+	/**
+	 * @return table s.t with the primary key id, the field name and the fixed value field changed
+	 */
+	static SQLTable createTable() throws Exception {
+		final SQLDataModel model = new SQLDataModel(createConnection());
+		final SQLTable table = new SQLTable(model, new SQLSchema(model, "s"), "t");
+		final SQLField id = new SQLField(model, table, "id");
+		id.setTypeName("bigserial");
+		id.setPrimaryKey(true);
+		table.addField(id);
+		final SQLField name = new SQLField(model, table, "name");
+		name.setTypeName("text");
+		table.addField(name);
+		final SQLField changed = new SQLField(model, table, "changed");
+		changed.setTypeName("timestamp");
+		changed.setIsFixedValue(true);
+		table.addField(changed);
+		table.setFieldsLoaded();
+		return table;
+	}
+
+}
@@ -0,0 +1,101 @@
+package de.jlo.talendcomp.tabletransfer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class BoundedExecutorTest {
+
+	private final AtomicInteger countThreadsStarted = new AtomicInteger();
+
+	private final Executor threadStarter = new Executor() {
+
+		@Override
+		public void execute(Runnable command) {
+			countThreadsStarted.incrementAndGet();
+			final Thread t = new Thread(command);
+			t.setDaemon(true);
+			t.start();
+		}
+
+	};
+
+	@Test(timeout = 10000)
+	public void testMaxThreads() throws Exception {
+		final BoundedExecutor executor = new BoundedExecutor(threadStarter, 2);
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicInteger maxRunning = new AtomicInteger();
+		final int countTasks = 50;
+		final CountDownLatch done = new CountDownLatch(countTasks);
+		for (int i = 0; i < countTasks; i++) {
+			executor.execute(new Runnable() {
+
+				@Override
+				public void run() {
+					final int r = running.incrementAndGet();
+					maxRunning.accumulateAndGet(r, Math::max);
+					try {
+						Thread.sleep(1);
+					} catch (InterruptedException e) {
+						// ignore
+					}
+					running.decrementAndGet();
+					done.countDown();
+				}
+
+			});
+		}
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertTrue("Max running: " + maxRunning.get(), maxRunning.get() <= 2);
+		assertTrue("Threads started: " + countThreadsStarted.get(), countThreadsStarted.get() <= countTasks);
+	}
+
+	@Test(timeout = 10000)
+	public void testShutdownNow() throws Exception {
+		final BoundedExecutor executor = new BoundedExecutor(threadStarter, 1);
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch interrupted = new CountDownLatch(1);
+		executor.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				started.countDown();
+				try {
+					Thread.sleep(10000);
+				} catch (InterruptedException e) {
+					interrupted.countDown();
+				}
+			}
+
+		});
+		final FutureTask<Object> waiting = new FutureTask<Object>(new Runnable() {
+
+			@Override
+			public void run() {
+				fail("The waiting task must not run");
+			}
+
+		}, null);
+		executor.execute(waiting);
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		executor.shutdownNow();
+		assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+		assertTrue(waiting.isCancelled());
+		try {
+			executor.execute(waiting);
+			fail("RejectedExecutionException expected");
+		} catch (RejectedExecutionException e) {
+			assertEquals(1, countThreadsStarted.get());
+		}
+	}
+
+}
@@ -0,0 +1,98 @@
+package de.jlo.talendcomp.tabletransfer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.math.BigDecimal;
+import java.sql.SQLDataException;
+import java.sql.Timestamp;
+import java.time.Instant;
+
+import org.junit.Test;
+
+public class PostgresqlBinaryEncoderTest {
+
+	private static DataInputStream encode(String typeName, Object value) throws Exception {
+		final ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		final DataOutputStream out = new DataOutputStream(bout);
+		PostgresqlBinaryEncoder.create(typeName).encode(out, value);
+		out.flush();
+		return new DataInputStream(new ByteArrayInputStream(bout.toByteArray()));
+	}
+
+	private static void assertNumeric(Object value, int weight, int sign, int dscale, int... digits) throws Exception {
+		final DataInputStream in = encode("numeric", value);
+		assertEquals(8 + digits.length * 2, in.readInt());
+		assertEquals(digits.length, in.readShort());
+		assertEquals(weight, in.readShort());
+		assertEquals(sign, in.readShort() & 0xFFFF);
+		assertEquals(dscale, in.readShort());
+		for (int digit : digits) {
+			assertEquals(digit, in.readShort());
+		}
+		assertEquals(0, in.available());
+	}
+
+	private static void assertRejected(String typeName, Object value) throws Exception {
+		try {
+			encode(typeName, value);
+			fail("Value: " + value + " must be rejected for type " + typeName);
+		} catch (SQLDataException e) {
+			// expected
+		}
+	}
+
+	private static long readLong(String typeName, Object value) throws Exception {
+		final DataInputStream in = encode(typeName, value);
+		assertEquals(8, in.readInt());
+		return in.readLong();
+	}
+
+	@Test
+	public void testNumeric() throws Exception {
+		assertNumeric(new BigDecimal("12345.678"), 1, 0x0000, 3, 1, 2345, 6780);
+		assertNumeric(new BigDecimal("-0.0001"), -1, 0x4000, 4, 1);
+		assertNumeric(new BigDecimal("1E+5"), 1, 0x0000, 0, 10);
+		assertNumeric(BigDecimal.ZERO, 0, 0x0000, 0);
+		assertNumeric("  -20000.50 ", 1, 0x4000, 2, 2, 0, 5000);
+		assertNumeric(42, 0, 0x0000, 0, 42);
+		assertNumeric("NaN", 0, 0xC000, 0);
+		assertNumeric(Double.NaN, 0, 0xC000, 0);
+	}
+
+	@Test
+	public void testInvalidNumbers() throws Exception {
+		assertRejected("numeric", Double.POSITIVE_INFINITY);
+		assertRejected("numeric", "abc");
+		assertRejected("int2", 40000);
+		assertRejected("int4", "1.5");
+		assertRejected("int4", Long.MAX_VALUE);
+		assertRejected("int8", "12x");
+		assertRejected("float4", Double.MAX_VALUE);
+	}
+
+	@Test
+	public void testTimestamp() throws Exception {
+		assertEquals(0l, readLong("timestamp", Timestamp.valueOf("2000-01-01 00:00:00")));
+		assertEquals(1500000l, readLong("timestamp", "2000-01-01 00:00:01.5"));
+		assertEquals(-1000000l, readLong("timestamp", Timestamp.valueOf("1999-12-31 23:59:59")));
+		assertEquals(86400000000l + 123l, readLong("timestamptz", Timestamp.from(Instant.parse("2000-01-02T00:00:00.000123Z"))));
+		assertRejected("timestamp", "yesterday");
+	}
+
+	@Test
+	public void testDate() throws Exception {
+		DataInputStream in = encode("date", "2000-01-02");
+		assertEquals(4, in.readInt());
+		assertEquals(1, in.readInt());
+		in = encode("date", java.sql.Date.valueOf("1999-12-31"));
+		assertEquals(4, in.readInt());
+		assertEquals(-1, in.readInt());
+		assertRejected("date", "31.12.1999");
+	}
+
+}
@@ -0,0 +1,152 @@
+package de.jlo.talendcomp.tabletransfer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.UUID;
+
+import org.junit.Test;
+
+public class RowChunkCodecTest {
+	
+	private static Object roundTrip(Object value) throws IOException {
+		final ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		final DataOutputStream out = new DataOutputStream(bout);
+		RowChunkCodec.writeValue(out, value);
+		out.flush();
+		final DataInputStream in = new DataInputStream(new ByteArrayInputStream(bout.toByteArray()));
+		final Object result = RowChunkCodec.readValue(in);
+		assertEquals("Not all bytes read for: " + value, 0, in.available());
+		return result;
+	}
+	
+	private static void assertRoundTrip(Object value) throws IOException {
+		final Object result = roundTrip(value);
+		assertEquals(value, result);
+		if (value != null) {
+			assertEquals(value.getClass(), result.getClass());
+		}
+	}
+
+	@Test
+	public void testNull() throws IOException {
+		assertRoundTrip(null);
+	}
+
+	@Test
+	public void testString() throws IOException {
+		assertRoundTrip("");
+		assertRoundTrip("abc \u00e4\u00f6\u00fc \u20ac \ud83d\ude00");
+	}
+
+	@Test
+	public void testNumbers() throws IOException {
+		assertRoundTrip(Integer.MIN_VALUE);
+		assertRoundTrip(Long.MAX_VALUE);
+		assertRoundTrip(-1.5d);
+		assertRoundTrip(Double.NaN);
+		assertRoundTrip(3.25f);
+		assertRoundTrip((short) -12);
+		assertRoundTrip((byte) 7);
+		assertRoundTrip(Boolean.TRUE);
+		assertRoundTrip(Boolean.FALSE);
+	}
+
+	@Test
+	public void testBigNumbers() throws IOException {
+		// the scale must be kept, equals of BigDecimal compares the scale
+		assertRoundTrip(new BigDecimal("-12345678901234567890.1200"));
+		assertRoundTrip(new BigDecimal("1E+5"));
+		assertRoundTrip(BigDecimal.ZERO);
+		assertRoundTrip(new BigInteger("-123456789012345678901234567890"));
+	}
+
+	@Test
+	public void testDates() throws IOException {
+		final Timestamp ts = new Timestamp(1700000000123L);
+		ts.setNanos(123456789);
+		assertRoundTrip(ts);
+		assertRoundTrip(new java.sql.Date(1700000000000L));
+		assertRoundTrip(new Time(3723000L));
+		assertRoundTrip(new Date(1700000000456L));
+	}
+
+	@Test
+	public void testBytes() throws IOException {
+		final byte[] bytes = new byte[] {0, -1, 127, -128, 42};
+		assertArrayEquals(bytes, (byte[]) roundTrip(bytes));
+		assertArrayEquals(new byte[0], (byte[]) roundTrip(new byte[0]));
+	}
+
+	@Test
+	public void testUUID() throws IOException {
+		assertRoundTrip(UUID.randomUUID());
+	}
+
+	@Test
+	public void testSerialized() throws IOException {
+		final ArrayList<String> list = new ArrayList<>();
+		list.add("a");
+		list.add(null);
+		assertRoundTrip(list);
+	}
+
+	@Test
+	public void testNotSerializable() {
+		try {
+			roundTrip(new Object());
+			throw new AssertionError("IOException expected");
+		} catch (IOException e) {
+			assertTrue(e.getMessage().contains("java.lang.Object"));
+		}
+	}
+
+	@Test
+	public void testChunk() throws IOException {
+		final Object[][] chunk = new Object[][] {
+			{1, "a", null},
+			{},
+			{2L, new BigDecimal("1.5"), new byte[] {1, 2}}
+		};
+		final ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		final DataOutputStream out = new DataOutputStream(bout);
+		RowChunkCodec.writeChunk(out, chunk);
+		out.flush();
+		final DataInputStream in = new DataInputStream(new ByteArrayInputStream(bout.toByteArray()));
+		final int countRows = in.readInt();
+		assertEquals(chunk.length, countRows);
+		final Object[][] result = RowChunkCodec.readChunk(in, countRows);
+		assertEquals(0, in.available());
+		assertEquals(3, result[0].length);
+		assertEquals(1, result[0][0]);
+		assertEquals("a", result[0][1]);
+		assertEquals(null, result[0][2]);
+		assertEquals(0, result[1].length);
+		assertEquals(2L, result[2][0]);
+		assertEquals(new BigDecimal("1.5"), result[2][1]);
+		assertArrayEquals(new byte[] {1, 2}, (byte[]) result[2][2]);
+	}
+
+	@Test
+	public void testUnknownTag() {
+		try {
+			RowChunkCodec.readValue(new DataInputStream(new ByteArrayInputStream(new byte[] {50})));
+			throw new AssertionError("IOException expected");
+		} catch (IOException e) {
+			assertTrue(e.getMessage().contains("50"));
+		}
+	}
+
+}
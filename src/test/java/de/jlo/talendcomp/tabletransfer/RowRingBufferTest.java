@@ -0,0 +1,194 @@
+package de.jlo.talendcomp.tabletransfer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class RowRingBufferTest {
+	
+	private static Object[][] chunk(int value) {
+		return new Object[][] {{value}};
+	}
+	
+	private static int valueOf(Object[][] chunk) {
+		return (Integer) chunk[0][0];
+	}
+	
+	@Test(timeout = 10000)
+	public void testWrapAroundWithTwoCursors() throws Exception {
+		final RowRingBuffer buffer = new RowRingBuffer(3, RowRingBuffer.WaitStrategy.YIELD);
+		assertEquals(4, buffer.getCapacity());
+		final RowRingBuffer.Cursor c1 = buffer.addCursor();
+		final RowRingBuffer.Cursor c2 = buffer.addCursor();
+		// several rounds through the slots, both cursors see every chunk in order
+		for (int i = 0; i < 20; i++) {
+			buffer.put(chunk(i));
+			assertEquals(1, c1.size());
+			assertEquals(i, valueOf(c1.poll(1, TimeUnit.SECONDS)));
+			assertEquals(i, valueOf(c2.poll(1, TimeUnit.SECONDS)));
+		}
+		assertNull(c1.poll(10, TimeUnit.MILLISECONDS));
+		assertNull(c2.poll(10, TimeUnit.MILLISECONDS));
+	}
+	
+	@Test(timeout = 10000)
+	public void testProducerWaitsForSlowestCursor() throws Exception {
+		final RowRingBuffer buffer = new RowRingBuffer(4, RowRingBuffer.WaitStrategy.PARK);
+		final RowRingBuffer.Cursor fast = buffer.addCursor();
+		final RowRingBuffer.Cursor slow = buffer.addCursor();
+		for (int i = 0; i < 4; i++) {
+			buffer.put(chunk(i));
+			assertEquals(i, valueOf(fast.poll(1, TimeUnit.SECONDS)));
+		}
+		final CountDownLatch published = new CountDownLatch(1);
+		final Thread producer = new Thread() {
+			
+			@Override
+			public void run() {
+				try {
+					buffer.put(chunk(4));
+					published.countDown();
+				} catch (InterruptedException e) {
+					// test ends
+				}
+			}
+			
+		};
+		producer.start();
+		// the slot 0 has not yet been read by the slow cursor
+		assertEquals(false, published.await(100, TimeUnit.MILLISECONDS));
+		assertEquals(0, valueOf(slow.poll(1, TimeUnit.SECONDS)));
+		assertTrue(published.await(5, TimeUnit.SECONDS));
+		for (int i = 1; i <= 4; i++) {
+			assertEquals(i, valueOf(slow.poll(1, TimeUnit.SECONDS)));
+		}
+		assertEquals(4, valueOf(fast.poll(1, TimeUnit.SECONDS)));
+		producer.join();
+	}
+	
+	@Test(timeout = 10000)
+	public void testClosedCursorDoesNotBlockProducer() throws Exception {
+		final RowRingBuffer buffer = new RowRingBuffer(2, RowRingBuffer.WaitStrategy.YIELD);
+		final RowRingBuffer.Cursor reading = buffer.addCursor();
+		final RowRingBuffer.Cursor closed = buffer.addCursor();
+		closed.close();
+		for (int i = 0; i < 10; i++) {
+			buffer.put(chunk(i));
+			assertEquals(i, valueOf(reading.poll(1, TimeUnit.SECONDS)));
+		}
+	}
+	
+	@Test(timeout = 10000)
+	public void testCursorsCannotBeAddedAfterPublish() throws Exception {
+		final RowRingBuffer buffer = new RowRingBuffer(2, RowRingBuffer.WaitStrategy.YIELD);
+		buffer.addCursor();
+		buffer.put(chunk(0));
+		try {
+			buffer.addCursor();
+			throw new AssertionError("IllegalStateException expected");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+	}
+	
+	@Test(timeout = 30000)
+	public void testMultipleProducers() throws Exception {
+		final int countProducers = 4;
+		final int countChunks = 10000;
+		final RowRingBuffer buffer = new RowRingBuffer(8, RowRingBuffer.WaitStrategy.YIELD);
+		final RowRingBuffer.Cursor c1 = buffer.addCursor();
+		final RowRingBuffer.Cursor c2 = buffer.addCursor();
+		final AtomicReference<Throwable> error = new AtomicReference<>();
+		final Thread[] producers = new Thread[countProducers];
+		for (int p = 0; p < countProducers; p++) {
+			final int producerIndex = p;
+			producers[p] = new Thread() {
+				
+				@Override
+				public void run() {
+					try {
+						for (int i = 0; i < countChunks; i++) {
+							buffer.put(new Object[][] {{producerIndex, i}});
+						}
+					} catch (Throwable t) {
+						error.set(t);
+					}
+				}
+				
+			};
+			producers[p].start();
+		}
+		final ChunkConsumer consumer1 = new ChunkConsumer(c1, countProducers, countProducers * countChunks);
+		final ChunkConsumer consumer2 = new ChunkConsumer(c2, countProducers, countProducers * countChunks);
+		consumer1.start();
+		consumer2.start();
+		for (Thread t : producers) {
+			t.join();
+		}
+		consumer1.join();
+		consumer2.join();
+		assertNull(error.get());
+		for (ChunkConsumer consumer : new ChunkConsumer[] {consumer1, consumer2}) {
+			assertNull(consumer.error);
+			for (int p = 0; p < countProducers; p++) {
+				// every chunk exactly once and in the order of its producer
+				assertEquals(countChunks - 1, consumer.lastValues[p]);
+			}
+		}
+	}
+	
+	@Test(timeout = 10000)
+	public void testSameChunkObjectForAllCursors() throws Exception {
+		final RowRingBuffer buffer = new RowRingBuffer(2, RowRingBuffer.WaitStrategy.SPIN);
+		final RowRingBuffer.Cursor c1 = buffer.addCursor();
+		final RowRingBuffer.Cursor c2 = buffer.addCursor();
+		final Object[][] chunk = chunk(1);
+		c1.put(chunk);
+		assertSame(chunk, c1.poll(1, TimeUnit.SECONDS));
+		assertSame(chunk, c2.poll(1, TimeUnit.SECONDS));
+	}
+	
+	private static class ChunkConsumer extends Thread {
+		
+		private final RowChunkQueue queue;
+		private final int[] lastValues;
+		private final int countChunks;
+		private volatile Throwable error;
+		
+		private ChunkConsumer(RowChunkQueue queue, int countProducers, int countChunks) {
+			this.queue = queue;
+			this.lastValues = new int[countProducers];
+			this.countChunks = countChunks;
+			for (int p = 0; p < countProducers; p++) {
+				lastValues[p] = -1;
+			}
+		}
+		
+		@Override
+		public void run() {
+			try {
+				for (int n = 0; n < countChunks; n++) {
+					final Object[][] chunk = queue.poll(5, TimeUnit.SECONDS);
+					if (chunk == null) {
+						throw new AssertionError("Chunk " + n + " not received");
+					}
+					final int producer = (Integer) chunk[0][0];
+					final int value = (Integer) chunk[0][1];
+					assertEquals(lastValues[producer] + 1, value);
+					lastValues[producer] = value;
+				}
+			} catch (Throwable t) {
+				error = t;
+			}
+		}
+		
+	}
+
+}
@@ -0,0 +1,137 @@
+package de.jlo.talendcomp.tabletransfer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SpillRowChunkQueueTest {
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	private final Object[][] terminalChunk = new Object[0][];
+	
+	private static Object[][] chunk(int value) {
+		return new Object[][] {{value, "row " + value}, {value, null}};
+	}
+	
+	private static void assertChunk(int value, Object[][] chunk) {
+		assertEquals(2, chunk.length);
+		assertEquals(value, chunk[0][0]);
+		assertEquals("row " + value, chunk[0][1]);
+		assertEquals(value, chunk[1][0]);
+		assertNull(chunk[1][1]);
+	}
+	
+	@Test(timeout = 10000)
+	public void testOrderMemorySegmentsMemory() throws Exception {
+		final File dir = folder.getRoot();
+		final List<Object[][]> spilled = new ArrayList<>();
+		final SpillRowChunkQueue queue = new SpillRowChunkQueue(2, dir, "test", 200, terminalChunk, new SpillRowChunkQueue.SpillListener() {
+			
+			@Override
+			public void spilled(Object[][] chunk) {
+				spilled.add(chunk);
+			}
+			
+		});
+		// 2 chunks in memory, the others in several segment files
+		for (int i = 0; i < 20; i++) {
+			queue.put(chunk(i));
+		}
+		assertEquals(20, queue.size());
+		assertEquals(18, queue.getCountSpilledChunks());
+		assertEquals(36, queue.getCountSpilledRows());
+		assertEquals(18, spilled.size());
+		assertEquals(1, dir.list().length);
+		for (int i = 0; i < 10; i++) {
+			assertChunk(i, queue.poll(1, TimeUnit.SECONDS));
+		}
+		// still spilling until all segments are read
+		queue.put(chunk(20));
+		assertEquals(19, spilled.size());
+		for (int i = 10; i <= 20; i++) {
+			assertChunk(i, queue.poll(1, TimeUnit.SECONDS));
+		}
+		assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+		assertEquals(0, queue.size());
+		// back in memory
+		final Object[][] c = chunk(21);
+		queue.put(c);
+		assertSame(c, queue.poll(1, TimeUnit.SECONDS));
+		assertEquals(19, spilled.size());
+		queue.dispose();
+		assertEquals(0, dir.list().length);
+	}
+	
+	@Test(timeout = 10000)
+	public void testTerminalChunk() throws Exception {
+		final SpillRowChunkQueue queue = new SpillRowChunkQueue(1, folder.getRoot(), "test", 1024 * 1024, terminalChunk, null);
+		queue.put(terminalChunk);
+		queue.put(chunk(1));
+		queue.put(terminalChunk);
+		// the terminal chunk comes back as the same object from memory and from a segment
+		assertSame(terminalChunk, queue.poll(1, TimeUnit.SECONDS));
+		assertChunk(1, queue.poll(1, TimeUnit.SECONDS));
+		assertSame(terminalChunk, queue.poll(1, TimeUnit.SECONDS));
+		assertEquals(1, queue.getCountSpilledChunks());
+		assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+		queue.dispose();
+	}
+	
+	@Test(timeout = 10000)
+	public void testDisposeDeletesUnreadSegments() throws Exception {
+		final File dir = folder.getRoot();
+		final SpillRowChunkQueue queue = new SpillRowChunkQueue(1, dir, "test", 100, terminalChunk, null);
+		for (int i = 0; i < 10; i++) {
+			queue.put(chunk(i));
+		}
+		assertEquals(1, dir.list().length);
+		queue.dispose();
+		assertEquals(0, dir.list().length);
+		assertEquals(0, queue.size());
+	}
+	
+	@Test(timeout = 30000)
+	public void testConcurrentProducerAndConsumer() throws Exception {
+		final int countChunks = 5000;
+		final SpillRowChunkQueue queue = new SpillRowChunkQueue(4, folder.getRoot(), "test", 4096, terminalChunk, null);
+		final Thread producer = new Thread() {
+			
+			@Override
+			public void run() {
+				try {
+					for (int i = 0; i < countChunks; i++) {
+						queue.put(chunk(i));
+					}
+					queue.put(terminalChunk);
+				} catch (InterruptedException e) {
+					// test ends
+				}
+			}
+			
+		};
+		producer.start();
+		int expected = 0;
+		while (true) {
+			final Object[][] chunk = queue.poll(5, TimeUnit.SECONDS);
+			if (chunk == terminalChunk) {
+				break;
+			}
+			assertChunk(expected++, chunk);
+		}
+		assertEquals(countChunks, expected);
+		producer.join();
+		queue.dispose();
+	}
+
+}
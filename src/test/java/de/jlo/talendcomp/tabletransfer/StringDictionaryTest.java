@@ -0,0 +1,68 @@
+package de.jlo.talendcomp.tabletransfer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class StringDictionaryTest {
+
+	@Test
+	public void testRepeatedValuesShareOneInstance() {
+		final StringDictionary dict = new StringDictionary(10, 100, 0.5);
+		final String first = new String("EUR");
+		final String second = new String("EUR");
+		assertNotSame(first, second);
+		assertSame(first, dict.canonicalize(first));
+		assertSame(first, dict.canonicalize(second));
+		assertNull(dict.canonicalize(null));
+		assertEquals(2, dict.getCountLookups());
+		assertEquals(1, dict.getCountHits());
+		assertEquals(1, dict.getSize());
+	}
+
+	@Test
+	public void testLeastRecentlyUsedValueIsRemoved() {
+		final StringDictionary dict = new StringDictionary(2, 1000, 0.5);
+		final String a = new String("a");
+		dict.canonicalize(a);
+		dict.canonicalize(new String("b"));
+		// a is used again, b is now the eldest value
+		assertSame(a, dict.canonicalize(new String("a")));
+		final String c = new String("c");
+		dict.canonicalize(c);
+		assertEquals(2, dict.getSize());
+		assertSame(a, dict.canonicalize(new String("a")));
+		assertSame(c, dict.canonicalize(new String("c")));
+		final String b = new String("b");
+		assertSame(b, dict.canonicalize(b));
+	}
+
+	@Test
+	public void testSwitchOffForHighCardinality() {
+		final StringDictionary dict = new StringDictionary(1000, 100, 0.5);
+		for (int i = 0; i < 100; i++) {
+			dict.canonicalize("value-" + i);
+		}
+		assertFalse(dict.isEnabled());
+		assertEquals(0, dict.getSize());
+		final String value = new String("value-1");
+		assertSame(value, dict.canonicalize(value));
+	}
+
+	@Test
+	public void testStaysEnabledForLowCardinality() {
+		final StringDictionary dict = new StringDictionary(1000, 100, 0.5);
+		for (int i = 0; i < 1000; i++) {
+			dict.canonicalize("value-" + (i % 5));
+		}
+		assertTrue(dict.isEnabled());
+		assertEquals(5, dict.getSize());
+		assertEquals(995, dict.getCountHits());
+	}
+
+}
@@ -0,0 +1,48 @@
+package de.jlo.talendcomp.tabletransfer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+
+import org.junit.Test;
+
+public class TableTransferKeyRoutingTest {
+
+	@Test
+	public void testEqualKeysHaveEqualHashCodes() {
+		assertEquals(TableTransfer.getKeyHashCode(new BigDecimal("1.0")), TableTransfer.getKeyHashCode(new BigDecimal("1.00")));
+		assertEquals(TableTransfer.getKeyHashCode(new byte[] {1, 2, 3}), TableTransfer.getKeyHashCode(new byte[] {1, 2, 3}));
+		assertEquals(0, TableTransfer.getKeyHashCode(null));
+		assertEquals("abc".hashCode(), TableTransfer.getKeyHashCode("abc"));
+	}
+
+	@Test
+	public void testSameKeySameWriter() {
+		final int[] keyIndexes = new int[] {2, 0};
+		final Object[] row1 = new Object[] {new BigDecimal("10.50"), "a", new byte[] {7, 8}};
+		final Object[] row2 = new Object[] {new BigDecimal("10.5"), "b", new byte[] {7, 8}};
+		for (int countWriters = 1; countWriters <= 16; countWriters++) {
+			assertEquals(TableTransfer.getWriterIndex(row1, keyIndexes, countWriters), TableTransfer.getWriterIndex(row2, keyIndexes, countWriters));
+		}
+		// the non key column does not matter but null keys are allowed
+		final Object[] row3 = new Object[] {null, "c", null};
+		final int index = TableTransfer.getWriterIndex(row3, keyIndexes, 4);
+		assertTrue(index >= 0 && index < 4);
+	}
+
+	@Test
+	public void testSequentialKeysAreSpread() {
+		final int countWriters = 4;
+		final int[] counts = new int[countWriters];
+		final int[] keyIndexes = new int[] {0};
+		for (long id = -5000; id < 5000; id++) {
+			counts[TableTransfer.getWriterIndex(new Object[] {id}, keyIndexes, countWriters)]++;
+		}
+		for (int count : counts) {
+			// every writer gets at least the half of a fair share
+			assertTrue("Writer count: " + count, count > 10000 / countWriters / 2);
+		}
+	}
+
+}